@@ -0,0 +1,78 @@
+package com.example.dscteam1.Document;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 문서 엔진별 키 입력(삽입+삭제) 비용 비교
+// 실행: gradle jmh -PjmhIncludes=DocumentMutationBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DocumentMutationBenchmark {
+
+    // 10 KB ~ 50 MB
+    @Param({"10240", "1048576", "10485760", "52428800"})
+    public int size;
+
+    @Param({"rope", "stringBuilder"})
+    public String engine;
+
+    private TextDocument document;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        document = create(engine, generateText(size));
+        random = new Random(42);
+    }
+
+    // 문서 앞부분(상위 1%)에서 한 글자 입력 후 지우기 - 뒤쪽이 가장 많이 밀리는 경우
+    @Benchmark
+    public int typeNearTop() {
+        int position = random.nextInt(Math.max(1, size / 100));
+        document.insert(position, "x");
+        document.delete(position, position + 1);
+        return document.length();
+    }
+
+    // 임의 위치에서 한 글자 입력 후 지우기
+    @Benchmark
+    public int typeAnywhere() {
+        int position = random.nextInt(size);
+        document.insert(position, "x");
+        document.delete(position, position + 1);
+        return document.length();
+    }
+
+    // 임의 위치에 4 KB 붙여넣기 후 되돌리기
+    @Benchmark
+    public int pasteAnywhere() {
+        int position = random.nextInt(size);
+        document.insert(position, PASTE);
+        document.delete(position, position + PASTE.length());
+        return document.length();
+    }
+
+    private static final String PASTE = generateText(4096);
+
+    static TextDocument create(String engine, String text) {
+        return "rope".equals(engine) ? new RopeDocument(text) : new StringBuilderDocument(text);
+    }
+
+    // 80자 내외 라인으로 구성된 로그 형태의 텍스트
+    static String generateText(int size) {
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder(size);
+        while (sb.length() < size) {
+            int lineLength = 40 + random.nextInt(80);
+            for (int i = 0; i < lineLength && sb.length() < size - 1; i++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+            sb.append('\n');
+        }
+        sb.setLength(size);
+        return sb.toString();
+    }
+}
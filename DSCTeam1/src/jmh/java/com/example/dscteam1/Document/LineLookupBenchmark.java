@@ -0,0 +1,50 @@
+package com.example.dscteam1.Document;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 위치 → 라인 번호 조회 비용 (DocumentRoom.getLineFromPosition 은 lineAt 을 그대로 부른다)
+// 편집 하나마다 권한 확인을 위해 시작/끝 위치에서 두 번 부른다.
+// 실행: gradle jmh -PjmhIncludes=LineLookupBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LineLookupBenchmark {
+
+    // 10 KB ~ 50 MB
+    @Param({"10240", "1048576", "10485760", "52428800"})
+    public int size;
+
+    @Param({"rope", "stringBuilder"})
+    public String engine;
+
+    private TextDocument document;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        document = DocumentMutationBenchmark.create(engine, DocumentMutationBenchmark.generateText(size));
+        random = new Random(42);
+    }
+
+    // 임의 위치의 라인 번호
+    @Benchmark
+    public int lineAtAnywhere() {
+        return document.lineAt(random.nextInt(size + 1));
+    }
+
+    // 문서 끝 부근 (앞에서부터 세는 방식에서 가장 느린 경우)
+    @Benchmark
+    public int lineAtNearEnd() {
+        return document.lineAt(size - random.nextInt(Math.max(1, size / 100)));
+    }
+
+    // 편집 권한 확인과 같은 패턴: 80자 안쪽 범위의 시작/끝 라인
+    @Benchmark
+    public int lineRangeOfEdit() {
+        int start = random.nextInt(size - 80);
+        return document.lineAt(start) + document.lineAt(start + random.nextInt(80));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.dscteam1.Persistence;
+
+import com.example.dscteam1.Document.TextOperation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// 편집 기록 비용
+//  - appendAndSync: 연산 batch 개를 기록하고 한 번 fsync (batch=1 은 연산마다 fsync 하는 경우)
+//    초당 연산 수 = 결과(batch/s) × batch
+//  - recover: 연산 100만 개가 쌓인 기록(스냅샷 없음)을 처음부터 재생하는 시간
+// 실행: gradle jmh -PjmhIncludes=EditLogBenchmark
+public class EditLogBenchmark {
+
+    @State(Scope.Thread)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public static class Append {
+
+        @Param({"1", "64", "1024"})
+        public int batch;
+
+        private EditLogWriter writer;
+        private EditLog log;
+        private Path dir;
+        private long revision;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("edit-log-bench");
+            // 자동 그룹 커밋은 끄고 벤치마크 스레드가 직접 flush 한다
+            writer = new EditLogWriter(new EditLogWriter.Settings(3_600_000, 64L << 20, Integer.MAX_VALUE, 0));
+            log = new EditLog(dir, writer);
+            log.recover();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            writer.shutdown();
+            deleteRecursively(dir);
+        }
+
+        @Benchmark
+        public long appendAndSync() throws IOException {
+            for (int i = 0; i < batch; i++) {
+                log.append(++revision, TextOperation.insert((int) (revision % 1000), "x"));
+            }
+            log.flush();
+            return revision;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public static class Recover {
+
+        @Param({"1000000"})
+        public int ops;
+
+        private EditLogWriter writer;
+        private Path dir;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("edit-log-bench");
+            writer = new EditLogWriter(new EditLogWriter.Settings(3_600_000, 64L << 20, Integer.MAX_VALUE, 0));
+            EditLog log = new EditLog(dir, writer);
+            log.recover();
+
+            // 한 글자 입력 위주 + 가끔 지우기/붙여넣기 (문서는 약 1 MB 까지 자란다)
+            Random random = new Random(42);
+            int length = 0;
+            for (int revision = 1; revision <= ops; revision++) {
+                int position = random.nextInt(length + 1);
+                int kind = random.nextInt(20);
+                TextOperation op;
+                if (kind == 0 && length > 0) {
+                    op = TextOperation.delete(position, Math.min(length, position + 1 + random.nextInt(8)));
+                } else if (kind == 1) {
+                    op = TextOperation.insert(position, "pasted line\n");
+                } else {
+                    op = TextOperation.insert(position, "x");
+                }
+                length += op.lengthDelta();
+                log.append(revision, op);
+                if (revision % 10_000 == 0) {
+                    log.flush();
+                }
+            }
+            log.flush();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            writer.shutdown();
+            deleteRecursively(dir);
+        }
+
+        @Benchmark
+        public long recover() throws IOException {
+            return new EditLog(dir, writer).recover().revision();
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
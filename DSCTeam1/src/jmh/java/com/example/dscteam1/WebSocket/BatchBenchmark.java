@@ -0,0 +1,82 @@
+package com.example.dscteam1.WebSocket;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+// 한 사용자의 연속 입력(keystrokes 글자)을 처리하는 서버 비용: 글자마다 add 메시지 vs batch 메시지 하나
+// 수신 스레드의 JSON 파싱부터 변환/권한 확인/적용/브로드캐스트/ack 까지 (MySocketHandler.dispatch) 포함한다.
+// 보내는 프레임 수: single = keystrokes × users (다른 멤버 브로드캐스트 + ack), batch = users
+// 실행: gradle jmh -PjmhIncludes=BatchBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BatchBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int users;
+
+    @Param({"8"})
+    public int keystrokes;
+
+    @Param({"single", "batch"})
+    public String mode;
+
+    // 송신 워커 대신 호출한 스레드에서 바로 큐를 비운다
+    private static final Executor INLINE = Runnable::run;
+
+    private static final OutboundQueue.Settings SETTINGS =
+            new OutboundQueue.Settings(1000, Long.MAX_VALUE, OutboundQueue.OverflowPolicy.RESYNC,
+                    FrameCompression.NONE);
+
+    private final MySocketHandler handler = new MySocketHandler(null);
+    private DocumentRoom room;
+    private OutboundQueue typist;
+    private final List<String> frames = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        room = new DocumentRoom("bench", "0123456789\n".repeat(1000), INLINE);
+        for (int i = 0; i < users; i++) {
+            OutboundQueue out = new OutboundQueue(new NullWebSocketSession("user" + i), SETTINGS, INLINE);
+            room.addMember("user" + i, out);
+            if (i == 0) {
+                typist = out;
+            }
+        }
+
+        // rev 없이 절대 위치로 보낸다 (변환 비용은 두 방식이 같으므로 뺀다)
+        JSONArray ops = new JSONArray();
+        for (int i = 0; i < keystrokes; i++) {
+            JSONObject add = new JSONObject();
+            add.put("type", "add");
+            add.put("position", 5 + i);
+            add.put("text", "x");
+            ops.put(add);
+            if (mode.equals("single")) {
+                add.put("id", i + 1);
+                frames.add(add.toString());
+            }
+        }
+        if (mode.equals("batch")) {
+            JSONObject batch = new JSONObject();
+            batch.put("type", "batch");
+            batch.put("ops", ops);
+            batch.put("id", 1);
+            frames.add(batch.toString());
+        }
+    }
+
+    @Benchmark
+    public long typeBurst() {
+        for (String frame : frames) {
+            handler.dispatch(room, "user0", typist, new JSONObject(frame));
+        }
+        return room.getRevision();
+    }
+}
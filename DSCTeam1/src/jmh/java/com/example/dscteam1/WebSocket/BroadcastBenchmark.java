@@ -0,0 +1,59 @@
+package com.example.dscteam1.WebSocket;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+// 접속자 수에 따른 브로드캐스트 1회 비용 (100 KB 붙여넣기 한 번을 모든 멤버에게)
+// sharedFrame: 한 번 직렬화한 TextMessage 를 모든 멤버가 공유 (DocumentRoom 의 현재 방식)
+// perRecipient: 멤버마다 change.toString() 을 다시 하는 이전 방식
+// 할당량 비교: gradle jmh -PjmhIncludes=BroadcastBenchmark -PjmhProfilers=gc (gc.alloc.rate.norm)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BroadcastBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int users;
+
+    // 송신 워커 대신 호출한 스레드에서 바로 큐를 비운다
+    private static final Executor INLINE = Runnable::run;
+
+    private static final OutboundQueue.Settings SETTINGS =
+            new OutboundQueue.Settings(1000, Long.MAX_VALUE, OutboundQueue.OverflowPolicy.RESYNC,
+                    FrameCompression.NONE);
+
+    private DocumentRoom room;
+    private final List<OutboundQueue> queues = new ArrayList<>();
+    private JSONObject change;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        room = new DocumentRoom("bench", "", INLINE);
+        for (int i = 0; i < users; i++) {
+            OutboundQueue out = new OutboundQueue(new NullWebSocketSession("user" + i), SETTINGS, INLINE);
+            room.addMember("user" + i, out);
+            queues.add(out);
+        }
+        change = new JSONObject();
+        change.put("type", "add");
+        change.put("position", 0);
+        change.put("text", "x".repeat(100 * 1024));
+    }
+
+    @Benchmark
+    public void sharedFrame() {
+        room.broadcastTextChange(change, null);
+    }
+
+    @Benchmark
+    public void perRecipient() {
+        for (OutboundQueue out : queues) {
+            out.send(change.toString());
+        }
+    }
+}
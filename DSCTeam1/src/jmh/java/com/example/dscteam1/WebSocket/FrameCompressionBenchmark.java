@@ -0,0 +1,95 @@
+package com.example.dscteam1.WebSocket;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 송신 프레임 하나를 압축하는 비용과 줄어드는 바이트 (FrameCompression.deflate)
+// keystroke: 한 글자 삽입 연산, paste: 약 10 KB 붙여넣기 연산, initChunk: init 조각 하나 (InitChunks.CHUNK_CHARS 문자)
+// 키 입력 프레임은 압축해도 거의 줄지 않으면서 CPU 만 쓰므로 editor.compression.min-bytes 아래는 압축하지 않는다.
+// 바이트는 보조 카운터(bytesIn / bytesOut, 반복 구간 합계)로 함께 나온다: 압축률 = bytesOut / bytesIn
+// 실행: gradle jmh -PjmhIncludes=FrameCompressionBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameCompressionBenchmark {
+
+    @Param({"keystroke", "paste", "initChunk"})
+    public String frame;
+
+    @Param({"1", "6"})
+    public int level;
+
+    private FrameCompression compression;
+    private byte[] payload;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Bytes {
+        public long bytesIn;
+        public long bytesOut;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesIn = 0;
+            bytesOut = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        compression = new FrameCompression(FrameCompression.Mode.THRESHOLD, 0, level);
+        JSONObject json = new JSONObject();
+        switch (frame) {
+            case "keystroke" -> {
+                json.put("type", "add");
+                json.put("position", 48_213);
+                json.put("text", "x");
+                json.put("rev", 120_345);
+                json.put("userId", "user-17");
+            }
+            case "paste" -> {
+                json.put("type", "add");
+                json.put("position", 48_213);
+                json.put("text", sourceText(10 * 1024));
+                json.put("rev", 120_345);
+                json.put("userId", "user-17");
+            }
+            default -> {
+                json.put("type", "initChunk");
+                json.put("offset", 0);
+                json.put("text", sourceText(InitChunks.CHUNK_CHARS));
+            }
+        }
+        payload = json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] deflate(Bytes bytes) {
+        byte[] out = compression.deflate(FrameCompression.DEFLATED_TEXT, payload);
+        bytes.bytesIn += payload.length;
+        bytes.bytesOut += out.length;
+        return out;
+    }
+
+    // 편집기에서 흔한 코드와 한글 주석이 섞인 텍스트 (같은 seed 면 같은 텍스트)
+    private static String sourceText(int chars) {
+        String[] words = {"int", "return", "final", "private", "String", "document", "length", "position",
+                "if", "for", "(", ")", "{", "}", ";", "=", "+", "// 문서", "편집", "줄", "리비전", "0", "1"};
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder(chars + 64);
+        while (sb.length() < chars) {
+            sb.append("    ".repeat(random.nextInt(4)));
+            int count = 3 + random.nextInt(8);
+            for (int i = 0; i < count; i++) {
+                sb.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            sb.append('\n');
+        }
+        sb.setLength(chars);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.dscteam1.WebSocket;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 라인 락 확인 / 잡기 / 이동 비용 (편집마다 firstConflict, 줄 수가 바뀌는 편집마다 shift)
+// 사용자 한 명당 3줄짜리 락 하나를 10줄 간격으로 둔다.
+// 실행: gradle jmh -PjmhIncludes=LineLockBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LineLockBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int locks;
+
+    private static final int SPACING = 10;
+
+    private LineLockManager manager;
+    private int lines;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new LineLockManager(Long.MAX_VALUE / 2);
+        for (int i = 0; i < locks; i++) {
+            manager.acquire("user" + i, i * SPACING, i * SPACING + 2, 0);
+        }
+        lines = locks * SPACING;
+        random = new Random(42);
+    }
+
+    // 키 입력 하나: 한 줄에 다른 사람 락이 있는지
+    @Benchmark
+    public Object checkKeystroke() {
+        int line = random.nextInt(lines);
+        return manager.firstConflict("editor", line, line);
+    }
+
+    // 붙여넣기 / 범위 삭제: 50줄 구간에 다른 사람 락이 있는지 (락이 없는 사람 기준이라 첫 락에서 멈춘다)
+    @Benchmark
+    public Object checkRange() {
+        int line = random.nextInt(lines);
+        return manager.firstConflict("editor", line, line + 49);
+    }
+
+    // 자기 락 안에서의 편집: 구간 안의 락이 모두 자기 것이라 끝까지 본다
+    @Benchmark
+    public Object checkOwnLock() {
+        int user = random.nextInt(locks);
+        return manager.firstConflict("user" + user, user * SPACING, user * SPACING + 2);
+    }
+
+    // 빈 라인에 락을 잡았다가 풀기
+    @Benchmark
+    public Object acquireRelease() {
+        int line = random.nextInt(locks) * SPACING + 5;
+        manager.acquire("editor", line, line, 0);
+        return manager.release("editor");
+    }
+
+    // 임의 라인에서 줄바꿈을 넣었다가 지우기 (아래쪽 락이 모두 한 줄씩 내려갔다 올라온다)
+    @Benchmark
+    public boolean shiftBelow() {
+        int line = random.nextInt(lines);
+        manager.shift(line, line, 1);
+        return manager.shift(line, line + 1, 0);
+    }
+}
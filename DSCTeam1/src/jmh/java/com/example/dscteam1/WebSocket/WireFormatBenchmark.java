@@ -0,0 +1,108 @@
+package com.example.dscteam1.WebSocket;
+
+import com.example.dscteam1.Document.RopeDocument;
+import com.example.dscteam1.Document.TextDocument;
+import com.example.dscteam1.Document.TextOperation;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 받은 편집 프레임 하나를 디코딩해 문서에 적용하는 비용 (JSON vs BinaryOps)
+// 키 입력 크기의 연산(한 글자 삽입 / 삭제, 가끔 짧은 붙여넣기)을 클라이언트가 보내는 형식 그대로 미리 만들어 둔다.
+// 실행: gradle jmh -PjmhIncludes=WireFormatBenchmark -PjmhProfilers=gc (gc.alloc.rate.norm 으로 할당량 비교)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WireFormatBenchmark {
+
+    private static final int FRAMES = 1024;
+
+    @Param({"json", "binary"})
+    public String encoding;
+
+    private final String[] jsonFrames = new String[FRAMES];
+    private final byte[][] binaryFrames = new byte[FRAMES][];
+    private TextDocument document;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        document = new RopeDocument("0123456789\n".repeat(10_000));
+        // 삽입과 그 삭제를 번갈아 두어 문서 길이가 변하지 않게 한다
+        for (int i = 0; i < FRAMES; i += 2) {
+            int position = random.nextInt(document.length());
+            String text = random.nextInt(10) == 0 ? "붙여넣은 text 😀" : "x";
+            TextOperation insert = TextOperation.insert(position, text);
+            TextOperation delete = TextOperation.delete(position, position + text.length());
+            addFrame(i, insert, "add", i + 1);
+            addFrame(i + 1, delete, "delete", i + 2);
+        }
+    }
+
+    private void addFrame(int index, TextOperation op, String type, long id) {
+        JSONObject json = new JSONObject();
+        json.put("type", type);
+        if (op.start() == op.end()) {
+            json.put("position", op.start());
+            json.put("text", op.text());
+        } else {
+            json.put("start", op.start());
+            json.put("end", op.end());
+        }
+        json.put("rev", 12_345 + index);
+        json.put("id", id);
+        jsonFrames[index] = json.toString();
+
+        // script.js 의 encodeOp 와 같은 배치
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer header = ByteBuffer.allocate(64);
+        header.put(BinaryOps.kindOf(op));
+        BinaryOps.writeVarLong(header, 12_345 + index + 1);
+        BinaryOps.writeVarLong(header, id);
+        BinaryOps.writeVarLong(header, op.start());
+        if (op.start() != op.end()) {
+            BinaryOps.writeVarLong(header, op.end());
+        }
+        out.write(header.array(), 0, header.position());
+        out.writeBytes(op.text().getBytes(StandardCharsets.UTF_8));
+        binaryFrames[index] = out.toByteArray();
+    }
+
+    // MySocketHandler 의 수신 경로와 같은 순서: 디코딩 → 연산 생성 → 적용
+    @Benchmark
+    public long decodeAndApply() {
+        TextOperation op = decode(next);
+        next = (next + 1) % FRAMES;
+        op.applyTo(document);
+        return document.length();
+    }
+
+    // 적용(로프 경로 복사) 없이 디코딩만
+    @Benchmark
+    public TextOperation decodeOnly() {
+        TextOperation op = decode(next);
+        next = (next + 1) % FRAMES;
+        return op;
+    }
+
+    private TextOperation decode(int index) {
+        if (encoding.equals("json")) {
+            JSONObject message = new JSONObject(jsonFrames[index]);
+            TextOperation op = MySocketHandler.parseOperation(message.getString("type"), message);
+            // rev, id 도 handleTextMessage 처럼 읽는다
+            return message.optLong("rev", -1) + message.optLong("id") < 0 ? null : op;
+        }
+        ByteBuffer frame = ByteBuffer.wrap(binaryFrames[index]);
+        byte kind = frame.get();
+        long baseRevision = BinaryOps.readVarLong(frame) - 1;
+        long id = BinaryOps.readVarLong(frame);
+        TextOperation op = BinaryOps.readOperation(kind, frame);
+        return baseRevision + id < 0 ? null : op;
+    }
+}
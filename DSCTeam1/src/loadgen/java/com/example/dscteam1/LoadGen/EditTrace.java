@@ -0,0 +1,62 @@
+package com.example.dscteam1.LoadGen;
+
+import java.util.Random;
+
+// 사람이 편집기에서 하는 동작과 비슷한 흐름 (seed 가 같으면 같은 순서의 동작이 나온다)
+// 대부분은 한 글자 입력이고, 가끔 줄바꿈, 지우기, 범위 지우기/바꾸기, 붙여넣기,
+// 다른 줄로 옮겨 가서 그 줄의 락을 요청하는 동작이 섞인다.
+final class EditTrace {
+
+    enum Kind { TYPE, NEWLINE, BACKSPACE, DELETE_RANGE, REPLACE, PASTE, JUMP }
+
+    // 동작별 비율 (합 100)
+    private static final Kind[] KINDS = Kind.values();
+    private static final int[] WEIGHTS = {70, 5, 12, 3, 3, 2, 5};
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz가나다라마바사";
+
+    private final Random random;
+
+    EditTrace(long seed) {
+        this.random = new Random(seed);
+    }
+
+    Kind next() {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < KINDS.length; i++) {
+            roll -= WEIGHTS[i];
+            if (roll < 0) return KINDS[i];
+        }
+        return Kind.TYPE;
+    }
+
+    // 입력할 한 글자 (띄어쓰기가 단어 사이에 섞인다)
+    String nextChar() {
+        if (random.nextInt(6) == 0) return " ";
+        return String.valueOf(LETTERS.charAt(random.nextInt(LETTERS.length())));
+    }
+
+    // 범위 지우기 / 바꾸기 길이 (단어 ~ 한 줄)
+    int rangeLength() {
+        return 1 + random.nextInt(40);
+    }
+
+    // 붙여넣기: 40~120자 라인 몇 개 (64 ~ 2048자)
+    String pasteText() {
+        int size = 64 + random.nextInt(2048 - 64);
+        StringBuilder sb = new StringBuilder(size);
+        while (sb.length() < size) {
+            int lineLength = 40 + random.nextInt(80);
+            for (int i = 0; i < lineLength && sb.length() < size - 1; i++) {
+                sb.append(nextChar());
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    // 옮겨 갈 위치 [0, length]
+    int position(int length) {
+        return random.nextInt(length + 1);
+    }
+}
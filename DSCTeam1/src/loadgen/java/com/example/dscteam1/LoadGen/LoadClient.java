@@ -0,0 +1,489 @@
+package com.example.dscteam1.LoadGen;
+
+import com.example.dscteam1.Document.RopeDocument;
+import com.example.dscteam1.Document.TextDocument;
+import com.example.dscteam1.Document.TextOperation;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// 부하 생성기의 가짜 사용자 하나 (JSON 프로토콜)
+// 편집 흐름은 static/script.js 와 같다:
+// - 로컬 편집은 바로 자기 문서에 적용하고, ack 를 기다리는 연산(outstanding)이 있으면 buffered 에 쌓았다가
+//   ack 가 오면 한 프레임(둘 이상이면 batch)으로 보낸다
+// - 다른 사람의 연산은 미확정 연산들에 대해 변환한 뒤 적용하고, 리비전이 건너뛰면 sync 로 다시 맞춘다
+// 수신 콜백과 편집 스케줄러가 서로 다른 스레드이므로 상태는 모두 이 객체의 모니터로 보호한다.
+final class LoadClient implements WebSocket.Listener {
+
+    // 전송 제한 뒤 보낸 sync 가 init 없이 이만큼 지나면 다시 보낸다
+    private static final long RESYNC_RETRY_MS = 1000;
+
+    // FrameCompression.DEFLATED_TEXT 와 같은 값
+    private static final byte DEFLATED_TEXT = 6;
+
+    private final String docId;
+    private final String userId;
+    private final EditTrace trace;
+
+    private WebSocket socket;
+    // java.net.http.WebSocket 은 이전 전송이 끝나기 전에 다시 보낼 수 없으므로 이어 붙인다
+    private CompletableFuture<?> sending = CompletableFuture.completedFuture(null);
+    private final StringBuilder partial = new StringBuilder();
+    private final ByteArrayOutputStream binaryPartial = new ByteArrayOutputStream();
+
+    // 문서 상태 (init 을 받기 전에는 text 가 null)
+    private TextDocument text;
+    private long serverRev;
+    private int cursor;
+    private List<TextOperation> outstanding;
+    private long outstandingId;
+    private long outstandingSentAt;
+    private List<TextOperation> buffered = new ArrayList<>();
+    private long nextId = 1;
+    private boolean syncing;
+    // 전송 제한 뒤 sync 가 예약되어 있는지
+    private boolean resyncPending;
+    private StringBuilder initBuffer;
+    private long initRev;
+    private int initLength;
+    // 지금 커서가 있는 줄의 락 (락을 가진 줄에서만 편집한다)
+    private enum Lock { NONE, REQUESTED, HELD }
+    private Lock lock = Lock.NONE;
+    private boolean closed;
+    private String closeReason;
+
+    // 통계 (끝난 뒤 LoadGenerator 가 모은다)
+    private long[] latencies = new long[1024];
+    private int latencyCount;
+    long edits;
+    long framesSent;
+    long acked;
+    long remoteOps;
+    long messages;
+    long bytesReceived;
+    long compressedFrames;
+    long denied;
+    long resyncs;
+    long revisionGaps;
+    long locksGranted;
+    long locksDenied;
+    long rateLimited;
+
+    LoadClient(String docId, String userId, long seed) {
+        this.docId = docId;
+        this.userId = userId;
+        this.trace = new EditTrace(seed);
+    }
+
+    String getDocId() {
+        return docId;
+    }
+
+    String getUserId() {
+        return userId;
+    }
+
+    synchronized void connected(WebSocket socket) {
+        this.socket = socket;
+    }
+
+    // 접속하지 못했을 때 (거부, 시간 초과)
+    synchronized void failed(Throwable error) {
+        closed = true;
+        closeReason = error.getCause() != null ? error.getCause().toString() : error.toString();
+    }
+
+    synchronized boolean isReady() {
+        return text != null || closed;
+    }
+
+    // 보낸 연산이 모두 확정되었는지
+    synchronized boolean isIdle() {
+        return closed || (outstanding == null && buffered.isEmpty() && !syncing && initBuffer == null);
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    synchronized String getCloseReason() {
+        return closeReason;
+    }
+
+    synchronized long getServerRev() {
+        return serverRev;
+    }
+
+    synchronized String getText() {
+        return text == null ? null : text.toString();
+    }
+
+    // 지금까지 모은 ack 지연(ns)을 넘기고 비운다
+    synchronized long[] drainLatencies() {
+        long[] drained = Arrays.copyOf(latencies, latencyCount);
+        latencyCount = 0;
+        return drained;
+    }
+
+    // ---------------------------------------------------------------------
+    // 로컬 편집 (편집 스케줄러 스레드)
+    // ---------------------------------------------------------------------
+
+    // 편집 동작 하나 (락이 없으면 다른 줄로 옮겨 가서 락부터 요청하고, 답을 기다리는 동안은 쉰다)
+    synchronized void step() {
+        if (text == null || closed || syncing || lock == Lock.REQUESTED) return;
+        cursor = Math.min(cursor, text.length());
+        EditTrace.Kind kind = lock == Lock.NONE ? EditTrace.Kind.JUMP : trace.next();
+        switch (kind) {
+            case TYPE -> {
+                String ch = trace.nextChar();
+                edit(TextOperation.insert(cursor, ch), cursor + ch.length());
+            }
+            case NEWLINE -> edit(TextOperation.insert(cursor, "\n"), cursor + 1);
+            case BACKSPACE -> {
+                if (cursor > 0) edit(TextOperation.delete(cursor - 1, cursor), cursor - 1);
+            }
+            case DELETE_RANGE -> {
+                int end = Math.min(text.length(), cursor + trace.rangeLength());
+                if (end > cursor) edit(TextOperation.delete(cursor, end), cursor);
+            }
+            case REPLACE -> {
+                int end = Math.min(text.length(), cursor + trace.rangeLength());
+                String ch = trace.nextChar();
+                edit(new TextOperation(cursor, end, ch), cursor + ch.length());
+            }
+            case PASTE -> {
+                String paste = trace.pasteText();
+                edit(TextOperation.insert(cursor, paste), cursor + paste.length());
+            }
+            case JUMP -> {
+                // 다른 줄로 옮겨 가서 그 줄의 락을 요청한다 (서버는 전에 가진 락을 풀어 준다)
+                cursor = trace.position(text.length());
+                lock = Lock.REQUESTED;
+                send(new JSONObject().put("type", "requestLineLock").put("line", text.lineAt(cursor)));
+            }
+        }
+    }
+
+    // 문서가 minLines 줄보다 짧으면 끝에 빈 줄을 붙인다 (사용자마다 락을 잡을 줄이 있도록, 첫 사용자만)
+    synchronized void ensureLines(int minLines) {
+        if (text == null || closed) return;
+        int missing = minLines - text.lineCount();
+        if (missing > 0) {
+            edit(TextOperation.insert(text.length(), "\n".repeat(missing)), cursor);
+        }
+    }
+
+    private void edit(TextOperation op, int newCursor) {
+        op.applyTo(text);
+        cursor = newCursor;
+        edits++;
+        buffered.add(op);
+        flushBuffered();
+    }
+
+    private void flushBuffered() {
+        if (outstanding != null || buffered.isEmpty()) return;
+        outstanding = buffered;
+        buffered = new ArrayList<>();
+        outstandingId = nextId++;
+        outstandingSentAt = System.nanoTime();
+        JSONObject msg;
+        if (outstanding.size() == 1) {
+            msg = messageFromOp(outstanding.get(0));
+        } else {
+            JSONArray ops = new JSONArray();
+            for (TextOperation op : outstanding) {
+                ops.put(messageFromOp(op));
+            }
+            msg = new JSONObject().put("type", "batch").put("ops", ops);
+        }
+        msg.put("rev", serverRev);
+        msg.put("id", outstandingId);
+        framesSent++;
+        send(msg);
+    }
+
+    private void send(JSONObject msg) {
+        WebSocket ws = socket;
+        String payload = msg.toString();
+        sending = sending.thenCompose(ignored -> ws.sendText(payload, true));
+    }
+
+    synchronized void close() {
+        if (socket != null && !closed) {
+            WebSocket ws = socket;
+            sending = sending.thenCompose(ignored -> ws.sendClose(WebSocket.NORMAL_CLOSURE, "done"));
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 수신 (WebSocket 콜백 스레드)
+    // ---------------------------------------------------------------------
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            String payload = partial.toString();
+            partial.setLength(0);
+            receive(payload, payload.getBytes(StandardCharsets.UTF_8).length);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    // ?compress=deflate 로 접속했을 때 큰 프레임은 [6][raw deflate(JSON)] 바이너리로 온다
+    // (FrameCompression.DEFLATED_TEXT, 7 인 BinaryOps 프레임은 ?proto=bin 을 쓰지 않으므로 오지 않는다)
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        binaryPartial.writeBytes(bytes);
+        if (last) {
+            byte[] frame = binaryPartial.toByteArray();
+            binaryPartial.reset();
+            if (frame.length > 0 && frame[0] == DEFLATED_TEXT) {
+                synchronized (this) {
+                    compressedFrames++;
+                }
+                receive(inflate(frame), frame.length);
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    private synchronized void receive(String payload, long bytes) {
+        messages++;
+        bytesReceived += bytes;
+        // 접속 알림 같은 일반 텍스트 메시지는 무시
+        if (payload.startsWith("{")) {
+            handle(new JSONObject(payload));
+        }
+    }
+
+    private static String inflate(byte[] frame) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(frame, 1, frame.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(frame.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public synchronized CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        closed = true;
+        closeReason = statusCode + (reason.isEmpty() ? "" : " " + reason);
+        return null;
+    }
+
+    @Override
+    public synchronized void onError(WebSocket webSocket, Throwable error) {
+        closed = true;
+        closeReason = error.toString();
+    }
+
+    private void handle(JSONObject data) {
+        switch (data.getString("type")) {
+            case "init" -> applyInit(new RopeDocument(data.getString("text")), data.getLong("rev"));
+            case "initStart" -> {
+                initBuffer = new StringBuilder();
+                initRev = data.getLong("rev");
+                initLength = data.getInt("length");
+            }
+            case "initChunk" -> {
+                if (initBuffer == null || data.getInt("offset") != initBuffer.length()) {
+                    initBuffer = null;
+                    requestSync();
+                    return;
+                }
+                initBuffer.append(data.getString("text"));
+                if (initBuffer.length() >= initLength) {
+                    String full = initBuffer.toString();
+                    initBuffer = null;
+                    applyInit(new RopeDocument(full), initRev);
+                }
+            }
+            case "add", "delete", "edit", "batch" -> handleRemote(data);
+            case "ack" -> handleAck(data.getLong("rev"), data.opt("id"));
+            case "editDenied" -> {
+                // 서버가 init 으로 다시 맞춰 준다 (그때까지는 편집하지 않는다)
+                denied++;
+                outstanding = null;
+                buffered.clear();
+                syncing = true;
+                lock = Lock.NONE;
+            }
+            case "editRejected" -> {
+                denied++;
+                outstanding = null;
+                buffered.clear();
+                syncing = true;
+            }
+            case "rateLimited" -> {
+                // 버려진 편집이나 락 요청이 있을 수 있으므로 보낸 것을 잊고 retryAfterMs 뒤에 sync
+                rateLimited++;
+                outstanding = null;
+                buffered.clear();
+                syncing = true;
+                if (lock == Lock.REQUESTED) lock = Lock.NONE;
+                scheduleResync(Math.max(1, data.getLong("retryAfterMs")));
+            }
+            case "lineLockGranted" -> {
+                locksGranted++;
+                lock = Lock.HELD;
+            }
+            case "lineLockDenied" -> {
+                locksDenied++;
+                lock = Lock.NONE;
+            }
+            default -> {
+                // userList, 락 변경분 등은 부하 측정에 필요 없다
+            }
+        }
+    }
+
+    private void applyInit(TextDocument initText, long rev) {
+        if (text != null) {
+            resyncs++;
+        }
+        text = initText;
+        serverRev = rev;
+        outstanding = null;
+        buffered.clear();
+        syncing = false;
+        cursor = Math.min(cursor, text.length());
+    }
+
+    private void handleRemote(JSONObject data) {
+        if (text == null || syncing) return;
+        List<JSONObject> ops = new ArrayList<>();
+        if ("batch".equals(data.getString("type"))) {
+            JSONArray array = data.getJSONArray("ops");
+            for (int i = 0; i < array.length(); i++) {
+                ops.add(array.getJSONObject(i));
+            }
+        } else {
+            ops.add(data);
+        }
+        long rev = data.getLong("rev");
+        if (rev != serverRev + ops.size()) {
+            revisionGaps++;
+            requestSync();
+            return;
+        }
+        serverRev = rev;
+        for (JSONObject message : ops) {
+            TextOperation op = opFromMessage(message);
+            if (outstanding != null) {
+                List<TextOperation> transformed = new ArrayList<>(outstanding.size());
+                for (TextOperation pending : outstanding) {
+                    transformed.add(pending.transform(op, true));
+                    op = op.transform(pending, false);
+                }
+                outstanding = transformed;
+            }
+            for (int i = 0; i < buffered.size(); i++) {
+                TextOperation pending = buffered.get(i);
+                buffered.set(i, pending.transform(op, true));
+                op = op.transform(pending, false);
+            }
+            if (!op.isNoop()) {
+                op.applyTo(text);
+                cursor = moveCursor(cursor, op);
+            }
+            remoteOps++;
+        }
+    }
+
+    private void handleAck(long rev, Object id) {
+        if (outstanding == null || !(id instanceof Number number) || number.longValue() != outstandingId) {
+            // init 으로 버린 연산의 ack: init 이후에 적용되었다면 자기 문서에 없으므로 다시 맞춘다
+            if (rev > serverRev) requestSync();
+            return;
+        }
+        recordLatency(System.nanoTime() - outstandingSentAt);
+        acked++;
+        serverRev = rev;
+        outstanding = null;
+        flushBuffered();
+    }
+
+    // 전송 제한 뒤의 sync (편집 스케줄러가 멈춘 정리 단계에도 보내야 하므로 따로 예약한다)
+    // sync 도 버려질 수 있으므로 init 이 올 때까지 RESYNC_RETRY_MS 마다 다시 보낸다
+    private void scheduleResync(long delayMillis) {
+        if (resyncPending) return;
+        resyncPending = true;
+        CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS).execute(this::resync);
+    }
+
+    private synchronized void resync() {
+        resyncPending = false;
+        if (closed || !syncing) return;
+        send(new JSONObject().put("type", "sync"));
+        scheduleResync(RESYNC_RETRY_MS);
+    }
+
+    private void requestSync() {
+        if (syncing) return;
+        syncing = true;
+        send(new JSONObject().put("type", "sync"));
+    }
+
+    private void recordLatency(long nanos) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencyCount * 2);
+        }
+        latencies[latencyCount++] = nanos;
+    }
+
+    // 다른 사람 연산 뒤의 커서 위치 (커서 앞이 바뀌면 그만큼 민다)
+    private static int moveCursor(int cursor, TextOperation op) {
+        if (op.end() <= cursor) return cursor + op.lengthDelta();
+        if (op.start() < cursor) return op.start() + op.text().length();
+        return cursor;
+    }
+
+    private static TextOperation opFromMessage(JSONObject message) {
+        return switch (message.getString("type")) {
+            case "add" -> TextOperation.insert(message.getInt("position"), message.getString("text"));
+            case "delete" -> TextOperation.delete(message.getInt("start"), message.getInt("end"));
+            default -> new TextOperation(message.getInt("start"), message.getInt("end"), message.getString("text"));
+        };
+    }
+
+    private static JSONObject messageFromOp(TextOperation op) {
+        if (op.start() == op.end()) {
+            return new JSONObject().put("type", "add").put("position", op.start()).put("text", op.text());
+        }
+        if (op.text().isEmpty()) {
+            return new JSONObject().put("type", "delete").put("start", op.start()).put("end", op.end());
+        }
+        return new JSONObject().put("type", "edit").put("start", op.start()).put("end", op.end())
+                .put("text", op.text());
+    }
+}
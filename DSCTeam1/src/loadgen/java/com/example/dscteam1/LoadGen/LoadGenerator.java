@@ -0,0 +1,415 @@
+package com.example.dscteam1.LoadGen;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+// 헤드리스 부하 생성기: 가짜 사용자 N 명이 /ws 에 붙어 입력/붙여넣기/지우기/락 요청을 섞어 보낸다
+// 끝나면 처리량, 편집 → ack 왕복 지연 백분위, 거부/재동기화 횟수, 수렴 오류(서버 텍스트와 다른 클라이언트 수)를 출력한다.
+// 실행: gradle loadgen --args="--clients 100 --duration 60"   (서버는 따로 띄워 둔다)
+// 용량 측정: --ramp 50 이면 duration 초마다 사용자를 50명씩 늘리다가 ack p99 가 --max-p99 를 넘거나
+// 연결이 끊기면 멈추고, 그 전 단계의 세션 / 방 수를 한 노드가 견딘 최대치로 보고한다.
+// (--per-doc 10 이면 사용자 10명마다 새 문서라 방 수도 함께 늘어난다)
+// 플랫폼 스레드와 가상 스레드(spring.threads.virtual.enabled=true) 서버에 각각 돌려 비교한다.
+// 수렴 오류가 있으면 종료 코드 1
+public class LoadGenerator {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("url", "ws://localhost:8080/ws");
+        DEFAULTS.put("clients", "20");       // 가짜 사용자 수 (ramp 면 최대 사용자 수)
+        DEFAULTS.put("docs", "1");           // 문서 수 (사용자는 문서에 고르게 나뉜다)
+        DEFAULTS.put("per-doc", "0");        // 0 보다 크면 docs 대신 사용자 이만큼마다 새 문서
+        DEFAULTS.put("doc", "loadgen");      // 문서 ID (문서가 여럿이면 loadgen-0, loadgen-1, ...)
+        DEFAULTS.put("duration", "30");      // 편집하는 시간 (초, ramp 면 단계마다)
+        DEFAULTS.put("ramp", "0");           // 0 보다 크면 단계마다 늘릴 사용자 수
+        DEFAULTS.put("max-p99", "250");      // ramp: 단계의 ack p99 한도 (ms)
+        DEFAULTS.put("lines", "10");         // 문서가 사용자 한 명당 이만큼의 줄보다 짧으면 시작 전에 빈 줄을 채운다
+        DEFAULTS.put("rate", "8");           // 사용자 한 명의 초당 동작 수
+        DEFAULTS.put("seed", "1");           // 같은 seed 면 사용자마다 같은 순서의 동작
+        DEFAULTS.put("settle", "30");        // 끝난 뒤 ack 와 브로드캐스트를 기다리는 최대 시간 (초)
+        DEFAULTS.put("compress", "off");     // deflate 면 ?compress=deflate 로 접속해 큰 프레임을 압축해 받는다
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        if (options == null) {
+            System.err.println("usage: LoadGenerator " + usage());
+            System.exit(2);
+        }
+        int exitCode = new LoadGenerator(options).run();
+        System.exit(exitCode);
+    }
+
+    private final URI url;
+    private final int clientCount;
+    private final int docs;
+    private final int perDoc;
+    private final String docPrefix;
+    private final int durationSeconds;
+    private final int ramp;
+    private final double maxP99;
+    private final int linesPerClient;
+    private final int rate;
+    private final long seed;
+    private final long settleMillis;
+    private final boolean compress;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final List<LoadClient> clients = new ArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+    private final List<ScheduledFuture<?>> tasks = new ArrayList<>();
+
+    // 문서 → 처음 들어갔을 때의 리비전 (확정 연산 수 계산용)
+    private final Map<String, Long> startRevs = new LinkedHashMap<>();
+
+    // 단계마다 비운 ack 지연 (ns)
+    private final List<long[]> samples = new ArrayList<>();
+
+    LoadGenerator(Map<String, String> options) {
+        this.url = URI.create(options.get("url"));
+        this.clientCount = Integer.parseInt(options.get("clients"));
+        this.docs = Integer.parseInt(options.get("docs"));
+        this.perDoc = Integer.parseInt(options.get("per-doc"));
+        this.docPrefix = options.get("doc");
+        this.durationSeconds = Integer.parseInt(options.get("duration"));
+        this.ramp = Integer.parseInt(options.get("ramp"));
+        this.maxP99 = Double.parseDouble(options.get("max-p99"));
+        this.linesPerClient = Integer.parseInt(options.get("lines"));
+        this.rate = Integer.parseInt(options.get("rate"));
+        this.seed = Long.parseLong(options.get("seed"));
+        this.settleMillis = Long.parseLong(options.get("settle")) * 1000;
+        this.compress = "deflate".equals(options.get("compress"));
+    }
+
+    int run() throws Exception {
+        System.out.printf("%s: 사용자 %d명, %s, %d초%s, 사용자당 초당 %d회%n",
+                url, clientCount, perDoc > 0 ? "문서당 " + perDoc + "명" : "문서 " + docs + "개",
+                durationSeconds, ramp > 0 ? " 단계마다 " + ramp + "명씩" : "", rate);
+
+        long started = System.nanoTime();
+        if (ramp > 0) {
+            rampUp();
+        } else {
+            addClients(clientCount);
+            long end = started + TimeUnit.SECONDS.toNanos(durationSeconds);
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                Thread.sleep(Math.min(5000, TimeUnit.NANOSECONDS.toMillis(end - now) + 1));
+                printProgress(started);
+            }
+        }
+        tasks.forEach(task -> task.cancel(false));
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        // 남은 연산이 확정되고 모든 사용자가 같은 리비전까지 받을 때까지
+        boolean idle = waitFor(clients, LoadClient::isIdle, settleMillis);
+        boolean settled = idle && waitForSameRevisions();
+
+        int convergenceErrors = report(elapsed, idle && settled);
+        clients.forEach(LoadClient::close);
+        return convergenceErrors == 0 ? 0 : 1;
+    }
+
+    // 단계마다 ramp 명씩 늘리며 ack p99 와 끊긴 연결을 본다
+    private void rampUp() throws InterruptedException {
+        int sustainedSessions = 0;
+        int sustainedRooms = 0;
+        while (clients.size() < clientCount) {
+            addClients(Math.min(clientCount, clients.size() + ramp));
+            long ackedBefore = totalAcked();
+            drainLatencies();
+            long stageStart = System.nanoTime();
+            Thread.sleep(durationSeconds * 1000L);
+            double seconds = (System.nanoTime() - stageStart) / 1e9;
+
+            long[] latencies = drainLatencies();
+            long dropped = clients.stream().filter(LoadClient::isClosed).count();
+            double p99 = percentile(latencies, 0.99);
+            int rooms = startRevs.size();
+            System.out.printf("  세션 %5d, 방 %4d  ack %6.0f/s  p50 %7.2f  p99 %7.2f ms  끊김 %d%n",
+                    clients.size(), rooms, (totalAcked() - ackedBefore) / seconds,
+                    percentile(latencies, 0.50), p99, dropped);
+            if (p99 > maxP99 || dropped > 0) {
+                System.out.printf("  → 한도 초과 (p99 > %.0f ms 또는 끊긴 연결)%n", maxP99);
+                break;
+            }
+            sustainedSessions = clients.size();
+            sustainedRooms = rooms;
+        }
+        System.out.printf("견딘 최대 동시 접속: 세션 %d, 방 %d%n", sustainedSessions, sustainedRooms);
+    }
+
+    // 사용자를 total 명까지 늘린다: 접속, 초기 텍스트, 모자란 줄 채우기, 편집 시작
+    private void addClients(int total) throws InterruptedException {
+        List<LoadClient> added = new ArrayList<>();
+        List<CompletableFuture<Void>> connecting = new ArrayList<>();
+        for (int i = clients.size(); i < total; i++) {
+            LoadClient client = new LoadClient(docIdFor(i), "bot-" + i, seed * 1_000_003L + i);
+            added.add(client);
+            connecting.add(connect(client).thenAccept(client::connected)
+                    .exceptionally(error -> {
+                        client.failed(error);
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(connecting.toArray(CompletableFuture[]::new)).join();
+        clients.addAll(added);
+        if (!waitFor(added, LoadClient::isReady, settleMillis)) {
+            System.out.println("⚠️ 초기 텍스트를 받지 못한 사용자가 있습니다.");
+        }
+
+        Map<String, List<LoadClient>> byDoc = new LinkedHashMap<>();
+        for (LoadClient client : clients) {
+            byDoc.computeIfAbsent(client.getDocId(), id -> new ArrayList<>()).add(client);
+        }
+        byDoc.values().forEach(members -> members.get(0).ensureLines(members.size() * linesPerClient));
+        waitFor(added, LoadClient::isIdle, settleMillis);
+        for (LoadClient client : added) {
+            startRevs.putIfAbsent(client.getDocId(), client.getServerRev());
+        }
+
+        // 편집: 사용자마다 같은 간격으로, 시작 시각은 흩어 둔다
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        for (LoadClient client : added) {
+            long delay = ThreadLocalRandom.current().nextLong(periodNanos);
+            tasks.add(scheduler.scheduleAtFixedRate(client::step, delay, periodNanos, TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private String docIdFor(int client) {
+        if (perDoc > 0) return docPrefix + "-" + client / perDoc;
+        return docs == 1 ? docPrefix : docPrefix + "-" + client % docs;
+    }
+
+    private CompletableFuture<WebSocket> connect(LoadClient client) {
+        URI uri = URI.create(url + "?doc=" + encode(client.getDocId()) + "&user=" + encode(client.getUserId())
+                + (compress ? "&compress=deflate" : ""));
+        return http.newWebSocketBuilder().buildAsync(uri, client);
+    }
+
+    private void printProgress(long started) {
+        long acked = 0;
+        long edits = 0;
+        for (LoadClient client : clients) {
+            synchronized (client) {
+                acked += client.acked;
+                edits += client.edits;
+            }
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        System.out.printf("  %3ds  편집 %d (%.0f/s), ack %d (%.0f/s)%n",
+                Math.round(elapsed), edits, edits / elapsed, acked, acked / elapsed);
+    }
+
+    private long totalAcked() {
+        long acked = 0;
+        for (LoadClient client : clients) {
+            synchronized (client) {
+                acked += client.acked;
+            }
+        }
+        return acked;
+    }
+
+    // 모든 사용자의 ack 지연을 비워 samples 에도 남기고, 이번에 비운 것을 정렬해 돌려준다
+    private long[] drainLatencies() {
+        List<long[]> drained = new ArrayList<>();
+        for (LoadClient client : clients) {
+            drained.add(client.drainLatencies());
+        }
+        samples.addAll(drained);
+        return merge(drained);
+    }
+
+    // ---------------------------------------------------------------------
+    // 마무리
+    // ---------------------------------------------------------------------
+
+    private static boolean waitFor(List<LoadClient> clients, Predicate<LoadClient> condition, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            if (clients.stream().allMatch(condition)) return true;
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    // 문서마다 모든 사용자의 리비전이 같아지고 잠시 그대로일 때까지 (브로드캐스트가 모두 도착)
+    private boolean waitForSameRevisions() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + settleMillis;
+        Map<String, Long> previous = null;
+        while (System.currentTimeMillis() < deadline) {
+            Map<String, Long> current = revisionsByDoc();
+            if (current != null && current.equals(previous)) return true;
+            previous = current;
+            Thread.sleep(500);
+        }
+        return false;
+    }
+
+    // 문서 → 리비전 (한 문서 안에서 사용자마다 다르면 null)
+    private Map<String, Long> revisionsByDoc() {
+        Map<String, Long> revisions = new HashMap<>();
+        for (LoadClient client : clients) {
+            if (client.isClosed()) continue;
+            Long other = revisions.putIfAbsent(client.getDocId(), client.getServerRev());
+            if (other != null && other != client.getServerRev()) return null;
+        }
+        return revisions;
+    }
+
+    // 서버의 지금 텍스트를 새 접속 하나로 받아 온다
+    private Map<String, LoadClient> serverTexts() throws InterruptedException {
+        Map<String, LoadClient> checkers = new HashMap<>();
+        for (String docId : startRevs.keySet()) {
+            LoadClient checker = new LoadClient(docId, "loadgen-check", 0);
+            connect(checker).thenAccept(checker::connected).join();
+            checkers.put(docId, checker);
+        }
+        long deadline = System.currentTimeMillis() + settleMillis;
+        while (System.currentTimeMillis() < deadline
+                && !checkers.values().stream().allMatch(LoadClient::isReady)) {
+            Thread.sleep(50);
+        }
+        return checkers;
+    }
+
+    private int report(double elapsed, boolean settled) throws InterruptedException {
+        long edits = 0, framesSent = 0, acked = 0, remoteOps = 0, messages = 0, bytesReceived = 0, compressed = 0;
+        long denied = 0, resyncs = 0, gaps = 0, granted = 0, lockDenied = 0, rateLimited = 0;
+        drainLatencies();
+        List<String> dropped = new ArrayList<>();
+        for (LoadClient client : clients) {
+            synchronized (client) {
+                edits += client.edits;
+                framesSent += client.framesSent;
+                acked += client.acked;
+                remoteOps += client.remoteOps;
+                messages += client.messages;
+                bytesReceived += client.bytesReceived;
+                compressed += client.compressedFrames;
+                denied += client.denied;
+                resyncs += client.resyncs;
+                gaps += client.revisionGaps;
+                granted += client.locksGranted;
+                lockDenied += client.locksDenied;
+                rateLimited += client.rateLimited;
+            }
+            if (client.isClosed()) {
+                dropped.add(client.getUserId() + " (" + client.getCloseReason() + ")");
+            }
+        }
+
+        // 수렴 확인: 연결이 살아 있는 사용자의 텍스트가 서버 텍스트와 같아야 한다
+        Map<String, LoadClient> checkers = serverTexts();
+        int diverged = 0;
+        int stale = 0;
+        long committed = 0;
+        for (String docId : startRevs.keySet()) {
+            LoadClient checker = checkers.get(docId);
+            String serverText = checker.getText();
+            long serverRev = checker.getServerRev();
+            committed += serverRev - startRevs.get(docId);
+            for (LoadClient client : clients) {
+                if (!client.getDocId().equals(docId) || client.isClosed()) continue;
+                String text = client.getText();
+                if (text == null || client.getServerRev() != serverRev) {
+                    stale++;
+                } else if (!text.equals(serverText)) {
+                    diverged++;
+                }
+            }
+            checker.close();
+        }
+
+        long[] latencies = merge(samples);
+        System.out.println();
+        System.out.printf("편집        %d (%.0f/s), 보낸 프레임 %d, ack %d (%.0f/s)%n",
+                edits, edits / elapsed, framesSent, acked, acked / elapsed);
+        System.out.printf("확정 연산    %d (%.0f/s, 서버 리비전 증가)%n", committed, committed / elapsed);
+        System.out.printf("받은 메시지   %d (%.0f/s), 적용한 다른 사람 연산 %d%n", messages, messages / elapsed, remoteOps);
+        System.out.printf("받은 바이트   %d (%.0f KB/s), 압축된 프레임 %d%n",
+                bytesReceived, bytesReceived / elapsed / 1024, compressed);
+        System.out.printf("ack 지연 ms  p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f  (%d개)%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), percentile(latencies, 1.0), latencies.length);
+        System.out.printf("거부         편집 %d, 락 허가 %d / 거부 %d%n", denied, granted, lockDenied);
+        System.out.printf("재동기화      init %d, 리비전 누락 %d, 전송 제한 %d%n", resyncs, gaps, rateLimited);
+        if (!dropped.isEmpty()) {
+            System.out.printf("끊긴 연결     %d: %s%n", dropped.size(),
+                    String.join(", ", dropped.subList(0, Math.min(5, dropped.size()))));
+        }
+        if (!settled) {
+            System.out.printf("⚠️ %d초 안에 모든 연산이 확정되지 않았습니다.%n", settleMillis / 1000);
+        }
+        int errors = diverged + stale;
+        System.out.printf("수렴 오류     %d (텍스트 다름 %d, 리비전 다름 %d / 사용자 %d명)%n",
+                errors, diverged, stale, clients.size() - dropped.size());
+        return errors;
+    }
+
+    private static long[] merge(List<long[]> samples) {
+        long[] all = new long[samples.stream().mapToInt(s -> s.length).sum()];
+        int offset = 0;
+        for (long[] sample : samples) {
+            System.arraycopy(sample, 0, all, offset, sample.length);
+            offset += sample.length;
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    // 정렬된 나노초 값의 백분위 (ms)
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    // ---------------------------------------------------------------------
+    // 옵션
+    // ---------------------------------------------------------------------
+
+    // --name value 형식 (모르는 이름이면 null)
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) return null;
+            String name = args[i].substring(2);
+            if (!DEFAULTS.containsKey(name)) return null;
+            options.put(name, args[i + 1]);
+        }
+        return options;
+    }
+
+    private static String usage() {
+        StringBuilder sb = new StringBuilder();
+        DEFAULTS.forEach((name, value) -> sb.append("[--").append(name).append(' ').append(value).append("] "));
+        return sb.toString().trim();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
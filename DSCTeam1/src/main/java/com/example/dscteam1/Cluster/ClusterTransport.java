@@ -0,0 +1,35 @@
+package com.example.dscteam1.Cluster;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Set;
+
+// 클러스터 노드끼리 메시지(JSON 객체)를 주고받는 통로
+// 같은 두 노드 사이의 메시지는 보낸 순서대로 도착한다. 연결이 끊긴 노드로 보낸 메시지는 버린다.
+// 다른 구현(메시지 브로커 등)으로 바꿀 수 있도록 라우팅(ClusterRouter)은 이 인터페이스만 쓴다.
+public interface ClusterTransport {
+
+    // 콜백은 전송 구현의 스레드에서 불린다 (같은 노드에서 온 메시지는 한 스레드에서 순서대로)
+    interface Listener {
+        void onMessage(String fromNode, JSONObject message);
+
+        void onNodeUp(String nodeId);
+
+        void onNodeDown(String nodeId);
+    }
+
+    String localNodeId();
+
+    void start(Listener listener) throws IOException;
+
+    // 지금 연결되어 있는 다른 노드들
+    Set<String> liveNodes();
+
+    boolean isLive(String nodeId);
+
+    // 연결되지 않은 노드면 false (메시지는 버린다)
+    boolean send(String nodeId, JSONObject message);
+
+    void close();
+}
@@ -0,0 +1,276 @@
+package com.example.dscteam1.Cluster;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// 설정된 피어들과 TCP 로 직접 연결하는 전송 (같은 호스트의 여러 JVM 으로도 돌릴 수 있다)
+// 노드마다 피어로 나가는 연결을 하나씩 맺어 보내기에만 쓰고, 받는 것은 피어가 맺어 온 연결로 받는다.
+// 프레임: [길이 int][UTF-8 JSON] (길이 0 = 하트비트). 연결 직후 첫 프레임은 {"node": 보낸 노드 ID}.
+// 피어로 나가는 연결이 맺어져 있는 동안을 그 노드가 살아 있는 것으로 본다. 끊기면 RETRY_INTERVAL 마다 다시 맺는다.
+public class TcpTransport implements ClusterTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(TcpTransport.class);
+
+    private static final int CONNECT_TIMEOUT = 1000;
+    private static final long RETRY_INTERVAL = 1000;
+
+    // 보낼 것이 없으면 이 간격으로 하트비트를 써서 죽은 연결을 알아챈다
+    private static final long HEARTBEAT_INTERVAL = 1000;
+
+    // 피어 하나에 쌓아 둘 수 있는 메시지 수 (넘치면 연결을 끊고 다시 맺는다)
+    private static final int MAX_QUEUED = 100_000;
+
+    private static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+
+    private final String nodeId;
+    private final int port;
+    private final Map<String, Link> links = new LinkedHashMap<>();
+
+    private volatile Listener listener;
+    private volatile boolean closed;
+    private ServerSocket server;
+
+    public TcpTransport(String nodeId, int port, Map<String, InetSocketAddress> peers) {
+        this.nodeId = nodeId;
+        this.port = port;
+        peers.forEach((peer, address) -> {
+            if (!peer.equals(nodeId)) {
+                links.put(peer, new Link(peer, address));
+            }
+        });
+    }
+
+    // "node2=localhost:7002,node3=10.0.0.3:7000" → 노드 ID → 주소
+    public static Map<String, InetSocketAddress> parsePeers(String peers) {
+        Map<String, InetSocketAddress> result = new LinkedHashMap<>();
+        if (peers == null || peers.isBlank()) {
+            return result;
+        }
+        for (String entry : peers.split(",")) {
+            String[] idAndAddress = entry.trim().split("=", 2);
+            int colon = idAndAddress.length == 2 ? idAndAddress[1].lastIndexOf(':') : -1;
+            if (colon < 0) {
+                throw new IllegalArgumentException("잘못된 피어 설정: " + entry);
+            }
+            String host = idAndAddress[1].substring(0, colon).trim();
+            int peerPort = Integer.parseInt(idAndAddress[1].substring(colon + 1).trim());
+            result.put(idAndAddress[0].trim(), InetSocketAddress.createUnresolved(host, peerPort));
+        }
+        return result;
+    }
+
+    @Override
+    public String localNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void start(Listener listener) throws IOException {
+        this.listener = listener;
+        server = new ServerSocket(port);
+        startThread("cluster-accept", this::acceptLoop);
+        for (Link link : links.values()) {
+            startThread("cluster-link-" + link.peer, link::run);
+        }
+    }
+
+    @Override
+    public Set<String> liveNodes() {
+        Set<String> live = new TreeSet<>();
+        for (Link link : links.values()) {
+            if (link.up) {
+                live.add(link.peer);
+            }
+        }
+        return Collections.unmodifiableSet(live);
+    }
+
+    @Override
+    public boolean isLive(String peer) {
+        Link link = links.get(peer);
+        return link != null && link.up;
+    }
+
+    @Override
+    public boolean send(String peer, JSONObject message) {
+        Link link = links.get(peer);
+        if (link == null || !link.up) {
+            return false;
+        }
+        if (!link.queue.offer(message.toString().getBytes(StandardCharsets.UTF_8))) {
+            // 피어가 따라오지 못한다: 끊었다 다시 맺어 양쪽 모두 노드가 나갔다 들어온 것으로 정리하게 한다
+            link.reset();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            if (server != null) {
+                server.close();
+            }
+        } catch (IOException e) {
+            log.warn("클러스터 포트 닫기 실패", e);
+        }
+        for (Link link : links.values()) {
+            link.reset();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 받기: 피어가 맺어 온 연결마다 스레드 하나
+    // ---------------------------------------------------------------------
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                startThread("cluster-reader", () -> readLoop(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("클러스터 연결 받기 실패", e);
+                }
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        try (socket) {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 65536));
+            String from = new JSONObject(readFrame(input)).getString("node");
+            while (!closed) {
+                String frame = readFrame(input);
+                if (!frame.isEmpty()) {
+                    listener.onMessage(from, new JSONObject(frame));
+                }
+            }
+        } catch (EOFException e) {
+            // 피어가 연결을 닫았다
+        } catch (Exception e) {
+            if (!closed) {
+                log.warn("클러스터 연결 읽기 실패: {}", socket.getRemoteSocketAddress(), e);
+            }
+        }
+    }
+
+    private static String readFrame(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("잘못된 프레임 길이: " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFrame(DataOutputStream output, byte[] frame) throws IOException {
+        output.writeInt(frame.length);
+        output.write(frame);
+    }
+
+    // ---------------------------------------------------------------------
+    // 보내기: 피어마다 연결 하나와 보내기 큐 하나
+    // ---------------------------------------------------------------------
+
+    private final class Link {
+        private final String peer;
+        private final InetSocketAddress address;
+        private final LinkedBlockingQueue<byte[]> queue = new LinkedBlockingQueue<>(MAX_QUEUED);
+        private volatile boolean up;
+        private volatile Socket socket;
+
+        Link(String peer, InetSocketAddress address) {
+            this.peer = peer;
+            this.address = address;
+        }
+
+        void run() {
+            while (!closed) {
+                try (Socket connection = new Socket()) {
+                    socket = connection;
+                    connection.connect(new InetSocketAddress(address.getHostString(), address.getPort()),
+                            CONNECT_TIMEOUT);
+                    connection.setTcpNoDelay(true);
+                    DataOutputStream output = new DataOutputStream(
+                            new BufferedOutputStream(connection.getOutputStream(), 65536));
+                    JSONObject hello = new JSONObject();
+                    hello.put("node", nodeId);
+                    writeFrame(output, hello.toString().getBytes(StandardCharsets.UTF_8));
+                    output.flush();
+                    // 끊겨 있는 동안 들어온 메시지는 보내지 않는다
+                    queue.clear();
+                    up = true;
+                    listener.onNodeUp(peer);
+                    pump(output);
+                } catch (IOException e) {
+                    // 연결 실패 또는 끊김: 잠시 뒤 다시 맺는다
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    socket = null;
+                    if (up) {
+                        up = false;
+                        queue.clear();
+                        listener.onNodeDown(peer);
+                    }
+                }
+                try {
+                    Thread.sleep(RETRY_INTERVAL);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        // 쌓인 메시지를 한꺼번에 쓰고 flush 한다
+        private void pump(DataOutputStream output) throws IOException, InterruptedException {
+            while (!closed) {
+                byte[] frame = queue.poll(HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+                writeFrame(output, frame != null ? frame : new byte[0]);
+                while ((frame = queue.poll()) != null) {
+                    writeFrame(output, frame);
+                }
+                output.flush();
+            }
+        }
+
+        void reset() {
+            Socket current = socket;
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (IOException e) {
+                    log.warn("클러스터 연결 닫기 실패", e);
+                }
+            }
+        }
+    }
+
+    private static void startThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,445 @@
+package com.example.dscteam1.Document;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// 균형 이진 트리(AVL) 기반 로프 문서
+// 리프는 최대 MAX_LEAF 글자의 문자열 조각이고, 모든 노드가 서브트리의 문자 수와 줄바꿈 수를 캐시한다.
+// 삽입/삭제는 루트에서 수정 위치까지의 경로만 새로 만들기 때문에 O(log n) 이고,
+// 수정 위치 뒤쪽 문서를 복사하지 않는다.
+// 캐시된 줄바꿈 수가 곧 라인 인덱스 역할을 하므로 오프셋 <-> 라인 변환도
+// 트리를 한 번 내려가며(O(log n) + 리프 하나 스캔) 객체 할당 없이 계산한다.
+// 노드가 불변이라 snapshot() 은 루트만 공유하는 O(1) 사본이다 (저장 중에도 편집을 계속할 수 있다).
+// open(파일) 로 연 문서의 리프는 힙에 텍스트를 복사하지 않고 메모리 매핑된 파일 조각(UTF-8)을 가리키며,
+// 읽을 때마다 그 조각만 디코딩한다. 편집된 리프만 일반 문자열 리프로 바뀌므로
+// 힙보다 큰 파일도 열어서 편집할 수 있다.
+public class RopeDocument implements TextDocument {
+
+    // 리프 하나가 담는 최대 문자 수
+    static final int MAX_LEAF = 1024;
+
+    // 한 번에 매핑하는 파일 구간 크기 (MappedByteBuffer 는 2 GB 미만만 매핑할 수 있다)
+    private static final long MAP_REGION_BYTES = 1L << 30;
+
+    private static final Leaf EMPTY = new Leaf("");
+
+    private Node root;
+
+    public RopeDocument() {
+        this("");
+    }
+
+    public RopeDocument(String initial) {
+        this.root = build(initial, 0, initial.length());
+    }
+
+    private RopeDocument(Node root) {
+        this.root = root;
+    }
+
+    // UTF-8 파일을 메모리 매핑해서 연다
+    // 파일을 한 번 훑어 리프(최대 MAX_LEAF 바이트, 글자 경계에서 자름)마다 글자 수와 줄바꿈 수만 센다.
+    // 힙에는 트리 노드만 올라가고 텍스트는 운영체제 페이지 캐시에 남는다.
+    // 파일 내용이 바뀌면 문서도 바뀌므로, 열린 동안 제자리에서 고쳐 쓰지 않는 파일만 열어야 한다
+    // (임시 파일 + 이름 변경으로 덮어쓰는 것은 괜찮다: 매핑은 이전 파일을 계속 가리킨다).
+    public static RopeDocument open(Path file) throws IOException {
+        List<Node> leaves = new ArrayList<>();
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(MAX_LEAF);
+        long totalChars = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAP_REGION_BYTES, size - position));
+                int limit = region.limit();
+                // 마지막 구간이 아니면 글자 중간에서 끊기지 않도록 경계를 앞으로 당긴다
+                if (position + limit < size) {
+                    limit = completeCharsEnd(region, limit);
+                }
+                int start = 0;
+                while (start < limit) {
+                    int end = start + MAX_LEAF >= limit ? limit : charBoundaryBefore(region, start + MAX_LEAF);
+                    ByteBuffer slice = region.slice(start, end - start);
+                    chars.clear();
+                    decoder.reset();
+                    decoder.decode(slice.duplicate(), chars, true);
+                    decoder.flush(chars);
+                    chars.flip();
+                    int newlines = 0;
+                    for (int i = 0; i < chars.length(); i++) {
+                        if (chars.charAt(i) == '\n') newlines++;
+                    }
+                    leaves.add(new Leaf(slice, chars.length(), newlines));
+                    totalChars += chars.length();
+                    start = end;
+                }
+                position += limit;
+            }
+        }
+        if (totalChars > Integer.MAX_VALUE) {
+            throw new IOException("문서가 너무 큽니다 (" + totalChars + " 글자): " + file);
+        }
+        return new RopeDocument(leaves.isEmpty() ? EMPTY : buildBalanced(leaves, 0, leaves.size()));
+    }
+
+    // index 이하에서 UTF-8 글자가 시작하는 위치 (연속 바이트 10xxxxxx 는 건너뛴다, 최대 3 바이트)
+    private static int charBoundaryBefore(ByteBuffer bytes, int index) {
+        int boundary = index;
+        while (boundary > index - 3 && boundary > 0 && (bytes.get(boundary) & 0xC0) == 0x80) {
+            boundary--;
+        }
+        // 잘못된 바이트 열이면 그냥 index 에서 자른다 (디코딩할 때 대체 문자가 된다)
+        return (bytes.get(boundary) & 0xC0) == 0x80 ? index : boundary;
+    }
+
+    // 구간 끝에서 잘린 UTF-8 글자가 있으면 그 글자 앞을 끝으로 한다
+    private static int completeCharsEnd(ByteBuffer bytes, int limit) {
+        for (int i = limit - 1; i >= Math.max(0, limit - 3); i--) {
+            int b = bytes.get(i) & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                int length = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : 2;
+                return i + length > limit ? i : limit;
+            }
+        }
+        return limit;
+    }
+
+    private static Node buildBalanced(List<Node> leaves, int from, int to) {
+        if (to - from == 1) {
+            return leaves.get(from);
+        }
+        int mid = from + (to - from) / 2;
+        return new Branch(buildBalanced(leaves, from, mid), buildBalanced(leaves, mid, to));
+    }
+
+    @Override
+    public int length() {
+        return root.length;
+    }
+
+    @Override
+    public int lineCount() {
+        return root.newlines + 1;
+    }
+
+    @Override
+    public char charAt(int index) {
+        checkIndex(index, 0, root.length - 1);
+        Node node = root;
+        while (node instanceof Branch branch) {
+            if (index < branch.left.length) {
+                node = branch.left;
+            } else {
+                index -= branch.left.length;
+                node = branch.right;
+            }
+        }
+        return ((Leaf) node).text().charAt(index);
+    }
+
+    @Override
+    public int lineAt(int offset) {
+        checkIndex(offset, 0, root.length);
+        int line = 0;
+        Node node = root;
+        while (node instanceof Branch branch) {
+            if (offset <= branch.left.length) {
+                node = branch.left;
+            } else {
+                offset -= branch.left.length;
+                line += branch.left.newlines;
+                node = branch.right;
+            }
+        }
+        String text = ((Leaf) node).text();
+        for (int i = 0; i < offset; i++) {
+            if (text.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return line;
+    }
+
+    @Override
+    public int lineStart(int line) {
+        if (line < 0 || line > root.newlines) {
+            throw new IndexOutOfBoundsException("line " + line + ", lineCount " + lineCount());
+        }
+        if (line == 0) return 0;
+        // line 번째 줄바꿈 바로 다음 위치를 찾는다
+        int remaining = line;
+        int offset = 0;
+        Node node = root;
+        while (node instanceof Branch branch) {
+            if (remaining <= branch.left.newlines) {
+                node = branch.left;
+            } else {
+                remaining -= branch.left.newlines;
+                offset += branch.left.length;
+                node = branch.right;
+            }
+        }
+        String text = ((Leaf) node).text();
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n' && --remaining == 0) {
+                return offset + i + 1;
+            }
+        }
+        throw new IllegalStateException("newline count cache out of sync");
+    }
+
+    @Override
+    public void insert(int position, String text) {
+        checkIndex(position, 0, root.length);
+        if (text.isEmpty()) return;
+        root = insert(root, position, text);
+    }
+
+    @Override
+    public void delete(int start, int end) {
+        checkRange(start, end);
+        if (start == end) return;
+        root = delete(root, start, end);
+    }
+
+    @Override
+    public void replace(int start, int end, String text) {
+        checkRange(start, end);
+        if (start < end) {
+            root = delete(root, start, end);
+        }
+        if (!text.isEmpty()) {
+            root = insert(root, start, text);
+        }
+    }
+
+    @Override
+    public String substring(int start, int end) {
+        checkRange(start, end);
+        StringBuilder sb = new StringBuilder(end - start);
+        append(root, start, end, sb);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return substring(0, root.length);
+    }
+
+    @Override
+    public TextDocument snapshot() {
+        return new RopeDocument(root);
+    }
+
+    // 리프를 순서대로 쓴다 (AVL 이라 재귀 깊이는 O(log n))
+    @Override
+    public void writeTo(Writer out) throws IOException {
+        writeTo(root, out);
+    }
+
+    private static void writeTo(Node node, Writer out) throws IOException {
+        if (node instanceof Branch branch) {
+            writeTo(branch.left, out);
+            writeTo(branch.right, out);
+        } else {
+            out.write(((Leaf) node).text());
+        }
+    }
+
+    // 트리 높이 (테스트/진단용)
+    int height() {
+        return root.height;
+    }
+
+    private void checkIndex(int index, int min, int max) {
+        if (index < min || index > max) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + root.length);
+        }
+    }
+
+    private void checkRange(int start, int end) {
+        if (start < 0 || end > root.length || start > end) {
+            throw new IndexOutOfBoundsException("range [" + start + ", " + end + "), length " + root.length);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 노드 정의
+    // ---------------------------------------------------------------------
+
+    private abstract static class Node {
+        final int length;
+        final int newlines;
+        final int height;
+
+        Node(int length, int newlines, int height) {
+            this.length = length;
+            this.newlines = newlines;
+            this.height = height;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        // 힙에 있는 텍스트 (매핑된 리프는 null)
+        private final String text;
+        // 매핑된 파일 조각 (UTF-8, 읽기 전용)
+        private final ByteBuffer mapped;
+
+        Leaf(String text) {
+            super(text.length(), countNewlines(text), 0);
+            this.text = text;
+            this.mapped = null;
+        }
+
+        Leaf(ByteBuffer mapped, int length, int newlines) {
+            super(length, newlines, 0);
+            this.text = null;
+            this.mapped = mapped;
+        }
+
+        // 매핑된 리프는 캐시하지 않고 매번 디코딩한다 (읽은 리프가 힙에 쌓이지 않도록)
+        String text() {
+            return text != null ? text : StandardCharsets.UTF_8.decode(mapped.duplicate()).toString();
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node left;
+        final Node right;
+
+        Branch(Node left, Node right) {
+            super(left.length + right.length,
+                    left.newlines + right.newlines,
+                    Math.max(left.height, right.height) + 1);
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private static int countNewlines(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // ---------------------------------------------------------------------
+    // 트리 연산 (노드는 불변, 바뀐 경로만 새로 생성)
+    // ---------------------------------------------------------------------
+
+    // text[from, to) 를 MAX_LEAF 단위 리프로 잘라 균형 트리로 만든다
+    private static Node build(String text, int from, int to) {
+        if (to - from <= MAX_LEAF) {
+            return from == to ? EMPTY : new Leaf(text.substring(from, to));
+        }
+        int mid = from + (to - from) / 2;
+        return new Branch(build(text, from, mid), build(text, mid, to));
+    }
+
+    private static Node insert(Node node, int position, String text) {
+        if (node instanceof Leaf leaf) {
+            String s = leaf.text();
+            if (s.length() + text.length() <= MAX_LEAF) {
+                return new Leaf(s.substring(0, position) + text + s.substring(position));
+            }
+            Node head = build(s, 0, position);
+            Node tail = build(s, position, s.length());
+            return join(join(head, build(text, 0, text.length())), tail);
+        }
+        Branch branch = (Branch) node;
+        if (position <= branch.left.length) {
+            return join(insert(branch.left, position, text), branch.right);
+        }
+        return join(branch.left, insert(branch.right, position - branch.left.length, text));
+    }
+
+    private static Node delete(Node node, int start, int end) {
+        if (start <= 0 && end >= node.length) {
+            return EMPTY;
+        }
+        if (node instanceof Leaf leaf) {
+            String s = leaf.text();
+            return new Leaf(s.substring(0, start) + s.substring(end));
+        }
+        Branch branch = (Branch) node;
+        int split = branch.left.length;
+        Node left = start < split ? delete(branch.left, start, Math.min(end, split)) : branch.left;
+        Node right = end > split ? delete(branch.right, Math.max(start - split, 0), end - split) : branch.right;
+        if (left == branch.left && right == branch.right) {
+            return node;
+        }
+        return join(left, right);
+    }
+
+    // 두 트리를 이어 붙이면서 AVL 균형을 유지한다 (높이 차이에 비례하는 비용)
+    private static Node join(Node a, Node b) {
+        if (a.length == 0) return b;
+        if (b.length == 0) return a;
+        if (a instanceof Leaf la && b instanceof Leaf lb && a.length + b.length <= MAX_LEAF) {
+            return new Leaf(la.text() + lb.text());
+        }
+        if (a.height > b.height + 1) {
+            Branch ba = (Branch) a;
+            return balance(ba.left, join(ba.right, b));
+        }
+        if (b.height > a.height + 1) {
+            Branch bb = (Branch) b;
+            return balance(join(a, bb.left), bb.right);
+        }
+        return new Branch(a, b);
+    }
+
+    // 높이 차이가 2 인 두 서브트리를 단일/이중 회전으로 묶는다
+    private static Node balance(Node left, Node right) {
+        if (left.height > right.height + 1) {
+            Branch l = (Branch) left;
+            if (l.left.height >= l.right.height) {
+                return new Branch(l.left, new Branch(l.right, right));
+            }
+            Branch lr = (Branch) l.right;
+            return new Branch(new Branch(l.left, lr.left), new Branch(lr.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch r = (Branch) right;
+            if (r.right.height >= r.left.height) {
+                return new Branch(new Branch(left, r.left), r.right);
+            }
+            Branch rl = (Branch) r.left;
+            return new Branch(new Branch(left, rl.left), new Branch(rl.right, r.right));
+        }
+        return new Branch(left, right);
+    }
+
+    private static void append(Node node, int start, int end, StringBuilder sb) {
+        if (start >= end) return;
+        if (node instanceof Leaf leaf) {
+            sb.append(leaf.text(), start, end);
+            return;
+        }
+        Branch branch = (Branch) node;
+        int split = branch.left.length;
+        if (start < split) {
+            append(branch.left, start, Math.min(end, split), sb);
+        }
+        if (end > split) {
+            append(branch.right, Math.max(start - split, 0), end - split, sb);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.dscteam1.Document;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// 기존 방식 그대로 StringBuilder 하나에 문서를 담는 구현
+// 삽입/삭제 시 뒤쪽 버퍼 전체가 밀리므로 O(문서 크기) 이다. 벤치마크 비교 기준용.
+public class StringBuilderDocument implements TextDocument {
+
+    private final StringBuilder text;
+
+    public StringBuilderDocument() {
+        this("");
+    }
+
+    public StringBuilderDocument(String initial) {
+        this.text = new StringBuilder(initial);
+    }
+
+    @Override
+    public int length() {
+        return text.length();
+    }
+
+    @Override
+    public int lineCount() {
+        int lines = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return text.charAt(index);
+    }
+
+    @Override
+    public int lineAt(int offset) {
+        if (offset < 0 || offset > text.length()) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + text.length());
+        }
+        int line = 0;
+        for (int i = 0; i < offset; i++) {
+            if (text.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return line;
+    }
+
+    @Override
+    public int lineStart(int line) {
+        if (line < 0) {
+            throw new IndexOutOfBoundsException("line " + line);
+        }
+        int remaining = line;
+        for (int i = 0; i < text.length() && remaining > 0; i++) {
+            if (text.charAt(i) == '\n' && --remaining == 0) {
+                return i + 1;
+            }
+        }
+        if (remaining > 0) {
+            throw new IndexOutOfBoundsException("line " + line + ", lineCount " + lineCount());
+        }
+        return 0;
+    }
+
+    @Override
+    public void insert(int position, String s) {
+        text.insert(position, s);
+    }
+
+    @Override
+    public void delete(int start, int end) {
+        text.delete(start, end);
+    }
+
+    @Override
+    public void replace(int start, int end, String s) {
+        text.replace(start, end, s);
+    }
+
+    @Override
+    public String substring(int start, int end) {
+        return text.substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+
+    @Override
+    public TextDocument snapshot() {
+        return new StringBuilderDocument(text.toString());
+    }
+
+    @Override
+    public void writeTo(Writer out) throws IOException {
+        out.append(text);
+    }
+}
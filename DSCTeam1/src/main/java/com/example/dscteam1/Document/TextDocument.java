@@ -0,0 +1,48 @@
+package com.example.dscteam1.Document;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// 공유 편집 문서의 텍스트 엔진 인터페이스
+// 오프셋은 모두 StringBuilder 와 같은 char 단위이며, 범위는 [start, end) 이다.
+public interface TextDocument {
+
+    // 전체 문자 수
+    int length();
+
+    // 전체 라인 수 (줄바꿈 개수 + 1)
+    int lineCount();
+
+    char charAt(int index);
+
+    // offset 앞에 있는 줄바꿈 개수 = offset 이 속한 0 기반 라인 번호
+    // offset 은 [0, length()] 범위
+    int lineAt(int offset);
+
+    // 0 기반 line 번째 라인의 시작 오프셋
+    // line 은 [0, lineCount()) 범위
+    int lineStart(int line);
+
+    // position 위치에 text 삽입
+    void insert(int position, String text);
+
+    // [start, end) 구간 삭제
+    void delete(int start, int end);
+
+    // [start, end) 구간을 text 로 교체
+    void replace(int start, int end, String text);
+
+    // [start, end) 구간을 문자열로 복사
+    String substring(int start, int end);
+
+    // 전체 문서를 문자열로 복사
+    @Override
+    String toString();
+
+    // 지금 내용의 사본 (이후 원본을 편집해도 바뀌지 않는다)
+    // 로프는 불변 노드를 그대로 공유하므로 O(1) 이고, 다른 엔진은 내용을 복사한다
+    TextDocument snapshot();
+
+    // 전체 문서를 조각 단위로 out 에 쓴다 (전체 문자열을 한 번에 만들지 않는다)
+    void writeTo(Writer out) throws IOException;
+}
@@ -0,0 +1,88 @@
+package com.example.dscteam1.Document;
+
+// 편집 연산 하나: [start, end) 를 text 로 바꾼다 (삽입: start == end, 삭제: text 가 빈 문자열)
+// 동시에 같은 리비전에서 만들어진 두 연산을 transform 으로 서로의 뒤에 적용할 수 있게 바꾼다.
+// 어느 쪽을 먼저 적용하든 결과 텍스트가 같다 (apply(apply(d, a), b') == apply(apply(d, b), a')).
+// static/script.js 의 transformOp 와 규칙이 같아야 한다.
+public record TextOperation(int start, int end, String text) {
+
+    public TextOperation {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("잘못된 범위: [" + start + ", " + end + ")");
+        }
+    }
+
+    public static TextOperation insert(int position, String text) {
+        return new TextOperation(position, position, text);
+    }
+
+    public static TextOperation delete(int start, int end) {
+        return new TextOperation(start, end, "");
+    }
+
+    public boolean isNoop() {
+        return start == end && text.isEmpty();
+    }
+
+    // 적용 후 문서 길이 변화
+    public int lengthDelta() {
+        return text.length() - (end - start);
+    }
+
+    public void applyTo(TextDocument document) {
+        if (start == end) {
+            if (!text.isEmpty()) document.insert(start, text);
+        } else if (text.isEmpty()) {
+            document.delete(start, end);
+        } else {
+            document.replace(start, end, text);
+        }
+    }
+
+    // other 가 먼저 적용된 문서에 이 연산을 적용할 수 있도록 바꾼다
+    // otherFirst: 같은 위치 삽입 / 같은 범위일 때 other 를 우선할지 (서버에 먼저 확정된 쪽이 true)
+    //  - 겹치지 않으면 other 가 앞쪽일 때만 other 의 길이 변화만큼 민다
+    //  - 일부만 겹치면 other 가 이미 지운 부분을 내 범위에서 뺀다
+    //  - 한 범위가 다른 범위를 포함하면 바깥 연산이 이기고 안쪽 연산은 빈 연산이 된다
+    //    (지워진 범위 안에서 입력한 글자는 범위와 함께 지워진다)
+    // 변환된 텍스트는 항상 원래 연산의 텍스트 그대로라 변환을 거듭해도 커지지 않는다.
+    public TextOperation transform(TextOperation other, boolean otherFirst) {
+        if (other.isNoop()) {
+            return this;
+        }
+        int delta = other.lengthDelta();
+        // 같은 위치 삽입끼리
+        if (start == end && other.start == other.end && start == other.start) {
+            return otherFirst ? shift(other.text.length()) : this;
+        }
+        // other 가 완전히 앞쪽 (other 의 삽입이 이 범위 시작에 붙어 있는 경우 포함)
+        if (other.end <= start) {
+            return shift(delta);
+        }
+        // other 가 완전히 뒤쪽
+        if (other.start >= end) {
+            return this;
+        }
+
+        boolean containsOther = start <= other.start && other.end <= end;
+        boolean containedByOther = other.start <= start && end <= other.end;
+        if (containsOther && (!containedByOther || !otherFirst)) {
+            // 바깥 연산: other 가 넣은 텍스트까지 함께 바꾼다
+            return new TextOperation(start, end + delta, text);
+        }
+        if (containedByOther) {
+            // 안쪽 연산: 이미 other 가 바꾼 범위라 할 일이 없다
+            return new TextOperation(other.start, other.start, "");
+        }
+        if (start < other.start) {
+            // 내 범위의 뒷부분이 겹침 → 앞부분만 바꾼다
+            return new TextOperation(start, other.start, text);
+        }
+        // 내 범위의 앞부분이 겹침 → other 가 넣은 텍스트 뒤의 남은 부분만 바꾼다
+        return new TextOperation(other.end + delta, end + delta, text);
+    }
+
+    private TextOperation shift(int delta) {
+        return delta == 0 ? this : new TextOperation(start + delta, end + delta, text);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.dscteam1.Persistence;
+
+import com.example.dscteam1.Document.TextDocument;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 최근에 불러온 문서 (파일명 -> 연 문서), 파일 크기 합이 maxBytes 를 넘으면 가장 오래 쓰지 않은 것부터 뺀다
+// 문서는 힙에 읽어 둔 로프다 (파일을 매핑한 로프는 두지 않는다: 밖에서 파일을 고치면 내용이 바뀐다).
+// 꺼낼 때는 O(1) 사본을 주므로 방에서 편집해도 캐시의 문서는 바뀌지 않는다.
+// 파일 크기나 수정 시각이 달라졌으면(다른 노드가 저장했거나 밖에서 바꿈) 없는 것으로 본다.
+final class DocumentCache {
+
+    private record Entry(TextDocument text, long sizeBytes, long modifiedAt) {
+    }
+
+    private final long maxBytes;
+
+    // 접근 순서 (맨 앞이 가장 오래 쓰지 않은 것)
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+    private long hits;
+    private long misses;
+
+    DocumentCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // 없거나 파일이 바뀌었으면 null
+    synchronized TextDocument get(String fileName, long sizeBytes, long modifiedAt) {
+        Entry entry = entries.get(fileName);
+        if (entry == null || entry.sizeBytes != sizeBytes || entry.modifiedAt != modifiedAt) {
+            if (entry != null) {
+                remove(fileName);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.text.snapshot();
+    }
+
+    // 혼자서 한도를 넘는 문서는 넣지 않는다
+    synchronized void put(String fileName, TextDocument text, long sizeBytes, long modifiedAt) {
+        remove(fileName);
+        if (sizeBytes > maxBytes) return;
+        entries.put(fileName, new Entry(text.snapshot(), sizeBytes, modifiedAt));
+        totalBytes += sizeBytes;
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().sizeBytes;
+            eldest.remove();
+        }
+    }
+
+    synchronized void remove(String fileName) {
+        Entry entry = entries.remove(fileName);
+        if (entry != null) {
+            totalBytes -= entry.sizeBytes;
+        }
+    }
+
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.dscteam1.Persistence;
+
+import com.example.dscteam1.Document.TextDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// saved_files 문서 저장소
+// - 파일 목록과 메타데이터(크기, 수정 시각, 문자 / 줄 수, 버전)는 내장 DB 에 두고, 목록 요청은 DB 를 읽는다.
+//   읽은 목록(페이지별)은 listCacheMillis 동안 캐시하고, 이 노드에서 저장하거나 다시 훑어 바뀐 것이 있으면 비운다.
+//   (다른 노드가 저장한 것은 캐시가 끝날 때까지 늦게 보일 수 있다)
+// - /save 가 끝날 때마다 버전 기록을 하나 남긴다 (내용은 파일에만 있고 기록에는 크기와 시각만)
+// - 밖에서 넣거나 지운 파일은 rescan (시작할 때와 주기적으로) 으로 맞춘다
+// - 불러온 문서는 DocumentCache 에 두어 같은 파일을 다시 불러올 때 디스크를 다시 훑지 않는다
+public class DocumentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentStore.class);
+
+    // listCacheMillis: 목록 캐시 유지 시간, contentCacheBytes: 불러온 문서 캐시 한도 (파일 크기 합),
+    // rescanIntervalMillis: saved_files 를 다시 훑는 간격 (0: 시작할 때만)
+    public record Settings(long listCacheMillis, long contentCacheBytes, long rescanIntervalMillis) {
+    }
+
+    // 캐시해 두는 목록 페이지 수
+    private static final int LISTING_CACHE_ENTRIES = 64;
+
+    // 한 페이지 최대 크기
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private record Listing(Object value, long loadedAt) {
+    }
+
+    private final Path dir;
+    private final Settings settings;
+    private final SavedDocumentRepository documents;
+    private final SavedDocumentVersionRepository versions;
+    private final TransactionTemplate transactions;
+    private final DocumentCache cache;
+
+    // 목록 캐시 ("names" 또는 "page:<번호>:<크기>" -> 결과), 바뀔 때마다 generation 을 올려 비운다
+    private final Map<String, Listing> listings = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Listing> eldest) {
+            return size() > LISTING_CACHE_ENTRIES;
+        }
+    };
+    private long generation;
+
+    public DocumentStore(Path dir, Settings settings, SavedDocumentRepository documents,
+                         SavedDocumentVersionRepository versions, PlatformTransactionManager transactionManager) {
+        this.dir = dir;
+        this.settings = settings;
+        this.documents = documents;
+        this.versions = versions;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.cache = new DocumentCache(settings.contentCacheBytes());
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    // ---------------------------------------------------------------------
+    // 목록
+    // ---------------------------------------------------------------------
+
+    // 모든 파일명 (이름순)
+    @SuppressWarnings("unchecked")
+    public List<String> listNames() {
+        return (List<String>) cached("names", () -> List.copyOf(documents.findAllFileNames()));
+    }
+
+    // 이름순 page 번째 페이지: {files: [메타데이터...], page, size, total, pages}
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> listPage(int page, int size) {
+        int pageNumber = Math.max(0, page);
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, size));
+        return (Map<String, Object>) cached("page:" + pageNumber + ":" + pageSize, () -> {
+            Page<SavedDocument> result = documents.findAll(PageRequest.of(pageNumber, pageSize, Sort.by("fileName")));
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("files", result.getContent().stream().map(SavedDocument::toMap).toList());
+            map.put("page", pageNumber);
+            map.put("size", pageSize);
+            map.put("total", result.getTotalElements());
+            map.put("pages", result.getTotalPages());
+            return map;
+        });
+    }
+
+    // 최근 버전부터 limit 개
+    public List<Map<String, Object>> listVersions(String fileName, int limit) {
+        return versions.findByFileNameOrderByVersionDesc(fileName,
+                        PageRequest.of(0, Math.max(1, Math.min(MAX_PAGE_SIZE, limit))))
+                .stream().map(SavedDocumentVersion::toMap).toList();
+    }
+
+    // 캐시에 있으면 그대로, 없거나 오래되었으면 읽어서 넣는다 (DB 는 락 밖에서 읽는다)
+    // 읽는 동안 목록이 바뀌었으면(generation 이 다르면) 결과를 돌려주기만 하고 넣지 않는다
+    private Object cached(String key, Supplier<Object> load) {
+        long now = System.currentTimeMillis();
+        long loadingGeneration;
+        synchronized (listings) {
+            Listing listing = listings.get(key);
+            if (listing != null && now - listing.loadedAt < settings.listCacheMillis()) {
+                return listing.value;
+            }
+            loadingGeneration = generation;
+        }
+        Object value = load.get();
+        synchronized (listings) {
+            if (generation == loadingGeneration) {
+                listings.put(key, new Listing(value, now));
+            }
+        }
+        return value;
+    }
+
+    private void invalidateListings() {
+        synchronized (listings) {
+            generation++;
+            listings.clear();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 불러오기 / 저장
+    // ---------------------------------------------------------------------
+
+    // saved_files/<fileName> 의 내용 (캐시에 같은 파일이 있으면 디스크를 읽지 않는다)
+    // 돌려주는 문서는 사본이라 받은 쪽에서 편집해도 된다
+    public TextDocument open(String fileName) throws IOException {
+        Path file = dir.resolve(fileName);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            cache.remove(fileName);
+            throw new IOException("해당 파일이 존재하지 않습니다: " + fileName);
+        }
+        if (!attributes.isRegularFile()) {
+            throw new IOException("해당 파일이 존재하지 않습니다: " + fileName);
+        }
+        long sizeBytes = attributes.size();
+        long modifiedAt = attributes.lastModifiedTime().toMillis();
+        TextDocument cached = cache.get(fileName, sizeBytes, modifiedAt);
+        if (cached != null) {
+            return cached;
+        }
+        // saved_files 는 밖에서 제자리에 고쳐 쓸 수 있으므로 매핑하지 않고 힙에 읽어 둔다
+        // (매핑한 파일이 바뀌면 로프가 센 길이 / 줄 수와 내용이 어긋나고, 줄어들면 읽을 때 SIGBUS 가 난다)
+        TextDocument text = TextFiles.read(file);
+        cache.put(fileName, text, sizeBytes, modifiedAt);
+        // 처음 불러온 파일이면 문자 / 줄 수를 채워 둔다
+        try {
+            boolean changed = Boolean.TRUE.equals(transactions.execute(status -> {
+                SavedDocument document = documents.findById(fileName).orElse(null);
+                if (document != null && document.matches(sizeBytes, modifiedAt) && document.getChars() >= 0) {
+                    return false;
+                }
+                if (document == null) {
+                    document = new SavedDocument(fileName, sizeBytes, modifiedAt);
+                }
+                document.update(sizeBytes, modifiedAt, text.length(), text.lineCount());
+                documents.save(document);
+                return true;
+            }));
+            if (changed) {
+                invalidateListings();
+            }
+        } catch (RuntimeException e) {
+            // 메타데이터는 다음 rescan 에서 다시 맞춘다
+            log.warn("{} 메타데이터 갱신 실패", fileName, e);
+        }
+        return text.snapshot();
+    }
+
+    // /save 가 끝났을 때 (저장 스레드): 메타데이터를 갱신하고 버전 기록을 남긴다
+    public void saved(SaveJobs.Job job) {
+        if (job.getState() != SaveJobs.State.DONE) return;
+        String fileName = job.getFileName();
+        cache.remove(fileName);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(dir.resolve(fileName), BasicFileAttributes.class);
+            long sizeBytes = attributes.size();
+            long modifiedAt = attributes.lastModifiedTime().toMillis();
+            transactions.executeWithoutResult(status -> {
+                SavedDocument document = documents.findById(fileName)
+                        .orElseGet(() -> new SavedDocument(fileName, sizeBytes, modifiedAt));
+                document.update(sizeBytes, modifiedAt, job.getTotalChars(), job.getLineCount());
+                long version = document.nextVersion(job.getDocId());
+                documents.save(document);
+                versions.save(new SavedDocumentVersion(fileName, version, job.getDocId(), sizeBytes,
+                        job.getTotalChars(), job.getLineCount(), job.getFinishedAt()));
+            });
+        } catch (IOException | RuntimeException e) {
+            log.warn("{} 저장 기록 남기기 실패", fileName, e);
+        }
+        invalidateListings();
+    }
+
+    // ---------------------------------------------------------------------
+    // 디스크와 맞추기
+    // ---------------------------------------------------------------------
+
+    // saved_files 를 한 번 훑어 DB 와 맞춘다: 새 파일은 추가, 밖에서 바뀐 파일은 크기 / 시각 갱신, 없어진 파일은 삭제
+    // 숨김 파일(.rooms, .index, 저장 중인 임시 파일)은 목록에 넣지 않는다
+    public synchronized void rescan() {
+        try {
+            Map<String, BasicFileAttributes> onDisk = new HashMap<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.startsWith(".")) continue;
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        if (attributes.isRegularFile()) {
+                            onDisk.put(name, attributes);
+                        }
+                    } catch (NoSuchFileException e) {
+                        // 훑는 사이에 지워졌다
+                    }
+                }
+            }
+
+            Map<String, SavedDocument> known = new HashMap<>();
+            for (SavedDocument document : documents.findAll()) {
+                known.put(document.getFileName(), document);
+            }
+            List<SavedDocument> changed = new ArrayList<>();
+            for (Map.Entry<String, BasicFileAttributes> entry : onDisk.entrySet()) {
+                long sizeBytes = entry.getValue().size();
+                long modifiedAt = entry.getValue().lastModifiedTime().toMillis();
+                SavedDocument document = known.remove(entry.getKey());
+                if (document == null) {
+                    changed.add(new SavedDocument(entry.getKey(), sizeBytes, modifiedAt));
+                } else if (!document.matches(sizeBytes, modifiedAt)) {
+                    document.update(sizeBytes, modifiedAt, -1, -1);
+                    changed.add(document);
+                }
+            }
+            if (changed.isEmpty() && known.isEmpty()) return;
+
+            transactions.executeWithoutResult(status -> {
+                documents.saveAll(changed);
+                if (!known.isEmpty()) {
+                    documents.deleteAllById(known.keySet());
+                    versions.deleteByFileNames(known.keySet());
+                }
+            });
+            changed.forEach(document -> cache.remove(document.getFileName()));
+            known.keySet().forEach(cache::remove);
+            invalidateListings();
+            log.info("saved_files 목록 갱신: 추가/변경 {}, 삭제 {}", changed.size(), known.size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("saved_files 목록 갱신 실패", e);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 캐시 통계 (게이지)
+    // ---------------------------------------------------------------------
+
+    public long getCachedBytes() {
+        return cache.getTotalBytes();
+    }
+
+    public int getCachedDocuments() {
+        return cache.size();
+    }
+
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return cache.getMisses();
+    }
+}
@@ -0,0 +1,461 @@
+package com.example.dscteam1.Persistence;
+
+import com.example.dscteam1.Document.RopeDocument;
+import com.example.dscteam1.Document.TextDocument;
+import com.example.dscteam1.Document.TextOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// 문서 하나의 쓰기 전 기록(write-ahead log)
+// 확정된 편집 연산을 리비전 순서대로 세그먼트 파일(<첫 리비전>.wal)에 덧붙이고, 주기적으로 전체 텍스트
+// 스냅샷(snapshot-<리비전>.txt, 압축하면 snapshot-<리비전>.txt.deflate)을 찍은 뒤 스냅샷에 포함된 세그먼트를 지운다.
+// 다시 시작하면 가장 최근 스냅샷을 읽고 그 뒤의 기록만 다시 적용해 마지막으로 디스크에 내린 상태를 되살린다.
+//
+// 레코드: [길이 int][CRC32 int][종류 byte][리비전 long][start int][end int][UTF-8 텍스트]
+// 길이와 CRC 는 종류부터 텍스트까지를 대상으로 한다. 쓰다 끊긴 마지막 레코드는 복구할 때 잘라낸다.
+//
+// append 는 방 메일박스 스레드에서 메모리 버퍼에 넣기만 하고, write + fsync 는 EditLogWriter 의
+// 그룹 커밋 스레드가 버퍼를 통째로 가져가 한 번에 한다 (버퍼 두 개를 번갈아 쓴다).
+public class EditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(EditLog.class);
+
+    // 복구 결과: 텍스트와 마지막으로 적용된 리비전
+    public record Recovered(TextDocument text, long revision) {
+    }
+
+    // 레코드 종류 (텍스트 전체 교체는 레코드 대신 스냅샷으로 남긴다)
+    private static final byte OP = 1;
+
+    // [길이][CRC]
+    private static final int HEADER_BYTES = 8;
+    // [종류][리비전][start][end]
+    private static final int FIXED_BYTES = 1 + 8 + 4 + 4;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    // 큰 붙여넣기로 커진 버퍼는 쓰고 나면 기본 크기로 되돌린다
+    private static final int MAX_RETAINED_BUFFER_BYTES = 4 * 1024 * 1024;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d{20})\\.wal");
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{20})\\.txt(\\.deflate)?");
+    private static final String COMPRESSED_SUFFIX = ".deflate";
+
+    // 이보다 긴 문서의 스냅샷은 압축하지 않는다: 압축한 스냅샷은 복구할 때 전부 힙에 풀어야 하지만
+    // 그대로 쓴 스냅샷은 매핑해서 열므로 텍스트가 페이지 캐시에 남는다
+    private static final int MAX_COMPRESSED_SNAPSHOT_CHARS = 16 * 1024 * 1024;
+
+    private final Path dir;
+    private final EditLogWriter writer;
+    private final long segmentBytes;
+    private final int snapshotEvery;
+    private final int snapshotCompressionLevel;
+
+    // --- 메일박스 스레드와 그룹 커밋 스레드가 함께 쓰는 부분 (this 로 동기화) ---
+
+    // 아직 디스크에 내리지 않은 레코드들
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_BYTES);
+    // pending 첫 레코드의 리비전 (비어 있으면 -1)
+    private long pendingFirstRevision = -1;
+    // 스냅샷을 찍었으니 다음 기록부터 새 세그먼트에 쓴다 (지난 세그먼트를 통째로 지울 수 있도록)
+    private boolean rollRequested;
+    private boolean closed;
+    private final CRC32 crc = new CRC32();
+
+    // --- 디스크 쪽 상태 (ioLock 으로 동기화) ---
+
+    private final Object ioLock = new Object();
+    // 다음 flush 에 쓸 빈 버퍼 (flush 중에는 null)
+    private ByteBuffer spare = ByteBuffer.allocate(BUFFER_BYTES);
+    // 첫 리비전 -> 세그먼트 파일 (마지막 항목이 지금 쓰는 세그먼트)
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel segment;
+    // 지금 세그먼트에서 fsync 까지 끝난 길이
+    private long segmentSize;
+    // 쓰다 실패해 segmentSize 뒤에 반쯤 쓴 레코드가 남았을 수 있다 (다음에 쓰기 전에 잘라 낸다)
+    private boolean tornTail;
+
+    // 메일박스 스레드만 사용
+    private int opsSinceSnapshot;
+
+    // 누적 통계
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong snapshotsWritten = new AtomicLong();
+
+    public EditLog(Path dir, EditLogWriter writer) throws IOException {
+        this.dir = dir;
+        this.writer = writer;
+        this.segmentBytes = writer.getSettings().segmentBytes();
+        this.snapshotEvery = writer.getSettings().snapshotEvery();
+        this.snapshotCompressionLevel = writer.getSettings().snapshotCompressionLevel();
+        Files.createDirectories(dir);
+    }
+
+    // 최근 스냅샷 + 그 뒤의 기록으로 마지막 상태를 되살리고, 이어서 기록할 새 세그먼트를 연다
+    // 중간에 끊기거나 CRC 가 맞지 않는 레코드가 나오면 그 앞까지만 적용하고 나머지는 버린다.
+    public Recovered recover() throws IOException {
+        synchronized (ioLock) {
+            TextDocument text;
+            long revision;
+            Map.Entry<Long, Path> snapshot = latest(SNAPSHOT_NAME);
+            if (snapshot != null) {
+                Path file = snapshot.getValue();
+                // 스냅샷 파일은 다시 쓰지 않으므로 매핑해서 연다 (큰 문서도 힙에 복사하지 않음), 압축한 것은 풀어서 읽는다
+                text = file.getFileName().toString().endsWith(COMPRESSED_SUFFIX)
+                        ? TextFiles.readCompressed(file)
+                        : RopeDocument.open(file);
+                revision = snapshot.getKey();
+            } else {
+                text = new RopeDocument("");
+                revision = 0;
+            }
+
+            segments.clear();
+            segments.putAll(list(SEGMENT_NAME));
+            boolean broken = false;
+            Iterator<Map.Entry<Long, Path>> it = segments.entrySet().iterator();
+            while (it.hasNext()) {
+                Path file = it.next().getValue();
+                if (broken) {
+                    // 끊긴 지점 뒤의 세그먼트는 이어 붙일 수 없다
+                    Files.delete(file);
+                    it.remove();
+                    continue;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+                Replay replay = replay(buffer, text, revision);
+                text = replay.text;
+                revision = replay.revision;
+                if (replay.validBytes < buffer.capacity()) {
+                    broken = true;
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.truncate(replay.validBytes);
+                        channel.force(true);
+                    }
+                }
+                if (replay.validBytes == 0) {
+                    Files.delete(file);
+                    it.remove();
+                }
+            }
+
+            openSegment(revision + 1);
+            return new Recovered(text, revision);
+        }
+    }
+
+    private record Replay(TextDocument text, long revision, int validBytes) {
+    }
+
+    // 세그먼트 하나를 처음부터 적용한다 (스냅샷에 이미 포함된 리비전은 건너뛴다)
+    private static Replay replay(ByteBuffer buffer, TextDocument text, long revision) {
+        CRC32 checksum = new CRC32();
+        int valid = 0;
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            int expected = buffer.getInt();
+            if (length < FIXED_BYTES || length > buffer.remaining()) break;
+
+            checksum.reset();
+            checksum.update(buffer.array(), buffer.position(), length);
+            if ((int) checksum.getValue() != expected) break;
+
+            byte type = buffer.get();
+            long recordRevision = buffer.getLong();
+            int start = buffer.getInt();
+            int end = buffer.getInt();
+            int textBytes = length - FIXED_BYTES;
+            String recordText = new String(buffer.array(), buffer.position(), textBytes, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + textBytes);
+
+            if (type != OP) break;
+            if (recordRevision > revision) {
+                if (recordRevision != revision + 1) break;
+                new TextOperation(start, end, recordText).applyTo(text);
+                revision = recordRevision;
+            }
+            valid = buffer.position();
+        }
+        return new Replay(text, revision, valid);
+    }
+
+    // ---------------------------------------------------------------------
+    // 기록 (방 메일박스 스레드)
+    // ---------------------------------------------------------------------
+
+    // revision 으로 확정된 연산을 기록한다 (디스크에는 다음 그룹 커밋 때 내려간다)
+    public void append(long revision, TextOperation op) {
+        appendRecord(OP, revision, op.start(), op.end(), op.text());
+        opsSinceSnapshot++;
+    }
+
+    // 텍스트 전체 교체 (파일 불러오기): 쌓인 기록을 내리고 revision 스냅샷을 바로 쓴다
+    // 수백 MB 텍스트를 레코드 버퍼에 복사하지 않도록 레코드 대신 스냅샷으로 남긴다.
+    // 다 쓰기 전에는 돌아오지 않으므로, 실패하면 교체하지 않으면 된다.
+    public void replace(long revision, TextDocument text) throws IOException {
+        opsSinceSnapshot = 0;
+        flush();
+        synchronized (this) {
+            rollRequested = true;
+        }
+        writeSnapshot(revision, text);
+    }
+
+    private void appendRecord(byte type, long revision, int start, int end, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_BYTES + bytes.length;
+        boolean first;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("닫힌 편집 기록입니다: " + dir);
+            }
+            ensureCapacity(HEADER_BYTES + length);
+            int headerAt = pending.position();
+            pending.putInt(length).putInt(0);
+            int payloadAt = pending.position();
+            pending.put(type).putLong(revision).putInt(start).putInt(end).put(bytes);
+            crc.reset();
+            crc.update(pending.array(), payloadAt, length);
+            pending.putInt(headerAt + 4, (int) crc.getValue());
+
+            first = pendingFirstRevision < 0;
+            if (first) {
+                pendingFirstRevision = revision;
+            }
+        }
+        records.incrementAndGet();
+        if (first) {
+            writer.markDirty(this);
+        }
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (pending.remaining() >= bytes) return;
+        int capacity = Math.max(pending.capacity() * 2, pending.position() + bytes);
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        pending.flip();
+        grown.put(pending);
+        pending = grown;
+    }
+
+    // 스냅샷 주기가 되었는지
+    public boolean isSnapshotDue() {
+        return opsSinceSnapshot >= snapshotEvery;
+    }
+
+    // revision 시점의 문서 사본(TextDocument.snapshot)을 백그라운드에서 스냅샷으로 쓰고,
+    // 다 쓰면 오래된 세그먼트를 지운다
+    public void snapshotAsync(long revision, TextDocument text) {
+        opsSinceSnapshot = 0;
+        synchronized (this) {
+            rollRequested = true;
+        }
+        writer.submitSnapshot(() -> {
+            try {
+                writeSnapshot(revision, text);
+            } catch (IOException e) {
+                log.warn("스냅샷 쓰기 실패: {} (리비전 {})", dir, revision, e);
+            }
+        });
+    }
+
+    // 지금까지의 기록을 내리고 스냅샷을 찍은 뒤 닫는다 (방을 내보낼 때, 메일박스 스레드에서)
+    public void close(long revision, TextDocument text) throws IOException {
+        opsSinceSnapshot = 0;
+        flush();
+        writeSnapshot(revision, text);
+        synchronized (this) {
+            closed = true;
+        }
+        synchronized (ioLock) {
+            if (segment != null) {
+                segment.close();
+                segment = null;
+            }
+        }
+    }
+
+    // 아무것도 기록하지 않은 채로 닫는다 (스냅샷을 찍지 않는다)
+    public void discard() throws IOException {
+        synchronized (this) {
+            closed = true;
+        }
+        synchronized (ioLock) {
+            if (segment != null) {
+                segment.close();
+                segment = null;
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 디스크 쓰기 (그룹 커밋 스레드)
+    // ---------------------------------------------------------------------
+
+    // 쌓인 기록을 한 번의 write + fsync 로 내린다
+    // 실패하면 가져간 기록을 pending 앞에 되돌려 두고 다음 flush 때 다시 쓴다. 그 사이 세그먼트에는 반쯤 쓴
+    // 레코드가 남았을 수 있으므로 다시 쓰기 전에 fsync 한 길이로 잘라 낸다 (끊긴 레코드 뒤에 이어 쓰면
+    // 복구가 거기서 멈추고 뒤의 세그먼트를 모두 버린다).
+    void flush() throws IOException {
+        synchronized (ioLock) {
+            ByteBuffer batch;
+            long firstRevision;
+            boolean roll;
+            synchronized (this) {
+                if (pendingFirstRevision < 0 || segment == null) return;
+                batch = pending;
+                pending = spare;
+                firstRevision = pendingFirstRevision;
+                pendingFirstRevision = -1;
+                roll = rollRequested;
+                rollRequested = false;
+            }
+            spare = null;
+
+            int bytes = batch.position();
+            boolean written = false;
+            try {
+                if (tornTail) {
+                    segment.truncate(segmentSize);
+                    segment.position(segmentSize);
+                    tornTail = false;
+                }
+                if (roll || segmentSize >= segmentBytes) {
+                    openSegment(firstRevision);
+                }
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    segment.write(batch);
+                }
+                segment.force(false);
+                written = true;
+                segmentSize += bytes;
+                flushes.incrementAndGet();
+                bytesWritten.addAndGet(bytes);
+            } finally {
+                if (written) {
+                    spare = batch.capacity() > MAX_RETAINED_BUFFER_BYTES
+                            ? ByteBuffer.allocate(BUFFER_BYTES)
+                            : batch.clear();
+                } else {
+                    tornTail = true;
+                    restore(batch, bytes, firstRevision, roll);
+                }
+            }
+        }
+    }
+
+    // 내리지 못한 기록(batch 의 앞 bytes 바이트)을 그 뒤에 쌓인 기록 앞에 되돌린다 (ioLock 안에서)
+    private void restore(ByteBuffer batch, int bytes, long firstRevision, boolean roll) {
+        synchronized (this) {
+            ByteBuffer later = pending;
+            ByteBuffer merged = ByteBuffer.allocate(Math.max(BUFFER_BYTES, bytes + later.position()));
+            merged.put(batch.array(), 0, bytes).put(later.array(), 0, later.position());
+            pending = merged;
+            pendingFirstRevision = firstRevision;
+            rollRequested |= roll;
+            spare = later.capacity() > MAX_RETAINED_BUFFER_BYTES ? ByteBuffer.allocate(BUFFER_BYTES) : later.clear();
+        }
+    }
+
+    // 새 세그먼트를 열고 지금까지 쓰던 세그먼트는 닫는다 (ioLock 안에서)
+    // 새 파일을 먼저 열어, 열지 못하면 쓰던 세그먼트를 그대로 둔다
+    private void openSegment(long firstRevision) throws IOException {
+        Path file = dir.resolve(String.format("%020d.wal", firstRevision));
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (segment != null) {
+            segment.close();
+        }
+        segment = opened;
+        segmentSize = 0;
+        tornTail = false;
+        segments.put(firstRevision, file);
+        TextFiles.forceDirectory(dir);
+    }
+
+    // 임시 파일에 쓰고 fsync 한 뒤 이름을 바꾸므로 스냅샷 파일은 항상 완전한 상태로만 보인다
+    private void writeSnapshot(long revision, TextDocument text) throws IOException {
+        String name = String.format("snapshot-%020d.txt", revision);
+        if (snapshotCompressionLevel > 0 && text.length() <= MAX_COMPRESSED_SNAPSHOT_CHARS) {
+            TextFiles.writeAtomically(dir.resolve(name + COMPRESSED_SUFFIX), text, null, snapshotCompressionLevel);
+        } else {
+            TextFiles.writeAtomically(dir.resolve(name), text, null);
+        }
+        snapshotsWritten.incrementAndGet();
+        compact(revision);
+    }
+
+    // revision 스냅샷에 모두 포함된 세그먼트와 그보다 오래된 스냅샷을 지운다
+    // 세그먼트의 마지막 리비전은 다음 세그먼트의 첫 리비전 - 1 이고, 지금 쓰는 세그먼트는 남긴다.
+    private void compact(long revision) throws IOException {
+        synchronized (ioLock) {
+            List<Long> covered = new ArrayList<>();
+            Long previous = null;
+            for (Long first : segments.keySet()) {
+                if (previous != null && first <= revision + 1) {
+                    covered.add(previous);
+                }
+                previous = first;
+            }
+            for (Long first : covered) {
+                Files.deleteIfExists(segments.remove(first));
+            }
+        }
+        for (Map.Entry<Long, Path> old : list(SNAPSHOT_NAME).entrySet()) {
+            if (old.getKey() < revision) {
+                Files.deleteIfExists(old.getValue());
+            }
+        }
+    }
+
+    private TreeMap<Long, Path> list(Pattern name) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (Stream<Path> stream = Files.list(dir)) {
+            stream.forEach(file -> {
+                Matcher matcher = name.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    files.put(Long.parseLong(matcher.group(1)), file);
+                }
+            });
+        }
+        return files;
+    }
+
+    private Map.Entry<Long, Path> latest(Pattern name) throws IOException {
+        return list(name).lastEntry();
+    }
+
+    // 기록 통계 (GET /rooms/stats)
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("records", records.get());
+        map.put("flushes", flushes.get());
+        map.put("bytesWritten", bytesWritten.get());
+        map.put("snapshots", snapshotsWritten.get());
+        synchronized (ioLock) {
+            map.put("segments", segments.size());
+        }
+        return map;
+    }
+}
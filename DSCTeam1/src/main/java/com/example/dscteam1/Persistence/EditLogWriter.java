@@ -0,0 +1,102 @@
+package com.example.dscteam1.Persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// 모든 방의 편집 기록(EditLog)을 디스크에 쓰는 그룹 커밋 스레드
+// 방 메일박스는 기록을 메모리 버퍼에 넣기만 하고, 이 스레드가 flushInterval 마다 쌓인 기록을
+// 방별로 한 번의 write + fsync 로 내린다. fsync 한 번에 그 사이 들어온 연산을 모두 실어 보내므로
+// 연산마다 fsync 하는 것보다 처리량이 훨씬 높고, 대신 장애 시 최대 flushInterval 만큼의 편집을 잃을 수 있다.
+// 스냅샷은 별도 스레드에서 쓴다 (큰 문서의 스냅샷이 그룹 커밋을 늦추지 않도록).
+public class EditLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(EditLogWriter.class);
+
+    // flushIntervalMillis: 그룹 커밋 간격, segmentBytes: 세그먼트 파일 크기 상한,
+    // snapshotEvery: 이만큼 연산이 쌓이면 스냅샷을 찍고 오래된 세그먼트를 지운다,
+    // snapshotCompressionLevel: 스냅샷을 압축하는 zlib 레벨 (0 이면 압축하지 않는다)
+    public record Settings(long flushIntervalMillis, long segmentBytes, int snapshotEvery,
+                           int snapshotCompressionLevel) {
+    }
+
+    private final Settings settings;
+
+    // 버퍼에 기록이 쌓인 로그들 (로그마다 한 번만 들어간다)
+    private final ConcurrentLinkedQueue<EditLog> dirty = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService flusher;
+    private final ExecutorService snapshots;
+
+    public EditLogWriter(Settings settings) {
+        this(settings, EditLogWriter::namedThread);
+    }
+
+    // threads: 이름 → 스레드를 만들 ThreadFactory (가상 스레드 모드면 가상 스레드)
+    public EditLogWriter(Settings settings, Function<String, ThreadFactory> threads) {
+        this.settings = settings;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(threads.apply("edit-log-flusher-"));
+        this.snapshots = Executors.newSingleThreadExecutor(threads.apply("edit-log-snapshot-"));
+        flusher.scheduleWithFixedDelay(this::flushDirty,
+                settings.flushIntervalMillis(), settings.flushIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    void markDirty(EditLog log) {
+        dirty.offer(log);
+    }
+
+    void submitSnapshot(Runnable task) {
+        snapshots.execute(task);
+    }
+
+    // 쌓인 기록을 모두 내린다
+    // 실패한 로그는 기록을 되돌려 두었으므로 다음 주기에 다시 내린다 (같은 주기에 다시 넣으면 계속 돈다)
+    private void flushDirty() {
+        List<EditLog> failed = new ArrayList<>();
+        EditLog editLog;
+        while ((editLog = dirty.poll()) != null) {
+            try {
+                editLog.flush();
+            } catch (IOException e) {
+                log.warn("편집 기록 쓰기 실패 (다음 주기에 다시 씁니다)", e);
+                failed.add(editLog);
+            }
+        }
+        dirty.addAll(failed);
+    }
+
+    // 남은 기록을 내리고 스레드를 멈춘다 (방을 모두 내보낸 뒤 호출)
+    public void shutdown() {
+        flusher.shutdown();
+        snapshots.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+            snapshots.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushDirty();
+    }
+
+    private static ThreadFactory namedThread(String prefix) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "1");
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
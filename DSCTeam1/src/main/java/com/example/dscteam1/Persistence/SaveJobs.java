@@ -0,0 +1,201 @@
+package com.example.dscteam1.Persistence;
+
+import com.example.dscteam1.Document.TextDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// 백그라운드 저장 작업 (/save)
+// 요청 스레드는 작업 번호만 받아 바로 돌아가고, 문서 사본(O(1) 로프 스냅샷)을 파일로 쓰는 일은
+// 저장 스레드가 한다. 저장 중에도 방의 편집은 멈추지 않는다.
+// 저장 스레드는 하나라 같은 파일에 대한 저장은 요청 순서대로 끝난다 (나중 요청의 내용이 남는다).
+public class SaveJobs {
+
+    private static final Logger log = LoggerFactory.getLogger(SaveJobs.class);
+
+    public enum State {
+        // 문서 사본을 기다리거나 앞선 저장이 끝나기를 기다리는 중
+        QUEUED,
+        WRITING,
+        DONE,
+        FAILED
+    }
+
+    // 끝난 작업을 조회용으로 남겨 두는 개수
+    private static final int HISTORY = 100;
+
+    private final ExecutorService executor;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    // 작업이 끝날 때(DONE / FAILED) 저장 스레드에서 부른다 (저장 시간 계측)
+    private final Consumer<Job> onFinished;
+
+    // 작업 번호 -> 작업 (오래된 것부터 HISTORY 개까지)
+    private final Map<Long, Job> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Job> eldest) {
+            return size() > HISTORY;
+        }
+    };
+
+    public SaveJobs() {
+        this(job -> {
+        }, runnable -> {
+            Thread thread = new Thread(runnable, "save-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // threads: 저장 스레드(하나)를 만들 ThreadFactory (가상 스레드 모드면 가상 스레드)
+    public SaveJobs(Consumer<Job> onFinished, ThreadFactory threads) {
+        this.onFinished = onFinished;
+        this.executor = Executors.newSingleThreadExecutor(threads);
+    }
+
+    public static final class Job {
+        private final long id;
+        private final String docId;
+        private final String fileName;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile State state = State.QUEUED;
+        // 전체 문자 수 (사본을 받기 전에는 -1)
+        private volatile long totalChars = -1;
+        private volatile int lineCount = -1;
+        private final AtomicLong writtenChars = new AtomicLong();
+        private volatile long finishedAt;
+        private volatile String error;
+
+        private Job(long id, String docId, String fileName) {
+            this.id = id;
+            this.docId = docId;
+            this.fileName = fileName;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public String getDocId() {
+            return docId;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getTotalChars() {
+            return totalChars;
+        }
+
+        public int getLineCount() {
+            return lineCount;
+        }
+
+        // 끝난 시각 (epoch ms, 끝나지 않았으면 0)
+        public long getFinishedAt() {
+            return finishedAt;
+        }
+
+        // 요청부터 끝날 때까지 (끝나지 않았으면 지금까지)
+        public long getElapsedMillis() {
+            return (finishedAt != 0 ? finishedAt : System.currentTimeMillis()) - createdAt;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("id", id);
+            map.put("doc", docId);
+            map.put("fileName", fileName);
+            map.put("state", state);
+            map.put("totalChars", totalChars);
+            map.put("writtenChars", writtenChars.get());
+            map.put("progress", totalChars > 0 ? (double) writtenChars.get() / totalChars : state == State.DONE ? 1.0 : 0.0);
+            map.put("elapsedMillis", getElapsedMillis());
+            if (error != null) {
+                map.put("error", error);
+            }
+            return map;
+        }
+    }
+
+    // snapshot 이 준비되면 target 으로 쓰는 작업을 등록하고 바로 돌려준다
+    public Job submit(String docId, String fileName, Path target, CompletableFuture<TextDocument> snapshot) {
+        Job job = new Job(ids.incrementAndGet(), docId, fileName);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        snapshot.thenAcceptAsync(text -> write(job, target, text), executor)
+                .exceptionally(e -> {
+                    fail(job, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                    return null;
+                });
+        return job;
+    }
+
+    // 없는(오래되어 지워진) 작업이면 null
+    public Job get(long id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    private void write(Job job, Path target, TextDocument text) {
+        job.totalChars = text.length();
+        job.lineCount = text.lineCount();
+        job.state = State.WRITING;
+        try {
+            TextFiles.writeAtomically(target, text, job.writtenChars);
+        } catch (IOException e) {
+            fail(job, e);
+            return;
+        }
+        job.finishedAt = System.currentTimeMillis();
+        job.state = State.DONE;
+        finished(job);
+    }
+
+    private void fail(Job job, Throwable e) {
+        log.warn("저장 실패: {} ({})", job.fileName, job.docId, e);
+        job.error = e.getMessage();
+        job.finishedAt = System.currentTimeMillis();
+        job.state = State.FAILED;
+        finished(job);
+    }
+
+    // 끝난 작업의 후처리(계측, 목록 갱신)가 실패해도 작업 상태는 바꾸지 않는다 (이미 쓴 파일을 실패로 보이지 않도록)
+    private void finished(Job job) {
+        try {
+            onFinished.accept(job);
+        } catch (RuntimeException e) {
+            log.warn("저장 작업 {} 후처리 실패", job.id, e);
+        }
+    }
+
+    // 이미 받은 저장은 끝까지 쓰고 멈춘다
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
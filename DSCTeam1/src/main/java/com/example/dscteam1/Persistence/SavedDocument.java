@@ -0,0 +1,95 @@
+package com.example.dscteam1.Persistence;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// saved_files 안 파일 하나의 메타데이터 (목록은 디렉토리를 훑지 않고 이 테이블에서 읽는다)
+// 문자 수 / 줄 수는 편집기로 저장하거나 한 번 불러온 뒤에만 알 수 있다 (모르면 -1)
+@Entity
+@Table(name = "saved_document")
+public class SavedDocument {
+
+    @Id
+    @Column(length = 255)
+    private String fileName;
+
+    private long sizeBytes;
+
+    // 파일의 마지막 수정 시각 (epoch ms)
+    private long modifiedAt;
+
+    private long chars = -1;
+
+    private int lines = -1;
+
+    // 편집기로 저장한 횟수 (0: 디스크에서 찾기만 한 파일), 저장할 때마다 SavedDocumentVersion 이 하나씩 생긴다
+    private long version;
+
+    // 마지막으로 저장한 방의 문서 ID
+    private String lastDocId;
+
+    protected SavedDocument() {
+    }
+
+    public SavedDocument(String fileName, long sizeBytes, long modifiedAt) {
+        this.fileName = fileName;
+        this.sizeBytes = sizeBytes;
+        this.modifiedAt = modifiedAt;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public long getModifiedAt() {
+        return modifiedAt;
+    }
+
+    public long getChars() {
+        return chars;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // 디스크의 파일과 같은지 (크기와 수정 시각)
+    boolean matches(long sizeBytes, long modifiedAt) {
+        return this.sizeBytes == sizeBytes && this.modifiedAt == modifiedAt;
+    }
+
+    // 파일이 바뀌었을 때 (밖에서 바뀌어 내용을 모르면 chars, lines 는 -1)
+    void update(long sizeBytes, long modifiedAt, long chars, int lines) {
+        this.sizeBytes = sizeBytes;
+        this.modifiedAt = modifiedAt;
+        this.chars = chars;
+        this.lines = lines;
+    }
+
+    // 편집기로 저장했을 때: 새 버전 번호
+    long nextVersion(String docId) {
+        lastDocId = docId;
+        return ++version;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("fileName", fileName);
+        map.put("sizeBytes", sizeBytes);
+        map.put("modifiedAt", modifiedAt);
+        map.put("chars", chars);
+        map.put("lines", lines);
+        map.put("version", version);
+        map.put("lastDocId", lastDocId);
+        return map;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.dscteam1.Persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface SavedDocumentRepository extends JpaRepository<SavedDocument, String> {
+
+    // 이름만 (GET /listFiles: 엔티티를 만들지 않는다)
+    @Query("select d.fileName from SavedDocument d order by d.fileName")
+    List<String> findAllFileNames();
+}
@@ -0,0 +1,62 @@
+package com.example.dscteam1.Persistence;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 편집기로 저장한 기록 하나 (/save 가 끝날 때마다 한 줄, 내용은 파일에만 있다)
+@Entity
+@Table(name = "saved_document_version",
+        indexes = @Index(name = "saved_document_version_file", columnList = "fileName, version", unique = true))
+public class SavedDocumentVersion {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    private String fileName;
+
+    private long version;
+
+    // 저장한 방의 문서 ID
+    private String docId;
+
+    private long sizeBytes;
+
+    private long chars;
+
+    private int lines;
+
+    // 저장이 끝난 시각 (epoch ms)
+    private long savedAt;
+
+    protected SavedDocumentVersion() {
+    }
+
+    SavedDocumentVersion(String fileName, long version, String docId, long sizeBytes, long chars, int lines,
+                         long savedAt) {
+        this.fileName = fileName;
+        this.version = version;
+        this.docId = docId;
+        this.sizeBytes = sizeBytes;
+        this.chars = chars;
+        this.lines = lines;
+        this.savedAt = savedAt;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("version", version);
+        map.put("doc", docId);
+        map.put("sizeBytes", sizeBytes);
+        map.put("chars", chars);
+        map.put("lines", lines);
+        map.put("savedAt", savedAt);
+        return map;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.dscteam1.Persistence;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SavedDocumentVersionRepository extends JpaRepository<SavedDocumentVersion, Long> {
+
+    // 최근 버전부터
+    List<SavedDocumentVersion> findByFileNameOrderByVersionDesc(String fileName, Pageable pageable);
+
+    // 디스크에서 사라진 파일의 기록
+    @Transactional
+    @Modifying
+    @Query("delete from SavedDocumentVersion v where v.fileName in :fileNames")
+    void deleteByFileNames(Collection<String> fileNames);
+}
@@ -0,0 +1,142 @@
+package com.example.dscteam1.Persistence;
+
+import com.example.dscteam1.Document.RopeDocument;
+import com.example.dscteam1.Document.TextDocument;
+
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+// 문서 스냅샷을 파일로 쓰는 공통 도우미 (편집 기록 스냅샷, /save)
+public final class TextFiles {
+
+    private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+    private static final int COMPRESSED_BUFFER_BYTES = 64 * 1024;
+
+    private TextFiles() {
+    }
+
+    // 숨김 임시 파일(.<이름>.tmp)에 조각 단위로 쓰고 fsync 한 뒤 target 으로 원자적으로 이름을 바꾼다
+    // 쓰는 도중 장애가 나도 target 은 이전 내용 그대로이거나 새 내용 전체다.
+    // progress 가 있으면 쓴 문자 수를 계속 더한다.
+    public static void writeAtomically(Path target, TextDocument text, AtomicLong progress) throws IOException {
+        writeAtomically(target, text, progress, 0);
+    }
+
+    // compressionLevel 이 0 보다 크면 UTF-8 바이트를 zlib(deflate) 로 압축해서 쓴다 (readCompressed 로 읽는다)
+    public static void writeAtomically(Path target, TextDocument text, AtomicLong progress, int compressionLevel)
+            throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Path temp = dir.resolve("." + target.getFileName() + ".tmp");
+        Deflater deflater = compressionLevel > 0 ? new Deflater(compressionLevel) : null;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DeflaterOutputStream deflating = deflater == null ? null
+                    : new DeflaterOutputStream(Channels.newOutputStream(channel), deflater, COMPRESSED_BUFFER_BYTES);
+            Writer out = new BufferedWriter(deflating == null
+                    ? Channels.newWriter(channel, StandardCharsets.UTF_8)
+                    : new OutputStreamWriter(deflating, StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+            if (progress != null) {
+                out = new CountingWriter(out, progress);
+            }
+            text.writeTo(out);
+            out.flush();
+            if (deflating != null) {
+                deflating.finish();
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory(dir);
+    }
+
+    // UTF-8 파일을 조각 단위로 읽어 힙에 있는 문서로 만든다
+    // RopeDocument.open 은 파일을 매핑해 두므로, 밖에서 고쳐 쓸 수 있는 파일(saved_files)은 이것으로 읽는다.
+    public static RopeDocument read(Path file) throws IOException {
+        try (Reader in = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+            return read(in);
+        }
+    }
+
+    // 압축해서 쓴 파일을 풀어 문서로 읽는다
+    // 매핑해서 여는 RopeDocument.open 과 달리 텍스트가 모두 힙에 올라간다.
+    public static RopeDocument readCompressed(Path file) throws IOException {
+        Inflater inflater = new Inflater();
+        try (Reader in = new InputStreamReader(new InflaterInputStream(Files.newInputStream(file), inflater,
+                COMPRESSED_BUFFER_BYTES), StandardCharsets.UTF_8)) {
+            return read(in);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static RopeDocument read(Reader in) throws IOException {
+        RopeDocument text = new RopeDocument("");
+        char[] buffer = new char[WRITE_BUFFER_CHARS];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            text.insert(text.length(), new String(buffer, 0, n));
+        }
+        return text;
+    }
+
+    // 새로 만들거나 이름을 바꾼 파일이 디스크에 남도록 디렉토리도 fsync (지원하지 않는 플랫폼은 건너뜀)
+    static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Windows 등에서는 디렉토리를 열 수 없다
+        }
+    }
+
+    // 쓴 문자 수를 세는 Writer
+    private static final class CountingWriter extends FilterWriter {
+        private final AtomicLong count;
+
+        CountingWriter(Writer out, AtomicLong count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            super.write(c);
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            super.write(buffer, offset, length);
+            count.addAndGet(length);
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            super.write(text, offset, length);
+            count.addAndGet(length);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.dscteam1.WebSocket;
+
+import com.example.dscteam1.Document.TextOperation;
+import org.springframework.web.socket.BinaryMessage;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// 편집 연산용 바이너리 프레임 (접속 시 ?proto=bin 으로 고른 클라이언트만, 나머지 메시지는 JSON 그대로)
+// 정수는 모두 부호 없는 varint (7비트씩, 하위 바이트부터), 위치는 JSON 과 같은 UTF-16 문자 오프셋이다.
+//   클라이언트 → 서버 연산: [종류][rev + 1 (0: 없음)][id (0: 없음)][start][end (delete, edit)][UTF-8 text (add, edit)]
+//   서버 → 클라이언트 연산: [종류][rev][start][end (delete, edit)][UTF-8 text (add, edit)]
+//   서버 → 클라이언트 ack: [ACK][rev][id]
+//   일괄 연산: [BATCH][rev + 1][id][개수][연산...] (클라이언트 → 서버), [BATCH][rev][개수][연산...] (서버 → 클라이언트)
+//     연산마다 [종류][start][end (delete, edit)][텍스트 바이트 수][UTF-8 text] (add, edit 만 텍스트)
+// 연산 하나짜리 프레임의 텍스트는 길이 없이 프레임 끝까지다. static/script.js 의 encodeOp / decodeFrame 과 형식이 같아야 한다.
+final class BinaryOps {
+
+    static final byte ADD = 1;
+    static final byte DELETE = 2;
+    static final byte EDIT = 3;
+    static final byte ACK = 4;
+    static final byte BATCH = 5;
+
+    // varint 하나의 최대 바이트 수 (64비트)
+    private static final int MAX_VARINT_BYTES = 10;
+
+    private BinaryOps() {
+    }
+
+    static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint 가 너무 깁니다");
+    }
+
+    static void writeVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    // 종류 바이트 뒤의 범위와 텍스트를 읽는다 (버퍼의 남은 바이트를 모두 쓴다)
+    // 위치가 int 를 넘거나 범위가 잘못되면 IllegalArgumentException, 프레임이 짧으면 BufferUnderflowException
+    static TextOperation readOperation(byte kind, ByteBuffer buffer) {
+        return readOperation(kind, buffer, false);
+    }
+
+    // BATCH 뒤의 [개수][연산...] 을 읽는다 (rev, id 는 readVarLong 으로 먼저 읽는다)
+    static List<TextOperation> readBatch(ByteBuffer buffer) {
+        long count = readVarLong(buffer);
+        // 연산 하나가 적어도 2바이트이므로 그보다 많다고 하면 깨진 프레임
+        if (count > buffer.remaining() / 2) {
+            throw new IllegalArgumentException("잘못된 연산 개수: " + count);
+        }
+        List<TextOperation> ops = new ArrayList<>((int) count);
+        for (long i = 0; i < count; i++) {
+            ops.add(readOperation(buffer.get(), buffer, true));
+        }
+        return ops;
+    }
+
+    private static TextOperation readOperation(byte kind, ByteBuffer buffer, boolean lengthPrefixed) {
+        int start = readInt(buffer);
+        return switch (kind) {
+            case ADD -> TextOperation.insert(start, readText(buffer, lengthPrefixed));
+            case DELETE -> TextOperation.delete(start, readInt(buffer));
+            case EDIT -> new TextOperation(start, readInt(buffer), readText(buffer, lengthPrefixed));
+            default -> throw new IllegalArgumentException("알 수 없는 연산 종류: " + kind);
+        };
+    }
+
+    // 확정된 연산을 다른 멤버에게 보낼 프레임의 바이트 (한 번 만들어 멤버끼리 공유, SharedFrame.binaryFrame 으로 감싼다)
+    static byte[] encodeOperation(TextOperation op, long revision) {
+        byte[] text = op.text().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 3 * MAX_VARINT_BYTES + text.length);
+        byte kind = kindOf(op);
+        buffer.put(kind);
+        writeVarLong(buffer, revision);
+        writeVarLong(buffer, op.start());
+        if (kind != ADD) {
+            writeVarLong(buffer, op.end());
+        }
+        if (kind != DELETE) {
+            buffer.put(text);
+        }
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+        return bytes;
+    }
+
+    static byte[] encodeBatch(List<TextOperation> ops, long revision) {
+        byte[][] texts = new byte[ops.size()][];
+        int capacity = 1 + 2 * MAX_VARINT_BYTES;
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = ops.get(i).text().getBytes(StandardCharsets.UTF_8);
+            capacity += 1 + 3 * MAX_VARINT_BYTES + texts[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(capacity);
+        buffer.put(BATCH);
+        writeVarLong(buffer, revision);
+        writeVarLong(buffer, ops.size());
+        for (int i = 0; i < texts.length; i++) {
+            TextOperation op = ops.get(i);
+            byte kind = kindOf(op);
+            buffer.put(kind);
+            writeVarLong(buffer, op.start());
+            if (kind != ADD) {
+                writeVarLong(buffer, op.end());
+            }
+            if (kind != DELETE) {
+                writeVarLong(buffer, texts[i].length);
+                buffer.put(texts[i]);
+            }
+        }
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+        return bytes;
+    }
+
+    static BinaryMessage ackFrame(long revision, long id) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 * MAX_VARINT_BYTES);
+        buffer.put(ACK);
+        writeVarLong(buffer, revision);
+        writeVarLong(buffer, id);
+        return new BinaryMessage(buffer.flip());
+    }
+
+    static byte kindOf(TextOperation op) {
+        if (op.start() == op.end()) {
+            return ADD;
+        }
+        return op.text().isEmpty() ? DELETE : EDIT;
+    }
+
+    private static int readInt(ByteBuffer buffer) {
+        long value = readVarLong(buffer);
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("위치가 너무 큽니다: " + value);
+        }
+        return (int) value;
+    }
+
+    // 텍스트 바이트(길이가 앞에 붙었거나 프레임 끝까지)를 바로 문자열로 디코딩한다 (힙 버퍼면 복사 없이)
+    private static String readText(ByteBuffer buffer, boolean lengthPrefixed) {
+        int length = lengthPrefixed ? readInt(buffer) : buffer.remaining();
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String text;
+        if (buffer.hasArray()) {
+            text = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.duplicate().get(bytes);
+            text = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + length);
+        return text;
+    }
+}
@@ -0,0 +1,794 @@
+package com.example.dscteam1.WebSocket;
+
+import com.example.dscteam1.Cluster.ClusterTransport;
+import com.example.dscteam1.Document.TextOperation;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+// 여러 노드로 나눠 돌릴 때(클러스터 모드) 방마다 주인 노드를 정하고 세션 이벤트를 그 노드로 보낸다
+// - 방(텍스트, 락, 편집 기록, 리비전)은 주인 노드에만 있고 연산의 순서도 주인이 정한다.
+//   다른 노드는 자기 세션의 입장/메시지/퇴장을 주인에게 넘기고(join / in / leave), 주인이 보낸 프레임을 세션에 전한다.
+//   모든 멤버에게 가는 메시지와 확정 연산은 노드마다 한 번만 받아(fanout / ops) 자기 세션들에 나눠 준다.
+// - 주인은 살아 있는 노드 중 (노드, 문서) 점수가 가장 높은 노드다 (rendezvous hashing).
+//   한 번 정한 주인은 그 노드가 떠나거나 다른 노드가 방을 가져갈 때까지 바꾸지 않는다.
+// - 방을 맡으려는 노드는 다른 노드들에 claim 을 보내고, 그 방을 맡고 있던 노드는 편집 기록을 닫고(스냅샷)
+//   멤버들을 새 주인에게 보낸 뒤(moved) released 로 답한다. 모두 답하면 saved_files/.rooms 에서 방을 되살리므로
+//   노드들이 같은 saved_files 를 써야 한다. 새 주인에게 다시 들어간 세션은 init 을 새로 받는다.
+// 문서마다 경로 메일박스 하나에서 상태를 바꾸므로 문서 사이에는 서로 기다리지 않는다.
+public class ClusterRouter implements ClusterTransport.Listener {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterRouter.class);
+
+    // 세션 속성에 저장하는 이 노드 세션 정보 키
+    private static final String LOCAL_ATTRIBUTE = "clusterSession";
+
+    // 방을 가져오기 전에 다른 노드들의 답(released)을 기다리는 최대 시간
+    private static final long CLAIM_TIMEOUT = 3000;
+
+    // /save, /load 가 이 노드로 방을 가져오기를 기다리는 최대 시간
+    private static final long HOST_WAIT_TIMEOUT = CLAIM_TIMEOUT + 2000;
+
+    // 유휴 정리로 내보낸 방을 더 이상 맡지 않도록 경로를 훑는 주기
+    private static final long ROUTE_SWEEP_INTERVAL = 10000;
+
+    // 송신 큐가 넘친 세션을 주인 노드에서 다시 맞추는 요청
+    private static final String SYNC_REQUEST = "{\"type\":\"sync\"}";
+
+    private enum HostState { NONE, CLAIMING, HOSTING }
+
+    private final ClusterTransport transport;
+    private final RoomManager rooms;
+    private final MySocketHandler handler;
+    private final String self;
+
+    // 문서 ID → 경로 상태 (그 문서의 경로 메일박스 안에서만 읽고 쓴다)
+    // 세션도, 맡은 방도, 진행 중인 인수도 없는 경로는 지운다 (다른 노드가 말한 문서마다 쌓이지 않도록)
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    // 경로 메일박스를 실행하는 워커 (방을 넘길 때 방 메일박스를 기다리므로 방 워커 풀과 따로 둔다)
+    private final ExecutorService routers = Executors.newCachedThreadPool(RoomManager.namedThreads("cluster-router-"));
+
+    private final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor(
+            RoomManager.namedThreads("cluster-timer-"));
+
+    public ClusterRouter(ClusterTransport transport, RoomManager rooms, MySocketHandler handler) {
+        this.transport = transport;
+        this.rooms = rooms;
+        this.handler = handler;
+        this.self = transport.localNodeId();
+        handler.setCluster(this);
+    }
+
+    public void start() throws IOException {
+        transport.start(this);
+        timers.scheduleAtFixedRate(this::sweepRoutes, ROUTE_SWEEP_INTERVAL, ROUTE_SWEEP_INTERVAL,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        transport.close();
+        timers.shutdownNow();
+        routers.shutdown();
+    }
+
+    // GET /cluster/status
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("node", self);
+        map.put("liveNodes", transport.liveNodes());
+        Map<String, Object> docs = new TreeMap<>();
+        routes.forEach((docId, route) -> {
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("owner", route.owner);
+            state.put("host", route.host.name());
+            state.put("localSessions", route.locals.size());
+            state.put("remoteMembers", route.remotes.size());
+            docs.put(docId, state);
+        });
+        map.put("docs", docs);
+        return map;
+    }
+
+    // rendezvous hashing 점수: 노드가 빠지면 그 노드가 맡던 문서만 다른 노드로 옮겨 간다
+    static long score(String node, String docId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : (node + "/" + docId).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    // 이 노드와 살아 있는 노드 중 점수가 가장 높은 노드
+    String ownerOf(String docId) {
+        String best = self;
+        long bestScore = score(self, docId);
+        for (String node : transport.liveNodes()) {
+            long score = score(node, docId);
+            if (score > bestScore) {
+                best = node;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    boolean isLive(String node) {
+        return transport.isLive(node);
+    }
+
+    // 문서의 경로 메일박스에 작업을 넣는다 (경로가 없으면 만든다)
+    // compute 안에서 넣으므로 빈 경로를 지우는 retireIfUnused 와 엇갈려 지운 경로에 작업이 남지 않는다.
+    private void submit(String docId, Consumer<Route> action) {
+        routes.compute(docId, (id, existing) -> {
+            Route route = existing != null ? existing : new Route(id);
+            route.mailbox.submit(() -> {
+                action.accept(route);
+                retireIfUnused(route);
+            });
+            return route;
+        });
+    }
+
+    // 이 노드가 맡았지만 멤버가 없고 방도 내보낸(RoomManager 유휴 정리) 문서는 맡기를 그만둔다
+    // 경로는 retireIfUnused 가 지우고, 다시 들어오면 claim 부터 새로 한다.
+    private void sweepRoutes() {
+        for (String docId : routes.keySet()) {
+            submit(docId, route -> {
+                if (route.host == HostState.HOSTING && route.locals.isEmpty() && route.remotes.isEmpty()
+                        && !rooms.isLoaded(docId)) {
+                    route.host = HostState.NONE;
+                }
+            });
+        }
+    }
+
+    // 경로 메일박스에서 부른다: 쓰는 곳이 없고 뒤에 밀린 작업도 없으면 맵에서 뺀다
+    private void retireIfUnused(Route route) {
+        if (!route.isUnused()) return;
+        routes.computeIfPresent(route.docId, (id, r) -> r == route && r.mailbox.getDepth() == 0 ? null : r);
+    }
+
+    // ---------------------------------------------------------------------
+    // 이 노드의 웹소켓 세션 (MySocketHandler 가 Tomcat 스레드에서 부른다)
+    // ---------------------------------------------------------------------
+
+    void connect(WebSocketSession session, String docId, String userId, OutboundQueue out) {
+        LocalSession local = new LocalSession(docId, userId, session, out);
+        session.getAttributes().put(LOCAL_ATTRIBUTE, local);
+        submit(docId, route -> {
+            if (route.host != HostState.NONE) {
+                route.owner = self;
+            } else if (route.locals.isEmpty() || route.owner == null) {
+                route.owner = ownerOf(docId);
+            }
+            route.locals.put(session.getId(), local);
+            joinOwner(route, local);
+        });
+    }
+
+    // payload: 텍스트 메시지는 String, 바이너리 메시지는 byte[] (Tomcat 이 버퍼를 다시 쓰므로 복사본)
+    void receive(WebSocketSession session, Object payload) {
+        LocalSession local = (LocalSession) session.getAttributes().get(LOCAL_ATTRIBUTE);
+        if (local == null) return;
+        submit(local.docId, route -> {
+            if (route.locals.get(session.getId()) == local) {
+                routeEvent(route, Event.in(self, session.getId(), payload));
+            }
+        });
+    }
+
+    void disconnect(WebSocketSession session) {
+        LocalSession local = (LocalSession) session.getAttributes().get(LOCAL_ATTRIBUTE);
+        if (local == null) return;
+        submit(local.docId, route -> {
+            if (!route.locals.remove(session.getId(), local)) return;
+            if (!self.equals(route.owner)) {
+                transport.send(route.owner, Event.leave(self, session.getId()).toJson(route.docId));
+            } else if (local.room != null) {
+                handler.leaveRoom(local.room, local.userId, session);
+            }
+            // 이 노드가 방을 가져오는 중이면 미뤄 둔 이벤트는 세션이 없어 그냥 지나간다
+        });
+    }
+
+    // 주인 노드의 방에 (다시) 들어간다: 들어가면 init 부터 새로 받는다
+    private void joinOwner(Route route, LocalSession local) {
+        local.room = null;
+        local.attached = false;
+        String sid = local.session.getId();
+        // 다른 노드의 방이면 송신 큐가 넘쳤을 때 그 노드에 sync 를 요청한다 (이 노드의 방이면 addMember 가 바꿔 둔다)
+        local.out.setResyncHandler(() -> submit(route.docId, current -> {
+            if (current.locals.get(sid) == local) {
+                routeEvent(current, Event.in(self, sid, SYNC_REQUEST));
+            }
+        }));
+        routeEvent(route, Event.join(self, local));
+    }
+
+    private void routeEvent(Route route, Event event) {
+        if (self.equals(route.owner)) {
+            host(route, event);
+        } else {
+            // 보내지 못했으면(주인이 막 떠났으면) onNodeDown 에서 새 주인에게 다시 들어간다
+            transport.send(route.owner, event.toJson(route.docId));
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 방을 맡은 노드
+    // ---------------------------------------------------------------------
+
+    private void host(Route route, Event event) {
+        switch (route.host) {
+            case HOSTING -> apply(route, event);
+            case CLAIMING -> route.pending.add(event);
+            case NONE -> {
+                // 방을 여는 것은 입장뿐이다 (방을 넘긴 뒤 늦게 도착한 메시지와 퇴장은 버린다)
+                if (event.type.equals("join")) {
+                    route.pending.add(event);
+                    startClaim(route);
+                }
+            }
+        }
+    }
+
+    private void apply(Route route, Event event) {
+        boolean local = self.equals(event.from);
+        String key = event.from + ":" + event.sid;
+        switch (event.type) {
+            case "join" -> {
+                if (local) {
+                    LocalSession session = route.locals.get(event.sid);
+                    if (session == null) return;
+                    DocumentRoom room = handler.joinRoom(route.docId, session.userId, session.out);
+                    if (room == null) {
+                        closeQuietly(session.session, MySocketHandler.duplicateUser(session.userId));
+                        return;
+                    }
+                    session.room = room;
+                    return;
+                }
+                RemoteMember old = route.remotes.remove(key);
+                if (old != null) {
+                    leaveRemote(old);
+                }
+                RelayedSession session = new RelayedSession(this, event.from, route.docId, event.sid,
+                        URI.create(event.uri));
+                OutboundQueue out = rooms.newRelayedQueue(session);
+                out.setBinaryOps(event.binaryOps);
+                DocumentRoom room = handler.joinRoom(route.docId, event.userId, out);
+                if (room == null) {
+                    session.close(MySocketHandler.duplicateUser(event.userId));
+                    return;
+                }
+                route.remotes.put(key, new RemoteMember(event.userId, out, room, session));
+            }
+            case "in" -> {
+                if (local) {
+                    LocalSession session = route.locals.get(event.sid);
+                    if (session != null && session.room != null) {
+                        receive(session.room, session.userId, session.out, event.payload);
+                    }
+                    return;
+                }
+                RemoteMember member = route.remotes.get(key);
+                if (member != null) {
+                    receive(member.room, member.userId, member.out, event.payload);
+                }
+            }
+            case "leave" -> {
+                RemoteMember member = route.remotes.remove(key);
+                if (member != null) {
+                    leaveRemote(member);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void receive(DocumentRoom room, String userId, OutboundQueue out, Object payload) {
+        if (payload instanceof String text) {
+            handler.receiveText(room, userId, out, text);
+        } else {
+            handler.receiveBinary(room, userId, out, ByteBuffer.wrap((byte[]) payload));
+        }
+    }
+
+    private void leaveRemote(RemoteMember member) {
+        member.session.detach();
+        member.out.close();
+        handler.leaveRoom(member.room, member.userId, member.session);
+    }
+
+    // 다른 노드들에 방을 가져간다고 알리고, 모두 답하거나(released) 시간이 지나면 방을 연다
+    private void startClaim(Route route) {
+        route.host = HostState.CLAIMING;
+        route.waiting.clear();
+        route.waiting.addAll(transport.liveNodes());
+        if (route.waiting.isEmpty()) {
+            finishClaim(route);
+            return;
+        }
+        for (String node : route.waiting) {
+            transport.send(node, message("claim", route.docId));
+        }
+        route.claimTimeout = timers.schedule(() -> submit(route.docId, current -> {
+            if (current == route && route.host == HostState.CLAIMING) {
+                log.warn("방 {} 인수 응답 없음: {}", route.docId, route.waiting);
+                finishClaim(route);
+            }
+        }), CLAIM_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    private void finishClaim(Route route) {
+        route.host = HostState.HOSTING;
+        route.waiting.clear();
+        if (route.claimTimeout != null) {
+            route.claimTimeout.cancel(false);
+            route.claimTimeout = null;
+        }
+        List<Event> pending = new ArrayList<>(route.pending);
+        route.pending.clear();
+        for (Event event : pending) {
+            apply(route, event);
+        }
+        route.hostWaiters.forEach(waiter -> waiter.complete(null));
+        route.hostWaiters.clear();
+    }
+
+    // 동시에 방을 가져가려던 다른 노드(winner)에게 양보한다: 미뤄 둔 이벤트를 그 노드로 보낸다
+    private void abortClaim(Route route, String winner) {
+        route.host = HostState.NONE;
+        route.waiting.clear();
+        if (route.claimTimeout != null) {
+            route.claimTimeout.cancel(false);
+            route.claimTimeout = null;
+        }
+        if (self.equals(route.owner)) {
+            route.owner = winner;
+        }
+        Set<String> moved = new HashSet<>();
+        for (Event event : route.pending) {
+            if (self.equals(event.from)) {
+                transport.send(winner, event.toJson(route.docId));
+            } else if (moved.add(event.from)) {
+                sendMoved(event.from, route.docId, winner);
+            }
+        }
+        route.pending.clear();
+        IOException hostedElsewhere = hostedElsewhere(route.docId, winner);
+        route.hostWaiters.forEach(waiter -> waiter.completeExceptionally(hostedElsewhere));
+        route.hostWaiters.clear();
+    }
+
+    private void onClaim(Route route, String from) {
+        switch (route.host) {
+            case HOSTING -> release(route, from);
+            case CLAIMING -> {
+                // 둘 다 가져가려 하면 점수가 높은 노드가 가진다
+                if (score(from, route.docId) <= score(self, route.docId)) {
+                    transport.send(from, message("denied", route.docId));
+                    return;
+                }
+                abortClaim(route, from);
+            }
+            case NONE -> {
+                // 맡기를 그만둔 뒤 /save, /load 로 다시 연 방이 남아 있을 수 있다
+                try {
+                    rooms.release(route.docId);
+                } catch (IOException e) {
+                    log.warn("방 {} 내보내기 실패", route.docId, e);
+                }
+            }
+        }
+        transport.send(from, message("released", route.docId));
+    }
+
+    // 멤버들을 방에서 떼어 낸 뒤 방을 닫고(편집 기록 스냅샷) 새 주인(to)에게 보낸다
+    // 먼저 떼어 내므로 그 사이 이 노드 세션의 이벤트가 닫히는 방으로 가지 않는다 (다른 노드 세션은 moved 뒤에 다시 들어온다)
+    private void release(Route route, String to) {
+        route.host = HostState.NONE;
+        Set<String> nodes = new HashSet<>();
+        for (RemoteMember member : route.remotes.values()) {
+            member.session.detach();
+            member.out.close();
+            nodes.add(member.session.getNode());
+        }
+        route.remotes.clear();
+        for (LocalSession local : route.locals.values()) {
+            local.room = null;
+        }
+        try {
+            rooms.release(route.docId);
+        } catch (IOException e) {
+            log.warn("방 {} 내보내기 실패", route.docId, e);
+        }
+        for (String node : nodes) {
+            sendMoved(node, route.docId, to);
+        }
+        if (self.equals(route.owner)) {
+            moveLocals(route, to);
+        }
+        log.info("방 {} 을 노드 {} 에 넘겼습니다.", route.docId, to);
+    }
+
+    private void moveLocals(Route route, String owner) {
+        route.owner = owner;
+        for (LocalSession local : route.locals.values()) {
+            joinOwner(route, local);
+        }
+    }
+
+    private void sendMoved(String node, String docId, String owner) {
+        JSONObject moved = message("moved", docId);
+        moved.put("owner", owner);
+        transport.send(node, moved);
+    }
+
+    // /save, /load 전에 부른다: 이 노드가 방을 맡고 있거나 맡을 차례면 맡을 때까지 기다리고,
+    // 다른 노드가 맡은 문서면 IOException (그 노드로 요청해야 한다)
+    public void ensureHosted(String docId) throws IOException {
+        CompletableFuture<Void> hosted = new CompletableFuture<>();
+        submit(docId, route -> {
+            switch (route.host) {
+                case HOSTING -> hosted.complete(null);
+                case CLAIMING -> route.hostWaiters.add(hosted);
+                case NONE -> {
+                    String owner = route.locals.isEmpty() || route.owner == null ? ownerOf(docId) : route.owner;
+                    if (!self.equals(owner)) {
+                        hosted.completeExceptionally(hostedElsewhere(docId, owner));
+                        return;
+                    }
+                    route.hostWaiters.add(hosted);
+                    startClaim(route);
+                }
+            }
+        });
+        try {
+            hosted.get(HOST_WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("방 인수 대기 중 인터럽트: " + docId, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IOException("방 인수 시간 초과: " + docId, e);
+        }
+    }
+
+    private static IOException hostedElsewhere(String docId, String owner) {
+        return new IOException("문서 " + docId + " 은(는) 노드 " + owner + " 가 맡고 있습니다");
+    }
+
+    // ---------------------------------------------------------------------
+    // 주인 노드 → 세션이 붙은 노드 (RelayedSession, RemoteFanout 이 방 메일박스 스레드에서 부른다)
+    // ---------------------------------------------------------------------
+
+    void relayOut(RelayedSession session, WebSocketMessage<?> frame) {
+        JSONObject msg = message("out", session.getDocId());
+        msg.put("sid", session.getSessionId());
+        putFrame(msg, frame);
+        transport.send(session.getNode(), msg);
+    }
+
+    void relayAttached(RelayedSession session) {
+        JSONObject msg = message("attached", session.getDocId());
+        msg.put("sid", session.getSessionId());
+        transport.send(session.getNode(), msg);
+    }
+
+    void relayClose(RelayedSession session, CloseStatus status) {
+        JSONObject msg = message("close", session.getDocId());
+        msg.put("sid", session.getSessionId());
+        msg.put("code", status.getCode());
+        msg.put("reason", status.getReason() != null ? status.getReason() : "");
+        transport.send(session.getNode(), msg);
+    }
+
+    // except: 브로드캐스트에서 뺄 세션 (그 노드의 세션일 때만 함께 보낸다)
+    void relayFanout(String docId, String node, WebSocketMessage<?> frame, String exceptSid) {
+        JSONObject msg = message("fanout", docId);
+        putFrame(msg, frame);
+        if (exceptSid != null) {
+            msg.put("except", exceptSid);
+        }
+        transport.send(node, msg);
+    }
+
+    // 확정 연산은 연산 그대로 보내고, 받은 노드가 세션마다 고른 형식(JSON / BinaryOps)으로 만든다
+    void relayOperations(String docId, String node, List<TextOperation> ops, long rev, String exceptSid) {
+        JSONObject msg = message("ops", docId);
+        JSONArray array = new JSONArray();
+        for (TextOperation op : ops) {
+            array.put(OperationFrames.operationJson(op));
+        }
+        msg.put("ops", array);
+        msg.put("rev", rev);
+        if (exceptSid != null) {
+            msg.put("except", exceptSid);
+        }
+        transport.send(node, msg);
+    }
+
+    private static void putFrame(JSONObject msg, WebSocketMessage<?> frame) {
+        if (frame instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload().duplicate();
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            msg.put("data", Base64.getEncoder().encodeToString(bytes));
+        } else if (frame instanceof TextMessage text) {
+            msg.put("text", text.getPayload());
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 다른 노드에서 온 메시지 (전송 스레드 → 문서의 경로 메일박스)
+    // ---------------------------------------------------------------------
+
+    @Override
+    public void onMessage(String fromNode, JSONObject message) {
+        submit(message.getString("doc"), route -> handleMessage(route, fromNode, message));
+    }
+
+    private void handleMessage(Route route, String from, JSONObject message) {
+        String type = message.getString("t");
+        switch (type) {
+            case "join", "in", "leave" -> host(route, Event.fromJson(from, type, message));
+            case "claim" -> onClaim(route, from);
+            case "released" -> {
+                if (route.host == HostState.CLAIMING && route.waiting.remove(from) && route.waiting.isEmpty()) {
+                    finishClaim(route);
+                }
+            }
+            case "denied" -> {
+                if (route.host == HostState.CLAIMING) {
+                    abortClaim(route, from);
+                }
+            }
+            case "moved" -> {
+                String owner = message.getString("owner");
+                if (route.host != HostState.NONE && !self.equals(owner)) {
+                    // 이 노드가 이미 가져오는 중이거나 맡고 있으면 무시한다 (claim 으로 정리된다)
+                    return;
+                }
+                moveLocals(route, owner);
+            }
+            default -> deliver(route, from, type, message);
+        }
+    }
+
+    // 주인 노드가 보낸 프레임을 이 노드 세션에 전한다 (지금 주인이 아닌 노드가 보낸 것은 버린다)
+    private void deliver(Route route, String from, String type, JSONObject message) {
+        if (!from.equals(route.owner)) return;
+        switch (type) {
+            case "out" -> {
+                LocalSession local = route.locals.get(message.getString("sid"));
+                if (local != null) {
+                    local.out.send(frame(message));
+                }
+            }
+            case "attached" -> {
+                LocalSession local = route.locals.get(message.getString("sid"));
+                if (local != null) {
+                    local.attached = true;
+                }
+            }
+            case "close" -> {
+                LocalSession local = route.locals.get(message.getString("sid"));
+                if (local != null) {
+                    closeQuietly(local.session, new CloseStatus(message.getInt("code"), message.optString("reason")));
+                }
+            }
+            case "fanout" -> {
+                String except = message.optString("except", null);
+                WebSocketMessage<?> frame = frame(message);
+                byte[] binary = frame instanceof BinaryMessage ? ((BinaryMessage) frame).getPayload().array() : null;
+                for (LocalSession local : route.locals.values()) {
+                    if (local.attached && !local.session.getId().equals(except)) {
+                        local.out.send(binary != null ? SharedFrame.binaryFrame(binary) : frame);
+                    }
+                }
+            }
+            case "ops" -> {
+                JSONArray array = message.getJSONArray("ops");
+                List<TextOperation> ops = new ArrayList<>(array.length());
+                for (int i = 0; i < array.length(); i++) {
+                    JSONObject op = array.getJSONObject(i);
+                    ops.add(MySocketHandler.parseOperation(op.getString("type"), op));
+                }
+                OperationFrames frames = new OperationFrames(ops, message.getLong("rev"));
+                String except = message.optString("except", null);
+                for (LocalSession local : route.locals.values()) {
+                    if (local.attached && !local.session.getId().equals(except)) {
+                        local.out.send(frames.frameFor(local.out));
+                    }
+                }
+            }
+            default -> log.warn("알 수 없는 클러스터 메시지: {}", type);
+        }
+    }
+
+    private static WebSocketMessage<?> frame(JSONObject message) {
+        if (message.has("data")) {
+            return new BinaryMessage(Base64.getDecoder().decode(message.getString("data")));
+        }
+        return OutboundQueue.textFrame(message.getString("text"));
+    }
+
+    @Override
+    public void onNodeUp(String nodeId) {
+        log.info("노드 연결: {}", nodeId);
+    }
+
+    // 떠난 노드의 세션은 방에서 빼고, 그 노드가 맡던 방의 이 노드 세션은 새 주인에게 다시 들어간다
+    @Override
+    public void onNodeDown(String nodeId) {
+        log.warn("노드 끊김: {}", nodeId);
+        for (String docId : routes.keySet()) {
+            submit(docId, route -> {
+                if (route.host == HostState.CLAIMING && route.waiting.remove(nodeId) && route.waiting.isEmpty()) {
+                    finishClaim(route);
+                }
+                route.remotes.values().removeIf(member -> {
+                    if (!member.session.getNode().equals(nodeId)) return false;
+                    leaveRemote(member);
+                    return true;
+                });
+                if (nodeId.equals(route.owner) && !route.locals.isEmpty()) {
+                    moveLocals(route, ownerOf(route.docId));
+                }
+            });
+        }
+    }
+
+    private static JSONObject message(String type, String docId) {
+        JSONObject msg = new JSONObject();
+        msg.put("t", type);
+        msg.put("doc", docId);
+        return msg;
+    }
+
+    private static void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.warn("세션 {} 닫기 실패", session.getId(), e);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 상태
+    // ---------------------------------------------------------------------
+
+    // 문서 하나의 경로 (이 노드 세션들이 가는 주인, 이 노드가 맡은 방의 다른 노드 멤버)
+    private final class Route {
+        final String docId;
+        final RoomMailbox mailbox = new RoomMailbox(routers, new RoomStats());
+
+        // 이 노드 세션들의 이벤트를 보내는 노드 (이 노드일 수도 있다)
+        String owner;
+        final Map<String, LocalSession> locals = new LinkedHashMap<>();
+
+        // 이 노드가 방을 맡은 상태, 가져오는 중이면 답을 기다리는 노드와 미뤄 둔 이벤트
+        HostState host = HostState.NONE;
+        final Set<String> waiting = new TreeSet<>();
+        final List<Event> pending = new ArrayList<>();
+        ScheduledFuture<?> claimTimeout;
+        final List<CompletableFuture<Void>> hostWaiters = new ArrayList<>();
+
+        // 이 노드가 맡은 방에 다른 노드 세션으로 들어온 멤버 (노드:세션 ID →)
+        final Map<String, RemoteMember> remotes = new HashMap<>();
+
+        Route(String docId) {
+            this.docId = docId;
+        }
+
+        boolean isUnused() {
+            return host == HostState.NONE && locals.isEmpty() && remotes.isEmpty() && pending.isEmpty()
+                    && hostWaiters.isEmpty();
+        }
+    }
+
+    // 이 노드에 붙은 웹소켓 세션
+    private static final class LocalSession {
+        final String docId;
+        final String userId;
+        final WebSocketSession session;
+        final OutboundQueue out;
+
+        // 이 노드가 맡은 방에 들어가 있으면 그 방
+        DocumentRoom room;
+
+        // 다른 노드의 방에 들어가 브로드캐스트를 받기 시작했는지 (그 전 것은 곧 받을 init 에 들어 있다)
+        boolean attached;
+
+        LocalSession(String docId, String userId, WebSocketSession session, OutboundQueue out) {
+            this.docId = docId;
+            this.userId = userId;
+            this.session = session;
+            this.out = out;
+        }
+    }
+
+    private record RemoteMember(String userId, OutboundQueue out, DocumentRoom room, RelayedSession session) {
+    }
+
+    // 방을 맡은 노드가 처리할 세션 이벤트 (from: 세션이 붙은 노드, payload: 텍스트 String 또는 바이너리 byte[])
+    private record Event(String type, String from, String sid, String userId, boolean binaryOps, String uri,
+                         Object payload) {
+
+        static Event join(String from, LocalSession local) {
+            return new Event("join", from, local.session.getId(), local.userId, local.out.isBinaryOps(),
+                    String.valueOf(local.session.getUri()), null);
+        }
+
+        static Event in(String from, String sid, Object payload) {
+            return new Event("in", from, sid, null, false, null, payload);
+        }
+
+        static Event leave(String from, String sid) {
+            return new Event("leave", from, sid, null, false, null, null);
+        }
+
+        JSONObject toJson(String docId) {
+            JSONObject msg = message(type, docId);
+            msg.put("sid", sid);
+            if (userId != null) {
+                msg.put("user", userId);
+                msg.put("binaryOps", binaryOps);
+                msg.put("uri", uri);
+            }
+            if (payload instanceof String text) {
+                msg.put("text", text);
+            } else if (payload instanceof byte[] bytes) {
+                msg.put("data", Base64.getEncoder().encodeToString(bytes));
+            }
+            return msg;
+        }
+
+        static Event fromJson(String from, String type, JSONObject msg) {
+            Object payload = msg.has("data") ? Base64.getDecoder().decode(msg.getString("data")) : msg.optString("text", null);
+            return new Event(type, from, msg.getString("sid"), msg.optString("user", null),
+                    msg.optBoolean("binaryOps"), msg.optString("uri", null), payload);
+        }
+    }
+}
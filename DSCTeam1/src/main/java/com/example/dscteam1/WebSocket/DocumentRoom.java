@@ -0,0 +1,639 @@
+package com.example.dscteam1.WebSocket;
+
+import com.example.dscteam1.Document.RopeDocument;
+import com.example.dscteam1.Document.TextDocument;
+import com.example.dscteam1.Document.TextOperation;
+import com.example.dscteam1.Persistence.EditLog;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+// 문서 하나(방)의 편집 상태
+// 텍스트, 라인 락, 접속자 목록을 방마다 따로 가지며 브로드캐스트도 방 안의 멤버에게만 보낸다.
+// 텍스트와 라인 락은 방의 메일박스(submit/call) 안에서만 읽고 쓴다.
+public class DocumentRoom {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentRoom.class);
+
+    // 락 타임아웃 (30초)
+    static final long LOCK_TIMEOUT = 30000;
+
+    // 변환용으로 보관하는 최근 확정 연산 수 (이보다 오래된 리비전 기준 연산은 init 으로 재동기화)
+    static final int OP_LOG_LIMIT = 1024;
+
+    // requestLines 응답 하나의 최대 문자 수
+    static final int MAX_LINES_CHARS = 1024 * 1024;
+
+    private final String docId;
+
+    // 이 방에 연결된 클라이언트들 아이디 → 송신 큐(세션) 매핑
+    private final Map<String, OutboundQueue> members = new ConcurrentHashMap<>();
+
+    // 공유 텍스트 내용 (로프 기반 문서 엔진)
+    private TextDocument sharedText;
+
+    // 문서 리비전 = 지금까지 확정된 편집 연산 수
+    // 클라이언트는 자기가 본 리비전(rev)을 연산에 붙여 보내고, 서버는 그 뒤에 확정된 연산들에 대해 변환한다
+    private long revision;
+
+    // 최근 확정 연산 (리비전 revision - opLog.size() + 1 ~ revision, 오래된 것부터)
+    private final ArrayDeque<TextOperation> opLog = new ArrayDeque<>();
+
+    // 확정된 연산을 디스크에 남기는 쓰기 전 기록 (null 이면 메모리에만 둔다: 테스트, 벤치마크)
+    private final EditLog editLog;
+
+    // 라인별 편집 권한 (라인 번호 <-> 클라이언트 ID, 만료 시각 순 큐)
+    private final LineLockManager locks = new LineLockManager(LOCK_TIMEOUT);
+
+    // 락 변경 순서 번호: 락이 바뀔 때마다 1씩 올리고 lockAcquired/lockReleased 에 실어 보낸다
+    // 클라이언트는 번호가 건너뛰면 requestLockSnapshot 으로 전체 스냅샷을 다시 받는다
+    private long lockSeq;
+
+    // 직렬화해 둔 lineOwnership 스냅샷 (락이 바뀌면 null 로 비운다)
+    private SharedFrame lineOwnershipFrame;
+
+    // 이 방의 변경을 순서대로 적용하는 단일 작성자 메일박스
+    private final RoomStats stats = new RoomStats();
+    private final RoomMailbox mailbox;
+
+    private final EditorMetrics metrics;
+
+    private final AtomicReference<TokenBucket> inboundBudget = new AtomicReference<>();
+
+    // 디스크로 내보낸 방 (메일박스 스레드에서만 읽고 쓴다): 그 뒤에 들어온 작업은 버린다
+    private boolean closed;
+
+    // 마지막으로 멤버가 드나든 시각 (유휴 방 정리용)
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    public DocumentRoom(String docId, String initialText, Executor writers) {
+        this(docId, new RopeDocument(initialText), 0, null, writers, EditorMetrics.NOOP);
+    }
+
+    // 편집 기록에서 되살린 텍스트와 리비전으로 시작하는 방
+    public DocumentRoom(String docId, TextDocument text, long revision, EditLog editLog, Executor writers,
+                        EditorMetrics metrics) {
+        this.docId = docId;
+        this.sharedText = text;
+        this.revision = revision;
+        this.editLog = editLog;
+        this.mailbox = new RoomMailbox(writers, stats);
+        this.metrics = metrics;
+    }
+
+    public String getDocId() {
+        return docId;
+    }
+
+    public TextDocument getText() {
+        return sharedText;
+    }
+
+    public RoomStats getStats() {
+        return stats;
+    }
+
+    public EditLog getEditLog() {
+        return editLog;
+    }
+
+    // 방 전체 수신 토큰 버킷 (여러 세션의 수신 스레드가 함께 쓴다, 처음 쓸 때 만든다)
+    TokenBucket getInboundBudget(double perSecond, int burst) {
+        TokenBucket budget = inboundBudget.get();
+        if (budget == null) {
+            inboundBudget.compareAndSet(null, new TokenBucket(perSecond, burst));
+            budget = inboundBudget.get();
+        }
+        return budget;
+    }
+
+    EditorMetrics getMetrics() {
+        return metrics;
+    }
+
+    // ---------------------------------------------------------------------
+    // 메일박스
+    // ---------------------------------------------------------------------
+
+    // 방 상태를 건드리는 작업은 모두 여기로 넣는다 (넣은 순서대로 한 스레드에서 실행)
+    public void submit(Runnable action) {
+        mailbox.submit(() -> {
+            // 클러스터에서 멤버가 남은 채로 넘긴 방에 늦게 도착한 편집, 락 만료 등
+            if (!closed) {
+                action.run();
+            }
+        });
+    }
+
+    public <T> CompletableFuture<T> call(Supplier<T> supplier) {
+        return mailbox.call(supplier);
+    }
+
+    public int getPendingTasks() {
+        return mailbox.getDepth();
+    }
+
+    // ---------------------------------------------------------------------
+    // 멤버 관리
+    // ---------------------------------------------------------------------
+
+    // 같은 아이디가 이미 접속해 있으면 false
+    boolean addMember(String userId, OutboundQueue out) {
+        lastActivity = System.currentTimeMillis();
+        if (members.putIfAbsent(userId, out) != null) {
+            return false;
+        }
+        // 송신 큐가 넘치면(RESYNC 정책) 메일박스 안에서 전체 텍스트를 다시 보낸다
+        // 넘치게 한 send 는 Tomcat 수신 스레드(오류 / 제한 알림)에서도 불리므로 바로 부르지 않고 메일박스에 넣는다.
+        out.setResyncHandler(() -> submit(() -> resync(out)));
+        return true;
+    }
+
+    // 등록된(살아있는) 세션일 때만 제거하고 true
+    boolean removeMember(String userId, WebSocketSession session) {
+        lastActivity = System.currentTimeMillis();
+        OutboundQueue registered = members.get(userId);
+        if (registered != null && registered.getSession().getId().equals(session.getId())) {
+            return members.remove(userId, registered);
+        }
+        return false;
+    }
+
+    boolean isIdle(long now, long idleTimeout) {
+        return members.isEmpty() && now - lastActivity > idleTimeout;
+    }
+
+    public int getMemberCount() {
+        return members.size();
+    }
+
+    IntStream outboundDepths() {
+        return members.values().stream().mapToInt(OutboundQueue::getDepth);
+    }
+
+    // 멤버별 송신 큐 상태 (GET /rooms/stats)
+    public Map<String, Object> getOutboundStats() {
+        Map<String, Object> map = new TreeMap<>();
+        members.forEach((userId, out) -> map.put(userId, out.toMap()));
+        return map;
+    }
+
+    // ---------------------------------------------------------------------
+    // 브로드캐스트 (이 방의 멤버에게만)
+    // ---------------------------------------------------------------------
+
+    // 각 멤버의 송신 큐에 넣기만 하고 바로 돌아온다 (실제 전송은 세션별 송신 워커)
+    // 메시지는 한 번만 직렬화하고, 같은 TextMessage 를 모든 멤버가 공유한다 (불변이라 공유해도 안전)
+    void broadcast(String message) {
+        broadcast(OutboundQueue.textFrame(message), null);
+    }
+
+    void broadcastTextChange(JSONObject change, OutboundQueue sender) {
+        broadcast(OutboundQueue.textFrame(change.toString()), sender);
+    }
+
+    // 확정된 연산을 add / delete / edit 메시지로 보낸 사람을 뺀 멤버에게 전송 (rev: 확정된 리비전)
+    void broadcastOperation(TextOperation op, long rev, OutboundQueue sender) {
+        broadcastOperations(List.of(op), rev, sender);
+    }
+
+    // 한 번에 확정한 연산들을 batch 메시지 하나로 보낸다 (rev: 마지막 연산의 리비전, 연산마다 1씩)
+    void broadcastBatch(List<TextOperation> ops, long rev, OutboundQueue sender) {
+        broadcastOperations(ops, rev, sender);
+    }
+
+    // 멤버가 고른 형식(JSON / BinaryOps)마다 한 번씩만 직렬화한다
+    // 다른 노드에 붙은 멤버에게는 노드마다 연산을 한 번만 보내고 그 노드가 형식을 맞춰 나눠 준다 (클러스터 모드)
+    private void broadcastOperations(List<TextOperation> ops, long rev, OutboundQueue sender) {
+        long started = System.nanoTime();
+        OperationFrames frames = new OperationFrames(ops, rev);
+        RemoteFanout remote = null;
+        for (OutboundQueue out : members.values()) {
+            if (out == sender) {
+                continue;
+            }
+            if (out.getSession() instanceof RelayedSession relayed) {
+                remote = RemoteFanout.add(remote, relayed);
+            } else {
+                out.send(frames.frameFor(out));
+            }
+        }
+        if (remote != null) {
+            remote.sendOperations(ops, rev, sender);
+        }
+        metrics.operationsBroadcast(System.nanoTime() - started);
+    }
+
+    // except 를 제외한 모든 멤버에게 같은 프레임 전송 (다른 노드의 멤버에게는 노드마다 한 번)
+    void broadcast(TextMessage frame, OutboundQueue except) {
+        broadcast(new SharedFrame(frame), except);
+    }
+
+    // 압축해서 받는 멤버가 있으면 압축도 한 번만 한다
+    private void broadcast(SharedFrame frame, OutboundQueue except) {
+        long started = System.nanoTime();
+        RemoteFanout remote = null;
+        for (OutboundQueue out : members.values()) {
+            if (out == except) {
+                continue;
+            }
+            if (out.getSession() instanceof RelayedSession relayed) {
+                remote = RemoteFanout.add(remote, relayed);
+            } else {
+                out.send(frame.frameFor(out));
+            }
+        }
+        if (remote != null) {
+            remote.send(frame.getText(), except);
+        }
+        metrics.messageBroadcast(System.nanoTime() - started);
+    }
+
+    // 전체 락 스냅샷은 접속, 동기화 요청, 순서 번호 누락, 재동기화, 파일 불러오기 때만 보낸다
+    void broadcastLineOwnership() {
+        broadcast(lineOwnershipMessage(), null);
+    }
+
+    void sendLineOwnership(OutboundQueue out) {
+        out.send(lineOwnershipMessage().frameFor(out));
+    }
+
+    // 락이 바뀌지 않았으면 직렬화(압축)해 둔 메시지를 다시 쓴다
+    private SharedFrame lineOwnershipMessage() {
+        if (lineOwnershipFrame == null) {
+            JSONObject msg = new JSONObject();
+            msg.put("type", "lineOwnership");
+            msg.put("seq", lockSeq);
+
+            JSONArray leases = new JSONArray();
+            for (LineLockManager.Lease lease : locks.leases()) {
+                leases.put(lockJson(lease));
+            }
+            msg.put("locks", leases);
+            lineOwnershipFrame = new SharedFrame(OutboundQueue.textFrame(msg.toString()));
+        }
+        return lineOwnershipFrame;
+    }
+
+    // 송신 큐가 넘쳐 비워진 멤버에게 현재 상태 전체를 다시 보낸다
+    private void resync(OutboundQueue out) {
+        sendInit(out, true);
+        out.sendForced(lineOwnershipMessage().frameFor(out));
+    }
+
+    void broadcastUserList() {
+        // JSON 배열로 모든 userId를
+        JSONArray arr = new JSONArray();
+        for (String id : members.keySet()) {
+            arr.put(id);
+        }
+        JSONObject msg = new JSONObject();
+        msg.put("type", "userList");
+        msg.put("users", arr);
+
+        broadcast(msg.toString());
+    }
+
+    // 전체 텍스트를 init 메시지로 한 세션에 전송
+    // forced: 송신 큐 한도를 무시 (큐를 비운 뒤 재동기화할 때)
+    // 큰 문서(InitChunks.CHUNK_CHARS 초과)는 initStart + initChunk 로 나눠 보낸다
+    void sendInit(OutboundQueue out, boolean forced) {
+        if (sharedText.length() > InitChunks.CHUNK_CHARS) {
+            InitChunks chunks = new InitChunks(sharedText.snapshot(), revision);
+            if (forced) {
+                out.sendForced(chunks);
+            } else {
+                out.send(chunks);
+            }
+            return;
+        }
+        TextMessage message = initMessage();
+        if (forced) {
+            out.sendForced(message);
+        } else {
+            out.send(message);
+        }
+    }
+
+    private TextMessage initMessage() {
+        JSONObject init = new JSONObject();
+        init.put("type", "init");
+        init.put("text", sharedText.toString());
+        init.put("rev", revision);
+        return OutboundQueue.textFrame(init.toString());
+    }
+
+    // 텍스트 전체를 교체하고 모든 멤버에게 init 전송 (파일 불러오기)
+    // 편집 기록이 있으면 교체한 텍스트를 스냅샷으로 먼저 남기고, 실패하면 교체하지 않는다.
+    void replaceText(TextDocument text) throws IOException {
+        if (closed) {
+            throw new IOException("내보낸 방입니다: " + docId);
+        }
+        // 이전 리비전 기준 연산은 더 이상 변환할 수 없으므로 로그를 비운다 (그런 연산은 init 으로 재동기화)
+        if (editLog != null) {
+            editLog.replace(revision + 1, text.snapshot());
+        }
+        sharedText = text;
+        revision++;
+        opLog.clear();
+
+        if (sharedText.length() > InitChunks.CHUNK_CHARS) {
+            // 조각은 멤버마다 보낼 차례에 만든다 (사본은 공유)
+            TextDocument snapshot = sharedText.snapshot();
+            for (OutboundQueue out : members.values()) {
+                out.send(new InitChunks(snapshot, revision));
+            }
+        } else {
+            broadcast(initMessage(), null);
+        }
+        broadcastLineOwnership();
+    }
+
+    String snapshotText() {
+        return sharedText.toString();
+    }
+
+    // 지금 텍스트의 사본: 로프 루트만 공유하므로 O(1) 이고, 메일박스 밖에서 천천히 읽어도 된다
+    TextDocument snapshotDocument() {
+        return sharedText.snapshot();
+    }
+
+    // 보이는 부분만 받는 클라이언트용: [fromLine, toLine] 라인들의 텍스트와 시작 오프셋
+    // 한 번에 MAX_LINES_CHARS 글자까지만 보낸다 (넘으면 잘린 끝 라인을 toLine 으로 알려 준다)
+    void sendLines(OutboundQueue out, int fromLine, int toLine) {
+        int lastLine = sharedText.lineCount() - 1;
+        int from = Math.max(0, Math.min(fromLine, lastLine));
+        int to = Math.max(from, Math.min(toLine, lastLine));
+        int start = sharedText.lineStart(from);
+        int end = to < lastLine ? sharedText.lineStart(to + 1) : sharedText.length();
+        if (end - start > MAX_LINES_CHARS) {
+            end = start + MAX_LINES_CHARS;
+            to = sharedText.lineAt(end);
+        }
+
+        JSONObject msg = new JSONObject();
+        msg.put("type", "lines");
+        msg.put("rev", revision);
+        msg.put("fromLine", from);
+        msg.put("toLine", to);
+        msg.put("lineCount", lastLine + 1);
+        msg.put("offset", start);
+        msg.put("text", sharedText.substring(start, end));
+        out.send(msg.toString());
+    }
+
+    // 내보낸 뒤 (메일박스 스레드에서): 멤버를 비우고 더는 바꾸지 않는다
+    void markClosed() {
+        closed = true;
+        members.clear();
+    }
+
+    // 남은 기록을 내리고 현재 텍스트로 스냅샷을 찍은 뒤 편집 기록을 닫는다 (방을 내보낼 때)
+    void closeEditLog() throws IOException {
+        editLog.close(revision, sharedText.snapshot());
+    }
+
+    // 열기만 하고 쓰지 않은 방을 버린다: 스냅샷 없이 편집 기록만 닫는다
+    void discard() {
+        if (editLog == null) return;
+        try {
+            editLog.discard();
+        } catch (IOException e) {
+            log.warn("방 {} 편집 기록 닫기 실패", docId, e);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // 편집 연산 (리비전)
+    // ---------------------------------------------------------------------
+
+    long getRevision() {
+        return revision;
+    }
+
+    // baseRevision 을 보고 만든 연산을 그 뒤에 확정된 연산들에 대해 차례로 변환한다 (확정된 쪽이 우선)
+    // 로그에 남아 있지 않을 만큼 오래된(또는 잘못된) 리비전이면 null
+    TextOperation transformToHead(TextOperation op, long baseRevision) {
+        long missing = revision - baseRevision;
+        if (missing < 0 || missing > opLog.size()) return null;
+
+        Iterator<TextOperation> it = opLog.iterator();
+        for (long skip = opLog.size() - missing; skip > 0; skip--) {
+            it.next();
+        }
+        while (it.hasNext()) {
+            op = op.transform(it.next(), true);
+        }
+        return op;
+    }
+
+    // 같은 리비전에서 차례로 만든 연산들(앞 연산을 적용한 문서가 다음 연산의 기준)을 현재 리비전 기준으로 바꾼다
+    // 연산 하나를 변환할 때마다 그 뒤에 확정된 연산들도 그 연산 뒤로 옮겨 두고 다음 연산에 쓴다
+    // (클라이언트가 받은 연산을 미확정 연산들에 대해 변환하는 것과 같은 순서)
+    List<TextOperation> transformToHead(List<TextOperation> ops, long baseRevision) {
+        long missing = revision - baseRevision;
+        if (missing < 0 || missing > opLog.size()) return null;
+        if (missing == 0) return ops;
+
+        List<TextOperation> concurrent = new ArrayList<>((int) missing);
+        Iterator<TextOperation> it = opLog.descendingIterator();
+        for (long i = 0; i < missing; i++) {
+            concurrent.add(it.next());
+        }
+        Collections.reverse(concurrent);
+
+        List<TextOperation> result = new ArrayList<>(ops.size());
+        for (TextOperation op : ops) {
+            for (int i = 0; i < concurrent.size(); i++) {
+                TextOperation other = concurrent.get(i);
+                concurrent.set(i, other.transform(op, false));
+                op = op.transform(other, true);
+            }
+            result.add(op);
+        }
+        return result;
+    }
+
+    // 권한 확인(firstLockedLine)을 통과한 연산을 적용하고 새 리비전을 돌려준다
+    // 줄 수가 바뀌었으면 락 구간을 같이 옮긴다
+    // 편집 기록에 먼저 넣으므로, 넣지 못하면(닫힌 기록) 텍스트와 리비전은 그대로인 채 예외가 난다.
+    long applyOperation(String userId, TextOperation op) {
+        if (closed) {
+            throw new IllegalStateException("내보낸 방입니다: " + docId);
+        }
+        int fromLine = sharedText.lineAt(op.start());
+        int toLine = sharedText.lineAt(op.end());
+        if (editLog != null) {
+            editLog.append(revision + 1, op);
+        }
+        op.applyTo(sharedText);
+
+        revision++;
+        opLog.addLast(op);
+        if (opLog.size() > OP_LOG_LIMIT) {
+            opLog.removeFirst();
+        }
+        if (editLog != null && editLog.isSnapshotDue()) {
+            editLog.snapshotAsync(revision, sharedText.snapshot());
+        }
+        renewLineLock(userId);
+
+        int lines = countNewlines(op.text());
+        if (locks.shift(fromLine, toLine, lines)) {
+            JSONObject msg = new JSONObject();
+            msg.put("type", "locksShifted");
+            msg.put("seq", nextLockSeq());
+            msg.put("fromLine", fromLine);
+            msg.put("toLine", toLine);
+            msg.put("lines", lines);
+            broadcast(msg.toString());
+        }
+        return revision;
+    }
+
+    private static int countNewlines(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') count++;
+        }
+        return count;
+    }
+
+    // ---------------------------------------------------------------------
+    // 라인 락
+    // ---------------------------------------------------------------------
+
+    // 문서 엔진의 라인 인덱스로 O(log n) 조회 (범위를 벗어난 위치는 양 끝으로 보정)
+    int getLineFromPosition(int position) {
+        int clamped = Math.max(0, Math.min(position, sharedText.length()));
+        return sharedText.lineAt(clamped);
+    }
+
+    String getLineOwner(int lineNumber) {
+        return locks.ownerOf(lineNumber);
+    }
+
+    boolean canUserEditLine(String userId, int lineNumber) {
+        return firstLockedLine(userId, lineNumber, lineNumber) < 0;
+    }
+
+    // [fromLine, toLine] 안에서 다른 사용자가 잡고 있는 첫 라인 (없으면 -1)
+    // 구간 락 트리로 O(log n + k) 에 확인한다 (라인을 하나씩 훑지 않음)
+    int firstLockedLine(String userId, int fromLine, int toLine) {
+        LineLockManager.Lease conflict = locks.firstConflict(userId, fromLine, toLine);
+        if (conflict == null) return -1;
+
+        // 타이머보다 먼저 만료 시각이 지난 락을 만났으면 여기서 바로 만료 처리
+        long now = System.currentTimeMillis();
+        if (locks.isExpired(conflict.getStart(), now)) {
+            expireLocks(now);
+            conflict = locks.firstConflict(userId, fromLine, toLine);
+            if (conflict == null) return -1;
+        }
+        return Math.max(conflict.getStart(), fromLine);
+    }
+
+    // [startLine, endLine] 구간 락을 잡는다 (firstLockedLine 으로 비어 있는지 확인한 뒤 호출)
+    void acquireLineLock(String userId, int startLine, int endLine) {
+        long now = System.currentTimeMillis();
+
+        // 이미 같은 구간을 가졌으면 리스만 연장 (다른 멤버에게 알릴 변화 없음)
+        LineLockManager.Lease current = locks.leaseOf(userId);
+        if (current != null && current.getStart() == startLine && current.getEnd() == endLine) {
+            locks.acquire(userId, startLine, endLine, now);
+            return;
+        }
+
+        // 이전에 편집하던 구간이 있다면 해제
+        if (current != null) {
+            locks.release(userId);
+            broadcastLockReleased(current);
+        }
+
+        // 새 구간 점유
+        locks.acquire(userId, startLine, endLine, now);
+        broadcastLockAcquired(locks.leaseOf(userId));
+    }
+
+    void releaseLineLock(String userId) {
+        LineLockManager.Lease released = locks.release(userId);
+        if (released != null) {
+            broadcastLockReleased(released);
+        }
+    }
+
+    // 편집이 적용될 때마다 그 사용자의 락 리스 연장
+    void renewLineLock(String userId) {
+        locks.renew(userId, System.currentTimeMillis());
+    }
+
+    // 만료 시각이 지난 락이 있는지 (타이머 스레드에서 메일박스에 넣기 전에 확인)
+    boolean hasExpiredLocks(long now) {
+        return locks.getNextDeadline() <= now;
+    }
+
+    // 만료된 락을 모두 풀고, 한 번에 풀린 락들을 locksExpired 메시지 하나로 보낸다
+    void expireLocks(long currentTime) {
+        List<LineLockManager.Lease> expired = locks.expire(currentTime);
+        if (expired.isEmpty()) return;
+        metrics.locksExpired(expired.size());
+
+        JSONArray owners = new JSONArray();
+        for (LineLockManager.Lease lease : expired) {
+            owners.put(lease.getOwner());
+        }
+        JSONObject msg = new JSONObject();
+        msg.put("type", "locksExpired");
+        msg.put("seq", nextLockSeq());
+        msg.put("owners", owners);
+        broadcast(msg.toString());
+    }
+
+    // 락 변경 하나 = 크기가 일정한 메시지 하나 (전체 맵을 보내지 않는다)
+    private void broadcastLockAcquired(LineLockManager.Lease lease) {
+        JSONObject msg = lockJson(lease);
+        msg.put("type", "lockAcquired");
+        msg.put("seq", nextLockSeq());
+        broadcast(msg.toString());
+    }
+
+    // 사용자당 락은 하나이므로 소유자로 구분한다
+    private void broadcastLockReleased(LineLockManager.Lease lease) {
+        JSONObject msg = new JSONObject();
+        msg.put("type", "lockReleased");
+        msg.put("seq", nextLockSeq());
+        msg.put("owner", lease.getOwner());
+        broadcast(msg.toString());
+    }
+
+    private static JSONObject lockJson(LineLockManager.Lease lease) {
+        JSONObject json = new JSONObject();
+        json.put("line", lease.getStart());
+        json.put("endLine", lease.getEnd());
+        json.put("owner", lease.getOwner());
+        return json;
+    }
+
+    private long nextLockSeq() {
+        lineOwnershipFrame = null;
+        return ++lockSeq;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.dscteam1.WebSocket;
+
+import com.example.dscteam1.Persistence.DocumentStore;
+import com.example.dscteam1.Persistence.SaveJobs;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+// 편집 경로 계측 (Micrometer: /actuator/metrics, /actuator/prometheus)
+// 미터는 만들 때 한 번만 찾아 두고 편집 경로에서는 record / increment 만 한다.
+// 방마다 붙는 게이지(문서 길이, 줄 수, 멤버 수, 메일박스 대기)는 방이 메모리에 있는 동안만 등록한다.
+// 테스트와 벤치마크의 방은 아무 데도 보내지 않는 NOOP 을 쓴다.
+public class EditorMetrics {
+
+    static final EditorMetrics NOOP = new EditorMetrics(new CompositeMeterRegistry());
+
+    private final MeterRegistry registry;
+
+    // 메일박스에서 연산 하나(또는 일괄 하나)를 변환, 적용, 브로드캐스트하고 ack 를 넣기까지 (종류별)
+    private final Timer applyAdd;
+    private final Timer applyDelete;
+    private final Timer applyEdit;
+    private final Timer applyBatch;
+
+    // 브로드캐스트 하나를 모든 멤버의 송신 큐(다른 노드면 노드 전송 큐)에 넣기까지
+    private final Timer broadcastOps;
+    private final Timer broadcastMessages;
+
+    private final Counter locksAcquired;
+    private final Counter locksDenied;
+    private final Counter locksExpired;
+    private final Counter editsDenied;
+
+    // 받는 쪽에서 버린 메시지 (한도 초과, 잘못된 메시지)
+    private final Counter sessionThrottled;
+    private final Counter roomThrottled;
+    private final Counter messagesTooLarge;
+    private final Counter insertsTooLarge;
+    private final Counter invalidMessages;
+
+    private final Timer savesDone;
+    private final Timer savesFailed;
+    private final Timer loadsDone;
+    private final Timer loadsFailed;
+
+    private final Map<String, List<Meter>> roomMeters = new ConcurrentHashMap<>();
+
+    public EditorMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        applyAdd = applyTimer("add");
+        applyDelete = applyTimer("delete");
+        applyEdit = applyTimer("edit");
+        applyBatch = applyTimer("batch");
+        broadcastOps = broadcastTimer("ops");
+        broadcastMessages = broadcastTimer("message");
+        locksAcquired = lockCounter("acquired");
+        locksDenied = lockCounter("denied");
+        locksExpired = lockCounter("expired");
+        editsDenied = Counter.builder("editor.edits.denied")
+                .description("Edits rejected because another user holds a line lock")
+                .register(registry);
+        sessionThrottled = rejectedCounter("session-rate");
+        roomThrottled = rejectedCounter("room-rate");
+        messagesTooLarge = rejectedCounter("message-size");
+        insertsTooLarge = rejectedCounter("insert-size");
+        invalidMessages = rejectedCounter("invalid");
+        savesDone = fileTimer("editor.save", "done");
+        savesFailed = fileTimer("editor.save", "failed");
+        loadsDone = fileTimer("editor.load", "done");
+        loadsFailed = fileTimer("editor.load", "failed");
+    }
+
+    private Timer applyTimer(String type) {
+        return Timer.builder("editor.op.apply")
+                .description("Time to transform, apply and broadcast one client operation in the room mailbox")
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Timer broadcastTimer(String kind) {
+        return Timer.builder("editor.broadcast")
+                .description("Time to hand one broadcast to every member's outbound queue")
+                .tag("kind", kind)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Counter lockCounter(String result) {
+        return Counter.builder("editor.locks")
+                .description("Line lock requests and expirations")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private Counter rejectedCounter(String reason) {
+        return Counter.builder("editor.inbound.rejected")
+                .description("Inbound messages dropped by rate limits, size limits or validation")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private Timer fileTimer(String name, String result) {
+        return Timer.builder(name)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    // ---------------------------------------------------------------------
+    // 편집 경로 (방 메일박스 스레드)
+    // ---------------------------------------------------------------------
+
+    void opApplied(byte kind, long nanos) {
+        Timer timer = switch (kind) {
+            case BinaryOps.ADD -> applyAdd;
+            case BinaryOps.DELETE -> applyDelete;
+            case BinaryOps.EDIT -> applyEdit;
+            default -> applyBatch;
+        };
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void operationsBroadcast(long nanos) {
+        broadcastOps.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void messageBroadcast(long nanos) {
+        broadcastMessages.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void lockAcquired() {
+        locksAcquired.increment();
+    }
+
+    void lockDenied() {
+        locksDenied.increment();
+    }
+
+    void locksExpired(int count) {
+        locksExpired.increment(count);
+    }
+
+    void editDenied() {
+        editsDenied.increment();
+    }
+
+    // ---------------------------------------------------------------------
+    // 수신 한도 (수신 스레드)
+    // ---------------------------------------------------------------------
+
+    void sessionThrottled() {
+        sessionThrottled.increment();
+    }
+
+    void roomThrottled() {
+        roomThrottled.increment();
+    }
+
+    void messageTooLarge() {
+        messagesTooLarge.increment();
+    }
+
+    void insertTooLarge() {
+        insertsTooLarge.increment();
+    }
+
+    void invalidMessage() {
+        invalidMessages.increment();
+    }
+
+    // ---------------------------------------------------------------------
+    // 저장 / 불러오기
+    // ---------------------------------------------------------------------
+
+    void saveFinished(SaveJobs.Job job) {
+        Timer timer = job.getState() == SaveJobs.State.DONE ? savesDone : savesFailed;
+        timer.record(job.getElapsedMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void loadFinished(long nanos, boolean succeeded) {
+        (succeeded ? loadsDone : loadsFailed).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // ---------------------------------------------------------------------
+    // 게이지
+    // ---------------------------------------------------------------------
+
+    // 방이 메모리에 올라올 때 (읽기는 수집 스레드에서 하므로 조금 늦은 값일 수 있다)
+    // 같은 이름과 태그의 게이지는 먼저 등록된 것을 돌려주므로, 같은 문서의 이전 방 게이지는 지우고 등록한다
+    void registerRoom(DocumentRoom room) {
+        unregisterRoom(room.getDocId());
+        roomMeters.put(room.getDocId(), List.of(
+                roomGauge("editor.document.length", room, r -> r.getText().length()),
+                roomGauge("editor.document.lines", room, r -> r.getText().lineCount()),
+                roomGauge("editor.room.members", room, DocumentRoom::getMemberCount),
+                roomGauge("editor.room.pending", room, DocumentRoom::getPendingTasks)));
+    }
+
+    // 방을 내보내거나 다른 노드에 넘길 때
+    void unregisterRoom(String docId) {
+        List<Meter> meters = roomMeters.remove(docId);
+        if (meters != null) {
+            meters.forEach(registry::remove);
+        }
+    }
+
+    private Gauge roomGauge(String name, DocumentRoom room, ToDoubleFunction<DocumentRoom> value) {
+        return Gauge.builder(name, room, value)
+                .tag("doc", room.getDocId())
+                .strongReference(true)
+                .register(registry);
+    }
+
+    // 모든 세션의 송신 큐 (세션마다 게이지를 만들면 시계열이 접속 수만큼 늘어나므로 합계와 최댓값만)
+    // 세션별 값은 GET /rooms/stats 의 outbound 에 있다
+    void registerOutboundGauges(RoomManager rooms) {
+        Gauge.builder("editor.outbound.queued", rooms, r -> r.outboundDepths().sum())
+                .description("Messages waiting in all session outbound queues")
+                .register(registry);
+        Gauge.builder("editor.outbound.queued.max", rooms, r -> r.outboundDepths().max().orElse(0))
+                .description("Deepest session outbound queue")
+                .register(registry);
+        Gauge.builder("editor.rooms", rooms, RoomManager::getRoomCount)
+                .register(registry);
+    }
+
+    // 직접 압축한 송신 프레임의 압축 전 / 후 바이트 (permessage-deflate 로 Tomcat 이 압축한 것은 들어가지 않는다)
+    void registerCompression(FrameCompression compression) {
+        FunctionCounter.builder("editor.compression.bytes", compression, FrameCompression::getBytesIn)
+                .description("Bytes of outbound frames before and after application-level deflate")
+                .baseUnit("bytes")
+                .tag("stage", "in")
+                .register(registry);
+        FunctionCounter.builder("editor.compression.bytes", compression, FrameCompression::getBytesOut)
+                .baseUnit("bytes")
+                .tag("stage", "out")
+                .register(registry);
+    }
+
+    // 불러온 문서 캐시 (크기 합, 문서 수, 적중 / 실패 횟수)
+    void registerDocumentStore(DocumentStore store) {
+        Gauge.builder("editor.store.cache.bytes", store, DocumentStore::getCachedBytes)
+                .description("Total file size of documents held in the load cache")
+                .register(registry);
+        Gauge.builder("editor.store.cache.documents", store, DocumentStore::getCachedDocuments)
+                .register(registry);
+        FunctionCounter.builder("editor.store.cache.requests", store, DocumentStore::getCacheHits)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("editor.store.cache.requests", store, DocumentStore::getCacheMisses)
+                .tag("result", "miss")
+                .register(registry);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.dscteam1.WebSocket;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+// 송신 프레임 압축 (editor.compression.*)
+// permessage-deflate 를 협상하면 Tomcat 이 키 입력 하나짜리 프레임까지 모든 프레임을 멤버마다 따로 압축하고
+// 세션마다 zlib 상태를 들고 있으므로, THRESHOLD 모드에서는 확장을 협상하지 않고 minBytes 이상인 프레임만
+// 직접 압축해 바이너리 프레임으로 보낸다 (접속 시 ?compress=deflate 로 고른 세션만):
+//   [DEFLATED_TEXT][raw deflate(UTF-8 JSON)]  - 풀면 텍스트 메시지
+//   [DEFLATED_BINARY][raw deflate(BinaryOps 프레임)]  - 풀면 BinaryOps 프레임
+// 여러 멤버에게 가는 프레임은 한 번만 압축해 함께 쓰고 (연산은 OperationFrames, 그 밖의 브로드캐스트와
+// 락 스냅샷은 SharedFrame), init 처럼 세션 하나에만 가는 프레임은 송신 워커가 보내기 직전에 압축한다.
+// static/script.js 의 inflateFrame 과 형식이 같아야 한다.
+public final class FrameCompression {
+
+    public enum Mode {
+        // minBytes 이상인 프레임만 직접 압축 (permessage-deflate 는 협상하지 않는다)
+        THRESHOLD,
+        // 클라이언트가 청하면 permessage-deflate 협상 (모든 프레임을 Tomcat 이 압축)
+        PERMESSAGE_DEFLATE,
+        // 압축하지 않는다
+        OFF
+    }
+
+    // BinaryOps 의 종류 바이트와 겹치지 않는다
+    static final byte DEFLATED_TEXT = 6;
+    static final byte DEFLATED_BINARY = 7;
+
+    // 쉬는 Deflater 를 이만큼까지 남겨 두고 다시 쓴다 (만들 때마다 zlib 상태를 새로 잡지 않도록)
+    private static final int POOLED_DEFLATERS = 16;
+
+    // 벤치마크의 송신 큐 (압축하지 않는다)
+    static final FrameCompression NONE = new FrameCompression(Mode.OFF, Integer.MAX_VALUE, Deflater.BEST_SPEED);
+
+    private final Mode mode;
+    private final int minBytes;
+    private final int level;
+    private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+
+    // 압축한 프레임의 압축 전 / 후 바이트 합 (editor.compression.bytes)
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    public FrameCompression(Mode mode, int minBytes, int level) {
+        this.mode = mode;
+        this.minBytes = minBytes;
+        this.level = level;
+    }
+
+    Mode getMode() {
+        return mode;
+    }
+
+    long getBytesIn() {
+        return bytesIn.get();
+    }
+
+    long getBytesOut() {
+        return bytesOut.get();
+    }
+
+    // ?compress=deflate 로 고른 세션의 프레임을 직접 압축하는지
+    boolean compressesFrames() {
+        return mode == Mode.THRESHOLD;
+    }
+
+    boolean worthCompressing(int payloadBytes) {
+        return payloadBytes >= minBytes;
+    }
+
+    // 세션 하나에 가는 텍스트 프레임: minBytes 이상이면 압축 (그 밖의 프레임은 그대로)
+    WebSocketMessage<?> encode(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text && worthCompressing(text.getPayloadLength())) {
+            return new BinaryMessage(deflate(DEFLATED_TEXT, text.asBytes()));
+        }
+        return message;
+    }
+
+    // [kind][raw deflate(payload)]
+    byte[] deflate(byte kind, byte[] payload) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            // 압축해도 커지는 입력(이미 압축된 텍스트 등)은 드물어 모자라면 늘린다
+            byte[] out = new byte[1 + Math.max(64, payload.length / 2)];
+            out[0] = kind;
+            int length = 1;
+            while (!deflater.finished()) {
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            bytesIn.addAndGet(payload.length);
+            bytesOut.addAndGet(length);
+            return length == out.length ? out : Arrays.copyOf(out, length);
+        } finally {
+            deflater.reset();
+            if (deflaters.size() < POOLED_DEFLATERS) {
+                deflaters.offer(deflater);
+            } else {
+                deflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.dscteam1.WebSocket;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// 세션 하나의 수신 보호 (세션 속성에 하나씩, JSON 파싱 전에 확인한다)
+// - 컨테이너가 버퍼 크기(기본 8 KB)만큼씩 나눠 주는 조각을 모으되, 한도를 넘는 순간 모으기를 멈춘다
+//   (세션마다 최대 크기의 버퍼를 미리 잡지 않고, 너무 큰 메시지를 끝까지 담지도 않는다)
+// - 세션 토큰 버킷 (메시지 수)
+// - 제한 중이라고 클라이언트에 알리는 메시지는 1초에 한 번까지
+final class InboundGuard {
+
+    // maxMessageSize: 메시지 하나의 최대 크기 (텍스트는 문자 수, 바이너리는 바이트 수)
+    // maxInsertChars: 편집 하나(일괄이면 전체)로 넣을 수 있는 최대 문자 수
+    // sessionRate / roomRate: 초당 메시지 수 (0 이면 제한 없음), burst: 한꺼번에 허용하는 메시지 수
+    record Limits(int maxMessageSize, int maxInsertChars,
+                  double sessionRate, int sessionBurst, double roomRate, int roomBurst) {
+
+        static final Limits NONE = new Limits(Integer.MAX_VALUE, Integer.MAX_VALUE, 0, 0, 0, 0);
+    }
+
+    private static final String ATTRIBUTE = "inboundGuard";
+
+    private static final long NOTICE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final Limits limits;
+    private final TokenBucket bucket;
+    private StringBuilder text;
+    private ByteArrayOutputStream binary;
+    // 한도를 넘은 뒤로는 세션이 닫힐 때까지 남은 조각을 모두 버린다
+    private boolean oversized;
+    private boolean oversizeReported;
+    private long lastNotice = System.nanoTime() - NOTICE_INTERVAL;
+    private boolean acceptedSinceNotice;
+
+    private InboundGuard(Limits limits) {
+        this.limits = limits;
+        this.bucket = limits.sessionRate() > 0 ? new TokenBucket(limits.sessionRate(), limits.sessionBurst()) : null;
+    }
+
+    static InboundGuard of(WebSocketSession session, Limits limits) {
+        return (InboundGuard) session.getAttributes().computeIfAbsent(ATTRIBUTE, key -> new InboundGuard(limits));
+    }
+
+    // 마지막 조각이면 메시지 전체, 조각이 더 남았거나 한도를 넘었으면 null (넘었는지는 takeOversized)
+    // 텍스트는 문자 수로 잰다 (TextMessage.getPayloadLength() 는 부를 때마다 UTF-8 로 다시 인코딩한다)
+    String collect(TextMessage message) {
+        if (oversized) return null;
+        String part = message.getPayload();
+        if (text == null && message.isLast()) {
+            // 나뉘지 않은 메시지 (대부분): 복사 없이 그대로
+            if (part.length() > limits.maxMessageSize()) {
+                oversized = true;
+                return null;
+            }
+            return part;
+        }
+        if (text == null) {
+            text = new StringBuilder();
+        }
+        if (text.length() + part.length() > limits.maxMessageSize()) {
+            oversized = true;
+            text = null;
+            return null;
+        }
+        text.append(part);
+        if (!message.isLast()) return null;
+        String payload = text.toString();
+        text = null;
+        return payload;
+    }
+
+    ByteBuffer collect(BinaryMessage message) {
+        if (oversized) return null;
+        if (binary == null && message.isLast()) {
+            if (message.getPayloadLength() > limits.maxMessageSize()) {
+                oversized = true;
+                return null;
+            }
+            return message.getPayload();
+        }
+        if (binary == null) {
+            binary = new ByteArrayOutputStream();
+        }
+        if (binary.size() + message.getPayloadLength() > limits.maxMessageSize()) {
+            oversized = true;
+            binary = null;
+            return null;
+        }
+        ByteBuffer part = message.getPayload();
+        byte[] bytes = new byte[part.remaining()];
+        part.get(bytes);
+        binary.writeBytes(bytes);
+        if (!message.isLast()) return null;
+        ByteBuffer payload = ByteBuffer.wrap(binary.toByteArray());
+        binary = null;
+        return payload;
+    }
+
+    // 한도를 넘은 뒤 처음 한 번만 true (남은 조각마다 세션을 다시 닫고 세지 않도록)
+    boolean takeOversized() {
+        if (!oversized || oversizeReported) return false;
+        oversizeReported = true;
+        return true;
+    }
+
+    boolean tryAcquire(long now) {
+        if (bucket != null && !bucket.tryAcquire(now)) return false;
+        acceptedSinceNotice = true;
+        return true;
+    }
+
+    long retryAfterMillis(long now) {
+        return bucket == null ? 0 : bucket.millisUntilNext(now);
+    }
+
+    // 제한 알림을 보낼 차례인지 (보낼 차례면 시각을 기록)
+    // 지난 알림 뒤에 받아 준 메시지가 있으면 바로 보낸다: 알림을 받고 다시 맞춘 클라이언트의 메시지가
+    // 또 버려졌는데 알림이 없으면 클라이언트는 오지 않을 ack 를 기다리게 된다
+    boolean noticeDue(long now) {
+        if (!acceptedSinceNotice && now - lastNotice < NOTICE_INTERVAL) return false;
+        acceptedSinceNotice = false;
+        lastNotice = now;
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.dscteam1.WebSocket;
+
+import com.example.dscteam1.Document.TextDocument;
+import org.json.JSONObject;
+import org.springframework.web.socket.WebSocketMessage;
+
+// 큰 문서의 초기 텍스트를 나눠 보내는 프레임들
+// initStart {rev, length} 다음에 initChunk {offset, text} 를 offset 순서대로 보낸다.
+// 클라이언트는 length 만큼 모이면 init 과 같이 처리한다.
+// 문서 사본(O(1) 로프 스냅샷)에서 보낼 차례가 된 조각만 잘라 만들므로 편집과 상관없이 끝까지 같은 리비전이다.
+class InitChunks implements OutboundQueue.FrameSource {
+
+    // 조각 하나의 최대 문자 수
+    static final int CHUNK_CHARS = 64 * 1024;
+
+    private final TextDocument text;
+    private final long revision;
+    private boolean started;
+    private int offset;
+
+    InitChunks(TextDocument text, long revision) {
+        this.text = text;
+        this.revision = revision;
+    }
+
+    @Override
+    public WebSocketMessage<?> next() {
+        JSONObject msg = new JSONObject();
+        if (!started) {
+            started = true;
+            msg.put("type", "initStart");
+            msg.put("rev", revision);
+            msg.put("length", text.length());
+            return OutboundQueue.textFrame(msg.toString());
+        }
+        int length = text.length();
+        if (offset >= length) {
+            return null;
+        }
+        int end = Math.min(length, offset + CHUNK_CHARS);
+        // 서로게이트 쌍을 가르지 않는다
+        if (end < length && Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        msg.put("type", "initChunk");
+        msg.put("offset", offset);
+        msg.put("text", text.substring(offset, end));
+        offset = end;
+        return OutboundQueue.textFrame(msg.toString());
+    }
+}
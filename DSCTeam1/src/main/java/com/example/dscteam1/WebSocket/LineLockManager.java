@@ -0,0 +1,227 @@
+package com.example.dscteam1.WebSocket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+// 방 하나의 라인 범위 락 (리스) 관리
+// 락은 [시작 라인, 끝 라인] 구간이고 서로 겹치지 않으므로 시작 라인 순 TreeMap 하나로
+// "구간 [a, b] 안에 다른 사람 락이 있는가" 를 O(log n + k) 에 답한다.
+// 편집으로 줄 수가 바뀌면 shift 로 구간을 텍스트와 함께 옮긴다 (편집 아래쪽 락만 이동).
+// 락마다 만료 시각(deadline)을 두고, 만료 시각 순 우선순위 큐로 가장 먼저 만료될 락만 본다.
+// 전체 락을 훑지 않으므로 만료 처리는 O(만료된 락 수 × log n) 이다.
+// 편집할 때마다 리스를 연장(renew)하는데, 큐를 다시 정렬하지 않고 필드만 바꿔 둔 뒤
+// 큐에서 꺼냈을 때 연장된 락이면 새 만료 시각으로 다시 넣는다 (락 하나당 큐 항목은 항상 하나).
+// 방의 메일박스 스레드에서만 호출된다 (동기화 없음).
+class LineLockManager {
+
+    // 락 하나 (라인 구간, 소유자, 만료 시각)
+    static final class Lease {
+        private int start;
+        private int end;
+        private final String owner;
+        private long expiresAt;
+        private boolean released;
+
+        private Lease(int start, int end, String owner, long expiresAt) {
+            this.start = start;
+            this.end = end;
+            this.owner = owner;
+            this.expiresAt = expiresAt;
+        }
+
+        int getStart() {
+            return start;
+        }
+
+        int getEnd() {
+            return end;
+        }
+
+        String getOwner() {
+            return owner;
+        }
+    }
+
+    // 큐에 들어갈 때의 만료 시각을 고정해 둔 항목 (큐 안에서 정렬 키가 바뀌지 않도록)
+    private record Deadline(long at, Lease lease) {
+    }
+
+    private final long timeout;
+
+    // 시작 라인 -> 락 (구간끼리 겹치지 않음)
+    private final TreeMap<Integer, Lease> byStart = new TreeMap<>();
+
+    // 소유자 -> 락 (사용자당 구간 하나)
+    private final Map<String, Lease> byOwner = new HashMap<>();
+
+    private final PriorityQueue<Deadline> deadlines =
+            new PriorityQueue<>((a, b) -> Long.compare(a.at(), b.at()));
+
+    // 가장 이른 만료 시각 (다른 스레드의 타이머가 메일박스에 넣을지 판단할 때 읽는다)
+    private volatile long nextDeadline = Long.MAX_VALUE;
+
+    LineLockManager(long timeout) {
+        this.timeout = timeout;
+    }
+
+    // line 을 포함하는 락 (없으면 null)
+    Lease leaseAt(int line) {
+        Map.Entry<Integer, Lease> entry = byStart.floorEntry(line);
+        if (entry == null || entry.getValue().end < line) return null;
+        return entry.getValue();
+    }
+
+    String ownerOf(int line) {
+        Lease lease = leaseAt(line);
+        return lease == null ? null : lease.owner;
+    }
+
+    Lease leaseOf(String owner) {
+        return byOwner.get(owner);
+    }
+
+    // [from, to] 안에서 userId 가 아닌 사람이 가진 첫 락 (없으면 null)
+    // 구간 시작 직전 락 하나 + 구간 안에서 시작하는 락들만 본다: O(log n + k)
+    Lease firstConflict(String userId, int from, int to) {
+        Lease before = leaseAt(from);
+        if (before != null && !before.owner.equals(userId)) return before;
+        for (Lease lease : byStart.subMap(from, false, to, true).values()) {
+            if (!lease.owner.equals(userId)) return lease;
+        }
+        return null;
+    }
+
+    // 새로 잡았으면 true, 이미 같은 구간을 가졌으면 리스만 연장하고 false
+    // 다른 구간을 갖고 있었다면 먼저 release 해야 하고, 구간이 비어 있는지는 firstConflict 로 확인한다
+    boolean acquire(String owner, int start, int end, long now) {
+        Lease current = byOwner.get(owner);
+        if (current != null && current.start == start && current.end == end) {
+            current.expiresAt = now + timeout;
+            return false;
+        }
+        Lease lease = new Lease(start, end, owner, now + timeout);
+        byStart.put(start, lease);
+        byOwner.put(owner, lease);
+        deadlines.add(new Deadline(lease.expiresAt, lease));
+        updateNextDeadline();
+        return true;
+    }
+
+    // 풀린 락 (가진 락이 없으면 null)
+    // 큐 항목은 바로 지우지 않고, 꺼낼 때 released 면 버린다
+    Lease release(String owner) {
+        Lease lease = byOwner.remove(owner);
+        if (lease == null) return null;
+        byStart.remove(lease.start);
+        lease.released = true;
+        return lease;
+    }
+
+    // 편집 활동이 있으면 리스 연장 (O(1))
+    void renew(String owner, long now) {
+        Lease lease = byOwner.get(owner);
+        if (lease != null) {
+            lease.expiresAt = now + timeout;
+        }
+    }
+
+    boolean isExpired(int line, long now) {
+        Lease lease = leaseAt(line);
+        return lease != null && lease.expiresAt <= now;
+    }
+
+    // 만료된 락을 모두 풀고 돌려준다
+    List<Lease> expire(long now) {
+        List<Lease> expired = null;
+        Deadline head;
+        while ((head = deadlines.peek()) != null && head.at() <= now) {
+            deadlines.poll();
+            Lease lease = head.lease();
+            if (lease.released) {
+                continue;
+            }
+            if (lease.expiresAt > now) {
+                // 그 사이 연장된 락 → 새 만료 시각으로 다시 넣는다
+                deadlines.add(new Deadline(lease.expiresAt, lease));
+                continue;
+            }
+            release(lease.owner);
+            if (expired == null) expired = new ArrayList<>();
+            expired.add(lease);
+        }
+        updateNextDeadline();
+        return expired == null ? Collections.emptyList() : expired;
+    }
+
+    // 라인 fromLine ~ toLine 의 내용이 새 텍스트(lines 줄)로 바뀐 편집을 락 구간에 반영한다
+    // - 편집 아래쪽 라인은 늘어난(줄어든) 줄 수만큼 이동
+    // - 편집 범위 안의 구간 시작은 새 텍스트 끝으로, 구간 끝은 편집 시작으로 모인다
+    //   (편집한 라인을 가진 락은 새 줄까지 늘어난다)
+    // 구간이 하나라도 바뀌었으면 true
+    // 편집 범위는 편집자 자신의 락만 걸쳐 있을 수 있으므로(권한 확인 후 호출) 구간끼리 겹치지 않는다.
+    // 비용: O(log n + 편집 아래쪽 락 수)
+    boolean shift(int fromLine, int toLine, int lines) {
+        // 한 줄 안에서의 편집 (대부분의 키 입력) 은 구간을 바꾸지 않는다
+        if (fromLine == toLine && lines == 0) return false;
+        int delta = lines - (toLine - fromLine);
+        Lease first = leaseAt(fromLine);
+        int firstKey = first != null ? first.start : fromLine;
+        NavigableMap<Integer, Lease> affected = byStart.tailMap(firstKey, true);
+        if (affected.isEmpty()) return false;
+
+        List<Lease> moved = new ArrayList<>(affected.values());
+        boolean changed = false;
+        for (Lease lease : moved) {
+            int start = mapStart(lease.start, fromLine, toLine, lines, delta);
+            int end = Math.max(start, mapEnd(lease.end, fromLine, toLine, lines, delta));
+            if (start != lease.start || end != lease.end) {
+                changed = true;
+            }
+            lease.start = start;
+            lease.end = end;
+        }
+        if (changed) {
+            affected.clear();
+            for (Lease lease : moved) {
+                byStart.put(lease.start, lease);
+            }
+        }
+        return changed;
+    }
+
+    private static int mapStart(int line, int fromLine, int toLine, int lines, int delta) {
+        if (line <= fromLine) return line;
+        if (line <= toLine) return fromLine + lines;
+        return line + delta;
+    }
+
+    private static int mapEnd(int line, int fromLine, int toLine, int lines, int delta) {
+        if (line < fromLine) return line;
+        if (line < toLine) return fromLine;
+        return line + delta;
+    }
+
+    long getNextDeadline() {
+        return nextDeadline;
+    }
+
+    int size() {
+        return byStart.size();
+    }
+
+    // 시작 라인 순 락 목록 (스냅샷 메시지용)
+    List<Lease> leases() {
+        return new ArrayList<>(byStart.values());
+    }
+
+    private void updateNextDeadline() {
+        Deadline head = deadlines.peek();
+        nextDeadline = head == null ? Long.MAX_VALUE : head.at();
+    }
+}
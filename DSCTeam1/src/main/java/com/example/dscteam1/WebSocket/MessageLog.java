@@ -0,0 +1,58 @@
+package com.example.dscteam1.WebSocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// 받은 메시지 표본 로그 (예전에는 메시지마다 System.out.println 으로 콘솔에 바로 썼다)
+// sampleEvery 개 중 하나꼴로만 남기고(스레드끼리 나누는 카운터 없이 난수로 고른다),
+// 로거 "editor.messages" 는 logback-spring.xml 에서 비동기 appender 로 보내 수신 스레드가 콘솔을 기다리지 않는다.
+// 형식: key=value (doc, user, session, kind=text|binary, type=JSON 메시지 종류, bytes: 텍스트는 문자 수)
+final class MessageLog {
+
+    private static final Logger log = LoggerFactory.getLogger("editor.messages");
+
+    // type 을 찾아보는 메시지 앞부분 길이 (클라이언트는 type 을 맨 앞에 둔다)
+    private static final int TYPE_SCAN_CHARS = 64;
+
+    // 0 이면 남기지 않는다
+    private final int sampleEvery;
+
+    MessageLog(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+    }
+
+    // 쿼리 파라미터는 표본으로 고른 메시지에서만 읽는다
+    void text(WebSocketSession session, String payload) {
+        if (sampled()) {
+            log.info("doc={} user={} session={} kind=text type={} bytes={}",
+                    MySocketHandler.getQueryParam(session, "doc"), MySocketHandler.getQueryParam(session, "user"),
+                    session.getId(), typeOf(payload), payload.length());
+        }
+    }
+
+    void binary(WebSocketSession session, int bytes) {
+        if (sampled()) {
+            log.info("doc={} user={} session={} kind=binary bytes={}",
+                    MySocketHandler.getQueryParam(session, "doc"), MySocketHandler.getQueryParam(session, "user"),
+                    session.getId(), bytes);
+        }
+    }
+
+    private boolean sampled() {
+        return sampleEvery > 0 && log.isInfoEnabled()
+                && (sampleEvery == 1 || ThreadLocalRandom.current().nextInt(sampleEvery) == 0);
+    }
+
+    // JSON 을 다시 파싱하지 않고 앞부분에서 "type":"..." 만 찾는다 (없으면 -)
+    private static String typeOf(String payload) {
+        String head = payload.length() > TYPE_SCAN_CHARS ? payload.substring(0, TYPE_SCAN_CHARS) : payload;
+        int key = head.indexOf("\"type\":\"");
+        if (key < 0) return "-";
+        int start = key + 8;
+        int end = head.indexOf('"', start);
+        return end < 0 ? "-" : head.substring(start, end);
+    }
+}
@@ -1,463 +1,618 @@
 package com.example.dscteam1.WebSocket;
 
+import com.example.dscteam1.Document.TextOperation;
 import org.springframework.web.socket.*;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 import java.net.URLDecoder;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import org.json.JSONArray;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import org.json.JSONObject;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.Path;
-import java.io.File;
-import java.util.stream.Collectors;
-import java.util.List;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
-public class MySocketHandler extends TextWebSocketHandler {
-
-    // 연결된 클라이언트들을 저장 아이디 → 세션 매핑
-    private static final Map<String, WebSocketSession> userSessions = new ConcurrentHashMap<>();
+// 텍스트(JSON) 프레임과, ?proto=bin 으로 접속한 클라이언트의 편집 연산용 바이너리 프레임(BinaryOps)을 함께 받는다
+public class MySocketHandler extends AbstractWebSocketHandler {
 
-    // 공유 텍스트 내용을 저장할 변수
-    private static StringBuilder sharedText = new StringBuilder();
+    // 세션 속성에 저장하는 소속 방 / 송신 큐 키
+    private static final String ROOM_ATTRIBUTE = "room";
+    private static final String OUTBOUND_ATTRIBUTE = "outbound";
 
-    // 라인별 편집 권한 관리 (라인 번호 -> 클라이언트 ID)
-    private static final Map<Integer, String> lineOwnership = new ConcurrentHashMap<>();
+    // 문서 ID → 방 매핑 (방마다 텍스트, 락, 멤버가 독립)
+    private final RoomManager rooms;
 
-    // 사용자별 편집 중인 라인 추적 (클라이언트 ID -> 라인 번호)
-    private static final Map<String, Integer> userEditingLine = new ConcurrentHashMap<>();
+    // 클러스터 모드일 때만 (null 이면 모든 방이 이 노드에 있다)
+    private volatile ClusterRouter cluster;
 
-    // 라인별 락 타임스탬프 (라인 번호 -> 타임스탬프)
-    private static final Map<Integer, Long> lineLockTimestamp = new ConcurrentHashMap<>();
+    // 받은 메시지 표본 로그
+    private final MessageLog messageLog;
 
-    // 락 타임아웃 (30초)
-    private static final long LOCK_TIMEOUT = 30000;
+    // 메시지 크기 / 편집 크기 / 초당 메시지 수 한도
+    private final InboundGuard.Limits limits;
 
-    // 락 체크 주기 (5초)
-    private static final long LOCK_CHECK_INTERVAL = 5000;
+    // 방에 들어가기 전(세션 한도, 크기 한도)의 거부 횟수 (방이 없는 벤치마크에서는 NOOP)
+    private final EditorMetrics metrics;
 
-    // 락 체크 스케줄러
-    private static final ScheduledExecutorService lockChecker = Executors.newSingleThreadScheduledExecutor();
+    public MySocketHandler(RoomManager rooms) {
+        this(rooms, 0, InboundGuard.Limits.NONE);
+    }
 
-    static {
-        // 주기적으로 락 타임아웃 체크
-        lockChecker.scheduleAtFixedRate(() -> {
-            long currentTime = System.currentTimeMillis();
-            lineLockTimestamp.forEach((line, timestamp) -> {
-                if (currentTime - timestamp > LOCK_TIMEOUT) {
-                    String owner = lineOwnership.get(line);
-                    if (owner != null) {
-                        lineOwnership.remove(line);
-                        userEditingLine.remove(owner);
-                        lineLockTimestamp.remove(line);
-                        broadcastLineOwnership();
-                    }
-                }
-            });
-        }, LOCK_CHECK_INTERVAL, LOCK_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    // messageLogSampleEvery: 받은 메시지 몇 개 중 하나를 로그로 남길지 (0: 남기지 않음)
+    public MySocketHandler(RoomManager rooms, int messageLogSampleEvery, InboundGuard.Limits limits) {
+        this.rooms = rooms;
+        this.messageLog = new MessageLog(messageLogSampleEvery);
+        this.limits = limits;
+        this.metrics = rooms != null ? rooms.getMetrics() : EditorMetrics.NOOP;
     }
 
-    private void broadcast(String message) {
-        for (WebSocketSession sess : userSessions.values()) {
-            if (sess.isOpen()) {
-                try {
-                    sess.sendMessage(new TextMessage(message));
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
+    // 조각으로 오는 큰 메시지는 InboundGuard 가 한도까지만 모은다 (컨테이너가 메시지 전체 크기의 버퍼를 잡지 않도록)
+    @Override
+    public boolean supportsPartialMessages() {
+        return true;
     }
 
-    private void broadcastTextChange(JSONObject change, WebSocketSession sender) {
-        for (WebSocketSession sess : userSessions.values()) {
-            if (sess.isOpen() && sess != sender) {
-                try {
-                    sess.sendMessage(new TextMessage(change.toString()));
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
+    void setCluster(ClusterRouter cluster) {
+        this.cluster = cluster;
     }
 
-    private static void broadcastLineOwnership() {
-        JSONObject msg = new JSONObject();
-        msg.put("type", "lineOwnership");
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        // 1) 쿼리에서 userId, docId 추출
+        String userId = getQueryParam(session, "user");
+        if (userId == null || userId.isBlank()) {
+            session.close(CloseStatus.BAD_DATA.withReason("Invalid user ID"));
+            return;
+        }
+        String docId = getQueryParam(session, "doc");
+        if (docId == null || docId.isBlank()) {
+            docId = RoomManager.DEFAULT_DOC;
+        }
+        if (!RoomManager.isValidDocId(docId)) {
+            session.close(CloseStatus.BAD_DATA.withReason("Invalid document ID"));
+            return;
+        }
 
-        JSONObject ownership = new JSONObject();
-        for (Map.Entry<Integer, String> entry : lineOwnership.entrySet()) {
-            ownership.put(entry.getKey().toString(), entry.getValue());
+        OutboundQueue out = rooms.newOutboundQueue(session);
+        // 편집 연산을 바이너리로 주고받을지 (그 밖의 메시지와 ?proto 가 없는 클라이언트는 JSON)
+        out.setBinaryOps("bin".equals(getQueryParam(session, "proto")));
+        // 큰 프레임을 압축해 받을지 (editor.compression.mode=threshold 일 때만)
+        out.setCompressed("deflate".equals(getQueryParam(session, "compress")));
+        session.getAttributes().put(OUTBOUND_ATTRIBUTE, out);
+
+        // 클러스터 모드: 방을 맡은 노드(이 노드일 수도 있다)로 보낸다
+        ClusterRouter router = cluster;
+        if (router != null) {
+            router.connect(session, docId, userId, out);
+            return;
         }
-        msg.put("ownership", ownership);
 
-        for (WebSocketSession sess : userSessions.values()) {
-            if (sess.isOpen()) {
-                try {
-                    sess.sendMessage(new TextMessage(msg.toString()));
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
+        // ▶ 같은 방에 같은 ID가 접속해 있으면, 새 세션을 거부하고 즉시 닫기
+        DocumentRoom room = joinRoom(docId, userId, out);
+        if (room == null) {
+            session.close(duplicateUser(userId));
+            return;
         }
+
+        // ▶ 중복이 아닐 때만 등록
+        session.getAttributes().put(ROOM_ATTRIBUTE, room);
     }
 
-    private int getLineFromPosition(int position) {
-        String text = sharedText.toString();
-        int lineNumber = 0;
-        for (int i = 0; i < position && i < text.length(); i++) {
-            if (text.charAt(i) == '\n') {
-                lineNumber++;
-            }
+    // 방에 멤버로 넣고 접속 알림, 유저 목록, 초기 텍스트, 락 스냅샷을 보낸다 (같은 ID 가 이미 있으면 null)
+    DocumentRoom joinRoom(String docId, String userId, OutboundQueue out) {
+        DocumentRoom room = rooms.join(docId, userId, out);
+        if (room == null) {
+            return null;
         }
-        return lineNumber;
+        room.submit(() -> {
+            // 다른 노드의 세션은 이때부터 브로드캐스트를 받는다 (그 전에 확정된 연산은 아래 init 에 들어 있다)
+            if (out.getSession() instanceof RelayedSession relayed) {
+                relayed.attach();
+            }
+
+            room.broadcast("📥 [" + userId + "] 님이 연결되었습니다.");
+
+            // 유저 리스트 갱신
+            room.broadcastUserList();
+
+            // ▶ 초기 텍스트 전송
+            room.sendInit(out, false);
+
+            // 현재 라인 소유권 스냅샷은 새 멤버에게만 전송 (이후 변경은 lockAcquired/lockReleased)
+            room.sendLineOwnership(out);
+        });
+        return room;
     }
 
-    private boolean canUserEditLine(String userId, int lineNumber) {
-        String owner = lineOwnership.get(lineNumber);
-        if (owner == null) return true;
-        
-        // 락이 타임아웃되었는지 확인
-        Long timestamp = lineLockTimestamp.get(lineNumber);
-        if (timestamp != null && System.currentTimeMillis() - timestamp > LOCK_TIMEOUT) {
-            lineOwnership.remove(lineNumber);
-            userEditingLine.remove(owner);
-            lineLockTimestamp.remove(lineNumber);
-            return true;
-        }
-        
-        return owner.equals(userId);
+    static CloseStatus duplicateUser(String userId) {
+        return CloseStatus.POLICY_VIOLATION.withReason("User '" + userId + "' is already connected");
     }
 
-    private void acquireLineLock(String userId, int lineNumber) {
-        // 이전에 편집하던 라인이 있다면 해제
-        Integer previousLine = userEditingLine.get(userId);
-        if (previousLine != null && !previousLine.equals(lineNumber)) {
-            lineOwnership.remove(previousLine);
-            lineLockTimestamp.remove(previousLine);
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        OutboundQueue out = getOutbound(session);
+        ClusterRouter router = cluster;
+        if (router != null) {
+            if (out != null) {
+                out.close();
+                router.disconnect(session);
+            }
+            return;
         }
 
-        // 새 라인 점유
-        lineOwnership.put(lineNumber, userId);
-        userEditingLine.put(userId, lineNumber);
-        lineLockTimestamp.put(lineNumber, System.currentTimeMillis());
-        broadcastLineOwnership();
+        // 방에 들어가지 못한 세션(중복 아이디 거부, 방 열기 실패)도 송신 큐는 닫는다
+        if (out != null) {
+            out.close();
+        }
+        String userId = getQueryParam(session, "user");
+        DocumentRoom room = getRoom(session);
+        if (userId == null || room == null) return;
+
+        leaveRoom(room, userId, session);
     }
 
-    private void releaseLineLock(String userId) {
-        Integer editingLine = userEditingLine.get(userId);
-        if (editingLine != null) {
-            // 현재 라인의 락만 해제
-            lineOwnership.remove(editingLine);
-            userEditingLine.remove(userId);
-            lineLockTimestamp.remove(editingLine);
-            broadcastLineOwnership();
+    // 맵에 등록된(살아있는) 세션이 닫혔을 때만 제거
+    // else: 이미 접속 불가로 닫힌 세션이므로 무시
+    void leaveRoom(DocumentRoom room, String userId, WebSocketSession session) {
+        if (rooms.leave(room, userId, session)) {
+            room.submit(() -> {
+                // 해당 사용자가 편집 중이던 라인 해제
+                room.releaseLineLock(userId);
+
+                room.broadcast("❌ [" + userId + "] 님이 연결 종료되었습니다.");
+                room.broadcastUserList();
+            });
         }
     }
 
     @Override
-    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        // 1) 쿼리에서 userId 추출
-        String userId = getUserIdFromSession(session);
-        if (userId == null || userId.isBlank()) {
-            session.close(CloseStatus.BAD_DATA.withReason("Invalid user ID"));
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        InboundGuard guard = InboundGuard.of(session, limits);
+        String payload = guard.collect(message);
+        if (payload == null) {
+            if (guard.takeOversized()) closeOversized(session);
             return;
         }
+        messageLog.text(session, payload);
+        OutboundQueue out = getOutbound(session);
+        if (out == null || !acceptFromSession(guard, out)) return;
 
-        // ▶ 이미 같은 ID가 접속해 있으면, 새 세션을 거부하고 즉시 닫기
-        if (userSessions.containsKey(userId)) {
-            session.close(
-                    CloseStatus.POLICY_VIOLATION
-                            .withReason("User '" + userId + "' is already connected")
-            );
+        ClusterRouter router = cluster;
+        if (router != null) {
+            router.receive(session, payload);
             return;
         }
 
-        // ▶ 중복이 아닐 때만 등록
-        userSessions.put(userId, session);
-        broadcast("📥 [" + userId + "] 님이 연결되었습니다.");
-
-        // 유저 리스트 갱신
-        broadcastUserList();
+        String userId = getQueryParam(session, "user");
+        DocumentRoom room = getRoom(session);
+        if (userId == null || room == null) return;
+        receiveText(room, userId, out, payload);
+    }
 
-        // ▶ 초기 텍스트 전송
-        JSONObject init = new JSONObject();
-        init.put("type", "init");
-        init.put("text", sharedText.toString());
-        session.sendMessage(new TextMessage(init.toString()));
+    // JSON 파싱은 부른 스레드에서 하고, 방 상태 변경은 방의 메일박스에서 순서대로 적용
+    // 방 한도와 편집 크기는 파싱 직후, 메일박스에 넣기 전에 확인한다
+    void receiveText(DocumentRoom room, String userId, OutboundQueue out, String payload) {
+        if (!acceptForRoom(room, out)) return;
+        JSONObject jsonMessage;
+        try {
+            jsonMessage = new JSONObject(payload);
+        } catch (Exception e) {
+            // JSON 형식이 아닌 메시지: 받은 내용을 되돌려 보내지 않는다
+            rejectInvalid(room, out);
+            return;
+        }
+        if (insertedChars(jsonMessage) > limits.maxInsertChars()) {
+            rejectInsert(room, out);
+            return;
+        }
+        room.submit(() -> {
+            try {
+                dispatch(room, userId, out, jsonMessage);
+            } catch (Exception e) {
+                rejectInvalid(room, out);
+            }
+        });
+    }
 
-        // 현재 라인 소유권 정보 전송
-        broadcastLineOwnership();
+    // 편집 메시지가 넣는 문자 수 (일괄이면 합계, 편집이 아니면 0)
+    private static int insertedChars(JSONObject jsonMessage) {
+        String type = jsonMessage.optString("type");
+        if ("batch".equals(type)) {
+            JSONArray ops = jsonMessage.optJSONArray("ops");
+            int total = 0;
+            for (int i = 0; ops != null && i < ops.length(); i++) {
+                JSONObject op = ops.optJSONObject(i);
+                total += op == null ? 0 : op.optString("text").length();
+            }
+            return total;
+        }
+        return "add".equals(type) || "edit".equals(type) ? jsonMessage.optString("text").length() : 0;
     }
 
     @Override
-    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        String userId = getUserIdFromSession(session);
-        if (userId == null) return;
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws IOException {
+        InboundGuard guard = InboundGuard.of(session, limits);
+        ByteBuffer payload = guard.collect(message);
+        if (payload == null) {
+            if (guard.takeOversized()) closeOversized(session);
+            return;
+        }
+        messageLog.binary(session, payload.remaining());
+        OutboundQueue out = getOutbound(session);
+        if (out == null || !acceptFromSession(guard, out)) return;
+
+        ClusterRouter router = cluster;
+        if (router != null) {
+            // 경로 메일박스에서 나중에 읽으므로 Tomcat 이 다시 쓰는 버퍼를 복사해 둔다
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            router.receive(session, bytes);
+            return;
+        }
 
-        // 맵에 등록된(살아있는) 세션인지 확인
-        WebSocketSession registered = userSessions.get(userId);
-        if (registered != null && registered.getId().equals(session.getId())) {
-            // 진짜 등록된 세션이 닫혔을 때만 제거
-            userSessions.remove(userId);
+        String userId = getQueryParam(session, "user");
+        DocumentRoom room = getRoom(session);
+        if (userId == null || room == null) return;
+        receiveBinary(room, userId, out, payload);
+    }
 
-            // 해당 사용자가 편집 중이던 라인 해제
-            releaseLineLock(userId);
+    // 바이너리 편집 연산: JSON 트리 없이 버퍼에서 바로 TextOperation 을 만든다
+    void receiveBinary(DocumentRoom room, String userId, OutboundQueue out, ByteBuffer payload) {
+        if (!acceptForRoom(room, out)) return;
+        byte kind;
+        long baseRevision;
+        long id;
+        TextOperation op = null;
+        List<TextOperation> ops = null;
+        try {
+            kind = payload.get();
+            baseRevision = BinaryOps.readVarLong(payload) - 1;
+            id = BinaryOps.readVarLong(payload);
+            if (kind == BinaryOps.BATCH) {
+                ops = BinaryOps.readBatch(payload);
+            } else {
+                op = BinaryOps.readOperation(kind, payload);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // 깨진 프레임이나 잘못된 범위: 서버 상태로 다시 맞춘다
+            room.submit(() -> room.sendInit(out, false));
+            return;
+        }
+        int inserted = 0;
+        for (TextOperation each : ops != null ? ops : List.of(op)) {
+            inserted += each.text().length();
+        }
+        if (inserted > limits.maxInsertChars()) {
+            rejectInsert(room, out);
+            return;
+        }
+        Long ackId = id == 0 ? null : id;
+        if (ops != null) {
+            List<TextOperation> batch = ops;
+            room.submit(() -> applyBatch(room, userId, out, batch, baseRevision, ackId));
+        } else {
+            TextOperation single = op;
+            room.submit(() -> applyEdit(room, userId, out, single, baseRevision, ackId));
+        }
+    }
 
-            broadcast("❌ [" + userId + "] 님이 연결 종료되었습니다.");
-            broadcastUserList();
+    // 메일박스 스레드에서만 호출된다 (벤치마크는 파싱한 메시지로 바로 부른다)
+    void dispatch(DocumentRoom room, String userId, OutboundQueue out, JSONObject jsonMessage) {
+        String type = jsonMessage.getString("type");
+
+        switch (type) {
+            case "requestLineLock":
+                // 라인(구간) 편집 권한 요청: endLine 이 없으면 한 줄
+                int requestedLine = jsonMessage.getInt("line");
+                int requestedEnd = Math.max(requestedLine, jsonMessage.optInt("endLine", requestedLine));
+                int lockedLine = room.firstLockedLine(userId, requestedLine, requestedEnd);
+                if (lockedLine < 0) {
+                    room.acquireLineLock(userId, requestedLine, requestedEnd);
+                    room.getMetrics().lockAcquired();
+
+                    JSONObject response = new JSONObject();
+                    response.put("type", "lineLockGranted");
+                    response.put("line", requestedLine);
+                    response.put("endLine", requestedEnd);
+                    out.send(response.toString());
+                } else {
+                    room.getMetrics().lockDenied();
+                    JSONObject response = new JSONObject();
+                    response.put("type", "lineLockDenied");
+                    response.put("line", lockedLine);
+                    response.put("owner", room.getLineOwner(lockedLine));
+                    out.send(response.toString());
+                }
+                break;
+
+            case "releaseLineLock":
+                // 라인 편집 권한 해제
+                room.releaseLineLock(userId);
+                break;
+
+            case "add":
+            case "delete":
+            case "edit":
+                // 텍스트 추가 / 삭제 / 편집 (삭제 후 추가)
+                applyEdit(room, userId, out, type, jsonMessage);
+                break;
+
+            case "batch":
+                // 클라이언트가 짧은 시간 동안 모은 연산들 (ops: 차례로 적용할 add / delete / edit)
+                applyBatch(room, userId, out, jsonMessage);
+                break;
+
+            case "sync":
+                // 전체 텍스트 동기화 요청
+                room.sendInit(out, false);
+
+                // 라인 소유권 스냅샷도 요청한 세션에만 함께 전송
+                room.sendLineOwnership(out);
+
+                break;
+
+            case "requestLockSnapshot":
+                // 클라이언트가 락 순서 번호 누락을 감지했을 때
+                room.sendLineOwnership(out);
+                break;
+
+            case "requestLines":
+                // 화면에 보이는 라인 구간만 요청 (큰 문서의 뷰포트)
+                int fromLine = jsonMessage.getInt("fromLine");
+                room.sendLines(out, fromLine, jsonMessage.optInt("toLine", fromLine));
+                break;
+
+            default:
+                // 모르는 메시지 (받은 내용을 되돌려 보내지 않는다)
+                rejectInvalid(room, out);
         }
-        // else: 이미 접속 불가로 닫힌 세션이므로 무시
     }
 
-    @Override
-    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
-        System.out.println("📨 Received from " + session.getId() + ": " + message.getPayload());
+    // ---------------------------------------------------------------------
+    // 수신 한도
+    // ---------------------------------------------------------------------
+
+    // 세션 토큰 버킷 (JSON 파싱 전, 클러스터 모드에서는 방을 가진 노드로 넘기기 전)
+    private boolean acceptFromSession(InboundGuard guard, OutboundQueue out) {
+        long now = System.nanoTime();
+        if (guard.tryAcquire(now)) return true;
+        metrics.sessionThrottled();
+        notifyRateLimited(guard, out, "session", guard.retryAfterMillis(now), now);
+        return false;
+    }
+
+    // 방 전체 토큰 버킷 (한 방의 모든 세션이 나눠 쓴다)
+    private boolean acceptForRoom(DocumentRoom room, OutboundQueue out) {
+        if (limits.roomRate() <= 0) return true;
+        TokenBucket budget = room.getInboundBudget(limits.roomRate(), limits.roomBurst());
+        long now = System.nanoTime();
+        if (budget.tryAcquire(now)) return true;
+        room.getMetrics().roomThrottled();
+        notifyRateLimited(InboundGuard.of(out.getSession(), limits), out, "room", budget.millisUntilNext(now), now);
+        return false;
+    }
+
+    // 버린 메시지에 편집이 있었을 수 있으므로 클라이언트는 retryAfterMs 뒤에 sync 로 다시 맞춘다
+    // 알림은 받아 준 메시지 뒤 처음 버릴 때, 계속 버리는 동안은 1초에 한 번 (제한에 걸린 클라이언트에게 보내는 양도 묶어 둔다)
+    static void notifyRateLimited(InboundGuard guard, OutboundQueue out, String scope,
+                                  long retryAfterMillis, long now) {
+        if (!guard.noticeDue(now)) return;
+        JSONObject notice = new JSONObject();
+        notice.put("type", "rateLimited");
+        notice.put("scope", scope);
+        notice.put("retryAfterMs", retryAfterMillis);
+        out.send(notice.toString());
+    }
 
-        String userId = getUserIdFromSession(session);
-        if (userId == null) return;
+    private void closeOversized(WebSocketSession session) throws IOException {
+        metrics.messageTooLarge();
+        session.close(CloseStatus.TOO_BIG_TO_PROCESS.withReason(
+                "Message exceeds " + limits.maxMessageSize() + " characters"));
+    }
 
+    // 너무 큰 삽입: 클라이언트는 이미 자기 화면에 적용했으므로 init 으로 되돌린다
+    private void rejectInsert(DocumentRoom room, OutboundQueue out) {
+        room.getMetrics().insertTooLarge();
+        JSONObject response = new JSONObject();
+        response.put("type", "editRejected");
+        response.put("reason", "Insert exceeds " + limits.maxInsertChars() + " characters");
+        out.send(response.toString());
+        room.submit(() -> room.sendInit(out, false));
+    }
+
+    private static void rejectInvalid(DocumentRoom room, OutboundQueue out) {
+        room.getMetrics().invalidMessage();
+        JSONObject response = new JSONObject();
+        response.put("type", "error");
+        response.put("reason", "Invalid message");
+        out.send(response.toString());
+    }
+
+    // 편집 연산 처리 (메일박스 스레드)
+    // rev(클라이언트가 본 리비전)가 있으면 그 뒤에 확정된 연산들에 대해 변환한 뒤 적용하고,
+    // 보낸 사람에게는 ack, 나머지 멤버에게는 변환된 연산을 새 리비전과 함께 보낸다.
+    // 변환할 수 없거나(로그보다 오래된 리비전, 범위 오류) 권한이 없으면 init 으로 다시 맞춘다.
+    private void applyEdit(DocumentRoom room, String userId, OutboundQueue out, String type, JSONObject jsonMessage) {
+        TextOperation op;
         try {
-            JSONObject jsonMessage = new JSONObject(message.getPayload());
-            String type = jsonMessage.getString("type");
-
-            switch (type) {
-                case "requestLineLock":
-                    // 라인 편집 권한 요청
-                    int requestedLine = jsonMessage.getInt("line");
-                    if (canUserEditLine(userId, requestedLine)) {
-                        acquireLineLock(userId, requestedLine);
-
-                        JSONObject response = new JSONObject();
-                        response.put("type", "lineLockGranted");
-                        response.put("line", requestedLine);
-                        session.sendMessage(new TextMessage(response.toString()));
-                    } else {
-                        JSONObject response = new JSONObject();
-                        response.put("type", "lineLockDenied");
-                        response.put("line", requestedLine);
-                        response.put("owner", lineOwnership.get(requestedLine));
-                        session.sendMessage(new TextMessage(response.toString()));
-                    }
-                    break;
-
-                case "releaseLineLock":
-                    // 라인 편집 권한 해제
-                    releaseLineLock(userId);
-                    break;
-
-                case "add":
-                    // 텍스트 추가
-                    int addPosition = jsonMessage.getInt("position");
-                    String textToAdd = jsonMessage.getString("text");
-
-                    // 편집 권한 확인 (현재 라인만 확인)
-                    int affectedLine = getLineFromPosition(addPosition);
-                    if (!canUserEditLine(userId, affectedLine)) {
-                        JSONObject errorResponse = new JSONObject();
-                        errorResponse.put("type", "editDenied");
-                        errorResponse.put("reason", "Line is being edited by another user");
-                        errorResponse.put("line", affectedLine);
-                        session.sendMessage(new TextMessage(errorResponse.toString()));
-                        break;
-                    }
-
-                    // 공유 텍스트에 추가
-                    if (addPosition >= 0 && addPosition <= sharedText.length()) {
-                        sharedText.insert(addPosition, textToAdd);
-                        broadcastTextChange(jsonMessage, session);
-                    }
-                    break;
-
-                case "delete":
-                    // 텍스트 삭제
-                    int startPos = jsonMessage.getInt("start");
-                    int endPos = jsonMessage.getInt("end");
-
-                    // 편집 권한 확인 (삭제 범위의 모든 라인 확인)
-                    int deleteLineStart = getLineFromPosition(startPos);
-                    int deleteLineEnd = getLineFromPosition(endPos);
-                    for (int line = deleteLineStart; line <= deleteLineEnd; line++) {
-                        if (!canUserEditLine(userId, line)) {
-                            JSONObject errorResponse = new JSONObject();
-                            errorResponse.put("type", "editDenied");
-                            errorResponse.put("reason", "One or more lines are being edited by another user");
-                            errorResponse.put("line", line);
-                            session.sendMessage(new TextMessage(errorResponse.toString()));
-                            return;
-                        }
-                    }
-
-                    // 공유 텍스트에서 삭제
-                    if (startPos >= 0 && endPos <= sharedText.length() && startPos <= endPos) {
-                        sharedText.delete(startPos, endPos);
-                        broadcastTextChange(jsonMessage, session);
-                    }
-                    break;
-
-                case "edit":
-                    // 텍스트 편집 (삭제 후 추가)
-                    int editStartPos = jsonMessage.getInt("start");
-                    int editEndPos = jsonMessage.getInt("end");
-                    String newText = jsonMessage.getString("text");
-
-                    // 편집 권한 확인
-                    int editLineStart = getLineFromPosition(editStartPos);
-                    int editLineEnd = getLineFromPosition(editEndPos);
-                    for (int line = editLineStart; line <= editLineEnd; line++) {
-                        if (!canUserEditLine(userId, line)) {
-                            JSONObject errorResponse = new JSONObject();
-                            errorResponse.put("type", "editDenied");
-                            errorResponse.put("reason", "One or more lines are being edited by another user");
-                            errorResponse.put("line", line);
-                            session.sendMessage(new TextMessage(errorResponse.toString()));
-                            return;
-                        }
-                    }
-
-                    // 공유 텍스트에서 편집
-                    if (editStartPos >= 0 && editEndPos <= sharedText.length() && editStartPos <= editEndPos) {
-                        sharedText.replace(editStartPos, editEndPos, newText);
-                        broadcastTextChange(jsonMessage, session);
-                    }
-                    break;
-
-                case "sync":
-                    // 전체 텍스트 동기화 요청
-                    JSONObject syncResponse = new JSONObject();
-                    syncResponse.put("type", "init");
-                    syncResponse.put("text", sharedText.toString());
-                    session.sendMessage(new TextMessage(syncResponse.toString()));
-
-                    // 라인 소유권 정보도 함께 전송
-                    broadcastLineOwnership();
-
-                    break;
-
-                default:
-                    // 기타 메시지는 그대로 브로드캐스트
-                    session.sendMessage(new TextMessage("서버 응답: " + message.getPayload()));
-            }
-        } catch (Exception e) {
-            // JSON 형식이 아닌 일반 메시지 처리
-            session.sendMessage(new TextMessage("서버 응답: " + message.getPayload()));
+            op = parseOperation(type, jsonMessage);
+        } catch (IllegalArgumentException e) {
+            // 잘못된 범위
+            room.sendInit(out, false);
+            return;
         }
+        // 클라이언트가 어느 연산의 확정인지 맞춰 볼 수 있도록 id 는 ack 에 그대로 돌려준다
+        applyEdit(room, userId, out, op, jsonMessage.optLong("rev", -1), jsonMessage.opt("id"));
     }
 
-    // 쿼리 문자열에서 user 파라미터만 파싱
-    private String getUserIdFromSession(WebSocketSession session) {
-        String query = session.getUri().getQuery();  // ex: "user=kim"
-        if (query == null) return null;
-        for (String param : query.split("&")) {
-            String[] kv = param.split("=");
-            if (kv.length == 2 && "user".equals(kv[0])) {
-                return URLDecoder.decode(kv[1], StandardCharsets.UTF_8);
+    private void applyBatch(DocumentRoom room, String userId, OutboundQueue out, JSONObject jsonMessage) {
+        JSONArray array = jsonMessage.getJSONArray("ops");
+        List<TextOperation> ops = new ArrayList<>(array.length());
+        try {
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject item = array.getJSONObject(i);
+                ops.add(parseOperation(item.getString("type"), item));
             }
+        } catch (IllegalArgumentException e) {
+            room.sendInit(out, false);
+            return;
         }
-        return null;
+        applyBatch(room, userId, out, ops, jsonMessage.optLong("rev", -1), jsonMessage.opt("id"));
     }
 
-    private void broadcastUserList() {
-        // JSON 배열로 모든 userId를
-        JSONArray arr = new JSONArray();
-        for (String id : userSessions.keySet()) {
-            arr.put(id);
-        }
-        JSONObject msg = new JSONObject();
-        msg.put("type", "userList");
-        msg.put("users", arr);
-
-        // 모두에게 브로드캐스트
-        for (WebSocketSession sess : userSessions.values()) {
-            if (sess.isOpen()) {
-                try {
-                    sess.sendMessage(new TextMessage(msg.toString()));
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+    // JSON 편집 메시지 → 연산 (범위가 잘못되면 IllegalArgumentException)
+    static TextOperation parseOperation(String type, JSONObject jsonMessage) {
+        return switch (type) {
+            case "add" -> TextOperation.insert(jsonMessage.getInt("position"), jsonMessage.getString("text"));
+            case "delete" -> TextOperation.delete(jsonMessage.getInt("start"), jsonMessage.getInt("end"));
+            default -> new TextOperation(jsonMessage.getInt("start"), jsonMessage.getInt("end"),
+                    jsonMessage.getString("text"));
+        };
+    }
+
+    // 형식과 상관없는 편집 처리 (baseRevision < 0: rev 없음, id: ack 에 돌려줄 값 또는 null)
+    private void applyEdit(DocumentRoom room, String userId, OutboundQueue out,
+                           TextOperation op, long baseRevision, Object id) {
+        long started = System.nanoTime();
+        // rev 가 없는 예전 클라이언트는 현재 문서 기준 절대 위치로 본다
+        if (baseRevision >= 0) {
+            op = room.transformToHead(op, baseRevision);
+            if (op == null) {
+                room.sendInit(out, false);
+                return;
             }
         }
-    }
+        if (op.end() > room.getText().length()) {
+            room.sendInit(out, false);
+            return;
+        }
 
-    // 1) 프로젝트 루트/실행 위치 기준으로 “saved_files” 폴더 경로 지정
-    private static final String SAVE_DIR = "saved_files";
+        // 편집 권한 확인 (연산 범위의 라인 구간 전체를 한 번에 확인)
+        int deniedLine = room.firstLockedLine(userId,
+                room.getLineFromPosition(op.start()), room.getLineFromPosition(op.end()));
+        if (deniedLine >= 0) {
+            denyEdit(room, out, deniedLine, op.start() == op.end()
+                    ? "Line is being edited by another user"
+                    : "One or more lines are being edited by another user", baseRevision);
+            return;
+        }
 
-    static {
-        // 애플리케이션 시작 시 saved_files 폴더가 없으면 만든다
-        File dir = new File(SAVE_DIR);
-        if (!dir.exists()) {
-            dir.mkdirs();
+        long revision = op.isNoop() ? room.getRevision() : room.applyOperation(userId, op);
+        if (!op.isNoop()) {
+            room.broadcastOperation(op, revision, out);
         }
+        sendAck(out, revision, id);
+        room.getMetrics().opApplied(BinaryOps.kindOf(op), System.nanoTime() - started);
     }
 
+    // 일괄 연산 처리 (메일박스 스레드): 연산들은 차례로 적용되며(앞 연산의 결과가 다음 연산의 기준)
+    // 변환, 범위 확인, 권한 확인을 모두 통과해야 적용한다. 하나라도 안 되면 아무것도 적용하지 않는다.
+    // 권한은 일괄 전체가 건드리는 범위(적용 전 문서 기준)로 한 번만 확인하고, 확정된 연산은 batch 메시지 하나로 보낸다.
+    private void applyBatch(DocumentRoom room, String userId, OutboundQueue out,
+                            List<TextOperation> ops, long baseRevision, Object id) {
+        long started = System.nanoTime();
+        if (baseRevision >= 0) {
+            ops = room.transformToHead(ops, baseRevision);
+            if (ops == null) {
+                room.sendInit(out, false);
+                return;
+            }
+        }
 
-    // sharedText 내용을 "saved_files/<fileName>" 으로 저장
-    // @param fileName: 예) "memo1.txt" 또는 "collab.txt" (디렉토리 없이 파일명만)
-    public static synchronized void saveToFile(String fileName) throws IOException {
-        // 1) 파일명을 검증 (예: .. 경로 삽입 방지) - 간단히 “/” 문자가 있으면 예외 처리
-        if (fileName.contains("/") || fileName.contains("\\") ) {
-            throw new IOException("잘못된 파일명입니다: " + fileName);
+        // 변경 범위 [spanStart, spanEnd): 적용할수록의 문서 좌표로 넓혀 가다가 마지막에 적용 전 좌표로 되돌린다
+        // (그 밖의 텍스트는 적용 전과 같고 뒤쪽은 delta 만큼 밀린다)
+        List<TextOperation> effective = new ArrayList<>(ops.size());
+        int length = room.getText().length();
+        int spanStart = Integer.MAX_VALUE;
+        int spanEnd = 0;
+        int delta = 0;
+        for (TextOperation op : ops) {
+            if (op.end() > length) {
+                room.sendInit(out, false);
+                return;
+            }
+            if (op.isNoop()) {
+                continue;
+            }
+            effective.add(op);
+            length += op.lengthDelta();
+            delta += op.lengthDelta();
+            spanStart = Math.min(spanStart, op.start());
+            spanEnd = Math.max(spanEnd, op.end()) + op.lengthDelta();
+        }
+        if (effective.isEmpty()) {
+            sendAck(out, room.getRevision(), id);
+            return;
         }
 
-        // 2) Paths.get(SAVE_DIR, fileName) 으로 경로 구성
-        Path filePath = Paths.get(SAVE_DIR, fileName);
-        Files.write(filePath, sharedText.toString().getBytes(StandardCharsets.UTF_8));
-    }
+        int deniedLine = room.firstLockedLine(userId,
+                room.getLineFromPosition(spanStart), room.getLineFromPosition(spanEnd - delta));
+        if (deniedLine >= 0) {
+            denyEdit(room, out, deniedLine, "One or more lines are being edited by another user", baseRevision);
+            return;
+        }
 
-    // "saved_files/<fileName>" 을 읽어서 sharedText에 덮어쓰기
-    // 이후, 기존 init 브로드캐스트 로직 그대로 쓰면 클라이언트가 전체 텍스트를 받아서 갱신함
-    public static synchronized void loadFromFile(String fileName) throws IOException {
-        if (fileName.contains("/") || fileName.contains("\\") ) {
-            throw new IOException("잘못된 파일명입니다: " + fileName);
+        long revision = 0;
+        for (TextOperation op : effective) {
+            revision = room.applyOperation(userId, op);
+        }
+        if (effective.size() == 1) {
+            room.broadcastOperation(effective.get(0), revision, out);
+        } else {
+            room.broadcastBatch(effective, revision, out);
         }
+        sendAck(out, revision, id);
+        room.getMetrics().opApplied(BinaryOps.BATCH, System.nanoTime() - started);
+    }
 
-        Path filePath = Paths.get(SAVE_DIR, fileName);
-        if (!Files.exists(filePath)) {
-            throw new IOException("해당 파일이 존재하지 않습니다: " + fileName);
+    private void denyEdit(DocumentRoom room, OutboundQueue out, int deniedLine, String reason, long baseRevision) {
+        room.getMetrics().editDenied();
+        JSONObject errorResponse = new JSONObject();
+        errorResponse.put("type", "editDenied");
+        errorResponse.put("reason", reason);
+        errorResponse.put("line", deniedLine);
+        out.send(errorResponse.toString());
+        if (baseRevision >= 0) {
+            // 클라이언트는 거부된 연산을 이미 적용했으므로 서버 상태로 되돌린다
+            room.sendInit(out, false);
         }
+    }
 
-        // 1) 파일 내용 읽어서 sharedText에 덮어쓰기
-        byte[] allBytes = Files.readAllBytes(filePath);
-        String fileContent = new String(allBytes, StandardCharsets.UTF_8);
+    private void sendAck(OutboundQueue out, long revision, Object id) {
+        if (out.isBinaryOps()) {
+            out.send(BinaryOps.ackFrame(revision, id instanceof Number number ? number.longValue() : 0));
+            return;
+        }
+        JSONObject ack = new JSONObject();
+        ack.put("type", "ack");
+        ack.put("rev", revision);
+        if (id != null) {
+            ack.put("id", id);
+        }
+        out.send(ack.toString());
+    }
 
-        sharedText.setLength(0);
-        sharedText.append(fileContent);
+    private DocumentRoom getRoom(WebSocketSession session) {
+        return (DocumentRoom) session.getAttributes().get(ROOM_ATTRIBUTE);
+    }
 
-        // 2) 전체 클라이언트에게 init 메시지 전송 (이전과 동일)
-        JSONObject init = new JSONObject();
-        init.put("type", "init");
-        init.put("text", sharedText.toString());
-        String initMsg = init.toString();
+    private OutboundQueue getOutbound(WebSocketSession session) {
+        return (OutboundQueue) session.getAttributes().get(OUTBOUND_ATTRIBUTE);
+    }
 
-        for (WebSocketSession sess : userSessions.values()) {
-            if (sess.isOpen()) {
-                try {
-                    sess.sendMessage(new TextMessage(initMsg));
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+    // 쿼리 문자열에서 name 파라미터만 파싱 (ex: "doc=memo&user=kim")
+    static String getQueryParam(WebSocketSession session, String name) {
+        String query = session.getUri().getQuery();
+        if (query == null) return null;
+        for (String param : query.split("&")) {
+            String[] kv = param.split("=");
+            if (kv.length == 2 && name.equals(kv[0])) {
+                return URLDecoder.decode(kv[1], StandardCharsets.UTF_8);
             }
         }
-        broadcastLineOwnership();
-    }
-
-    // saved_files 디렉토리 안의 *.txt 목록을 String 리스트로 반환하는 메서드
-    // @return 예: ["memo1.txt", "collab.txt", …]
-    public static synchronized List<String> listSavedFiles() throws IOException {
-        File dir = new File(SAVE_DIR);
-        // 디렉토리 내 모든 파일 중, 파일명만 스트링 리스트로 변환
-        return Files.list(dir.toPath())
-                .filter(Files::isRegularFile)
-                .map(Path::getFileName)
-                .map(Path::toString)
-                .collect(Collectors.toList());
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,94 @@
+package com.example.dscteam1.WebSocket;
+
+import com.example.dscteam1.Document.TextOperation;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.List;
+
+// 한 번에 확정된 연산들을 멤버에게 보낼 프레임 (rev: 마지막 연산의 리비전, 연산마다 1씩)
+// 연산이 하나면 add / delete / edit, 여럿이면 batch 메시지이고,
+// 멤버가 고른 형식(JSON / BinaryOps, 각각 압축 여부)마다 처음 필요할 때 한 번씩만 직렬화 / 압축한다
+final class OperationFrames {
+
+    private final List<TextOperation> ops;
+    private final long rev;
+    private TextMessage json;
+    private byte[] binary;
+    private byte[] deflatedJson;
+    private byte[] deflatedBinary;
+
+    OperationFrames(List<TextOperation> ops, long rev) {
+        this.ops = ops;
+        this.rev = rev;
+    }
+
+    // 큰 붙여넣기처럼 압축할 만한 프레임은 압축해서 받는 멤버에게 압축한 것을 준다 (송신 워커가 다시 압축하지 않는다)
+    WebSocketMessage<?> frameFor(OutboundQueue out) {
+        FrameCompression compression = out.getCompression();
+        if (out.isBinaryOps()) {
+            if (binary == null) {
+                binary = ops.size() == 1
+                        ? BinaryOps.encodeOperation(ops.get(0), rev)
+                        : BinaryOps.encodeBatch(ops, rev);
+            }
+            if (compression != null && compression.worthCompressing(binary.length)) {
+                if (deflatedBinary == null) {
+                    deflatedBinary = compression.deflate(FrameCompression.DEFLATED_BINARY, binary);
+                }
+                return SharedFrame.binaryFrame(deflatedBinary);
+            }
+            return SharedFrame.binaryFrame(binary);
+        }
+        if (json == null) {
+            json = ops.size() == 1 ? operationMessage(ops.get(0), rev) : batchMessage(ops, rev);
+        }
+        if (compression != null && compression.worthCompressing(json.getPayloadLength())) {
+            if (deflatedJson == null) {
+                deflatedJson = compression.deflate(FrameCompression.DEFLATED_TEXT, json.asBytes());
+            }
+            return SharedFrame.binaryFrame(deflatedJson);
+        }
+        return json;
+    }
+
+    private static TextMessage operationMessage(TextOperation op, long rev) {
+        JSONObject change = operationJson(op);
+        change.put("rev", rev);
+        return OutboundQueue.textFrame(change.toString());
+    }
+
+    private static TextMessage batchMessage(List<TextOperation> ops, long rev) {
+        JSONArray array = new JSONArray();
+        for (TextOperation op : ops) {
+            array.put(operationJson(op));
+        }
+        JSONObject batch = new JSONObject();
+        batch.put("type", "batch");
+        batch.put("ops", array);
+        batch.put("rev", rev);
+        return OutboundQueue.textFrame(batch.toString());
+    }
+
+    // MySocketHandler.parseOperation 으로 다시 읽을 수 있는 형태
+    static JSONObject operationJson(TextOperation op) {
+        JSONObject change = new JSONObject();
+        if (op.start() == op.end()) {
+            change.put("type", "add");
+            change.put("position", op.start());
+            change.put("text", op.text());
+        } else if (op.text().isEmpty()) {
+            change.put("type", "delete");
+            change.put("start", op.start());
+            change.put("end", op.end());
+        } else {
+            change.put("type", "edit");
+            change.put("start", op.start());
+            change.put("end", op.end());
+            change.put("text", op.text());
+        }
+        return change;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.dscteam1.WebSocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 세션 하나의 비동기 송신 큐
+// 방 메일박스는 메시지를 큐에 넣기만 하고 바로 돌아가며, 실제 sendMessage 는 송신 풀의 워커가
+// 세션별로 하나씩 순서대로 한다. 느린 클라이언트는 자기 큐만 쌓이고 다른 사용자의 편집을 막지 않는다.
+// 큐가 한도를 넘으면 설정된 정책(RESYNC: 비우고 전체 텍스트 재전송 / DISCONNECT: 연결 종료)을 따른다.
+public class OutboundQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboundQueue.class);
+
+    public enum OverflowPolicy {
+        // 쌓인 메시지를 버리고 init 으로 전체 텍스트를 다시 보낸다
+        RESYNC,
+        // 세션을 닫는다 (클라이언트가 다시 접속하면 init 을 받는다)
+        DISCONNECT
+    }
+
+    // 송신 큐 한도와 넘쳤을 때의 정책, 큰 프레임 압축 (?compress=deflate 로 고른 세션만)
+    public record Settings(int maxMessages, long maxBytes, OverflowPolicy overflowPolicy,
+                           FrameCompression compression) {
+    }
+
+    // 여러 프레임으로 나눠 보내는 전송 (큰 문서의 init 등)
+    // 큐에는 한 항목으로 들어가고, 송신 워커가 보낼 차례에 한 프레임씩 만들어 보낸다.
+    // 미리 전부 직렬화해 큐에 쌓지 않으므로 문서 크기와 상관없이 메모리는 프레임 하나만큼 쓴다.
+    public interface FrameSource {
+        // 다음 프레임 (다 보냈으면 null)
+        WebSocketMessage<?> next();
+    }
+
+    private final WebSocketSession session;
+    private final Settings settings;
+    private final Executor senders;
+
+    private final ConcurrentLinkedQueue<WebSocketMessage<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicLong queuedBytes = new AtomicLong();
+
+    // 누적 통계
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+
+    // RESYNC 정책일 때 큐를 비운 뒤 전체 텍스트를 다시 넣어 주는 콜백 (방 메일박스 스레드에서 호출)
+    private volatile Runnable resyncHandler;
+    private volatile boolean closed;
+
+    // 편집 연산(add/delete/edit, ack)을 BinaryOps 프레임으로 받는 세션인지 (접속 시 ?proto=bin)
+    private volatile boolean binaryOps;
+
+    // 큰 프레임을 압축해 받는 세션인지 (접속 시 ?compress=deflate, editor.compression.mode=threshold 일 때만)
+    private volatile boolean compressed;
+
+    // 송신 워커가 지금 보내고 있는 여러 프레임 전송 (큐를 비울 때 함께 멈춘다)
+    private volatile Streamed streaming;
+
+    public OutboundQueue(WebSocketSession session, Settings settings, Executor senders) {
+        this.session = session;
+        this.settings = settings;
+        this.senders = senders;
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    void setResyncHandler(Runnable resyncHandler) {
+        this.resyncHandler = resyncHandler;
+    }
+
+    boolean isBinaryOps() {
+        return binaryOps;
+    }
+
+    void setBinaryOps(boolean binaryOps) {
+        this.binaryOps = binaryOps;
+    }
+
+    // 압축해서 받는 세션이면 압축 설정, 아니면 null
+    FrameCompression getCompression() {
+        return compressed ? settings.compression() : null;
+    }
+
+    void setCompressed(boolean compressed) {
+        this.compressed = compressed && settings.compression().compressesFrames();
+    }
+
+    // 송신용 텍스트 프레임: UTF-8 바이트를 한 번만 만들어 둔다
+    // 문자열로 만든 TextMessage 는 getPayloadLength() 를 부를 때마다 다시 인코딩하므로,
+    // 바이트 한도 계산과 여러 세션 공유에 쓰는 프레임은 모두 여기서 만든다.
+    public static TextMessage textFrame(String payload) {
+        return new TextMessage(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void send(String payload) {
+        send(textFrame(payload));
+    }
+
+    // 한도를 넘으면 정책에 따라 처리하고 false
+    // 바이트 한도는 쌓인 메시지가 있을 때만 본다 (큰 문서의 init 하나가 한도보다 커도 보낼 수 있게)
+    public boolean send(WebSocketMessage<?> message) {
+        if (closed) return false;
+        int current = depth.get();
+        if (current >= settings.maxMessages()
+                || (current > 0 && queuedBytes.get() + message.getPayloadLength() > settings.maxBytes())) {
+            overflow();
+            return false;
+        }
+        enqueue(message);
+        return true;
+    }
+
+    // 한도와 상관없이 넣는다 (재동기화용 init)
+    void sendForced(WebSocketMessage<?> message) {
+        if (closed) return;
+        enqueue(message);
+    }
+
+    // 프레임 여러 개를 차례로 보낸다 (큐 한도에서는 한 항목, 0 바이트로 센다)
+    public boolean send(FrameSource frames) {
+        return send(new Streamed(frames));
+    }
+
+    void sendForced(FrameSource frames) {
+        sendForced(new Streamed(frames));
+    }
+
+    public void close() {
+        closed = true;
+        clear();
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("binaryOps", binaryOps);
+        map.put("compressed", compressed);
+        map.put("queued", depth.get());
+        map.put("queuedBytes", queuedBytes.get());
+        map.put("maxQueued", maxDepth.get());
+        map.put("sent", sent.get());
+        map.put("dropped", dropped.get());
+        map.put("resyncs", resyncs.get());
+        return map;
+    }
+
+    private void enqueue(WebSocketMessage<?> message) {
+        queue.offer(message);
+        queuedBytes.addAndGet(message.getPayloadLength());
+        int current = depth.incrementAndGet();
+        if (current > maxDepth.get()) {
+            maxDepth.set(current);
+        }
+        trySchedule();
+    }
+
+    private void overflow() {
+        if (settings.overflowPolicy() == OverflowPolicy.DISCONNECT) {
+            closed = true;
+            dropped.addAndGet(clear() + 1);
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE.withReason("Outbound queue overflow"));
+            } catch (IOException e) {
+                log.warn("송신 큐가 넘친 세션 {} 닫기 실패", session.getId(), e);
+            }
+            return;
+        }
+        dropped.addAndGet(clear() + 1);
+        resyncs.incrementAndGet();
+        Runnable handler = resyncHandler;
+        if (handler != null) {
+            handler.run();
+        }
+    }
+
+    private int clear() {
+        Streamed current = streaming;
+        if (current != null) {
+            current.cancelled = true;
+        }
+        int removed = 0;
+        WebSocketMessage<?> message;
+        while ((message = queue.poll()) != null) {
+            depth.decrementAndGet();
+            queuedBytes.addAndGet(-message.getPayloadLength());
+            removed++;
+        }
+        return removed;
+    }
+
+    private void trySchedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 종료 중
+                scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        WebSocketMessage<?> message;
+        while ((message = queue.poll()) != null) {
+            depth.decrementAndGet();
+            queuedBytes.addAndGet(-message.getPayloadLength());
+            if (closed || !session.isOpen()) continue;
+            try {
+                if (message instanceof Streamed streamed) {
+                    sendFrames(streamed);
+                } else {
+                    session.sendMessage(compressed ? settings.compression().encode(message) : message);
+                    sent.incrementAndGet();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // 전송 실패한 세션은 닫히면서 afterConnectionClosed 에서 정리된다
+                closed = true;
+            }
+        }
+        scheduled.set(false);
+        if (!queue.isEmpty()) {
+            trySchedule();
+        }
+    }
+
+    private void sendFrames(Streamed streamed) throws IOException {
+        streaming = streamed;
+        try {
+            WebSocketMessage<?> frame;
+            while (!streamed.cancelled && !closed && (frame = streamed.frames.next()) != null) {
+                session.sendMessage(compressed ? settings.compression().encode(frame) : frame);
+                sent.incrementAndGet();
+            }
+        } finally {
+            streaming = null;
+        }
+    }
+
+    // 큐 안에서 FrameSource 를 담는 항목 (보낼 때 풀어서 프레임별로 보낸다)
+    private static final class Streamed implements WebSocketMessage<FrameSource> {
+        private final FrameSource frames;
+        private volatile boolean cancelled;
+
+        Streamed(FrameSource frames) {
+            this.frames = frames;
+        }
+
+        @Override
+        public FrameSource getPayload() {
+            return frames;
+        }
+
+        @Override
+        public int getPayloadLength() {
+            return 0;
+        }
+
+        @Override
+        public boolean isLast() {
+            return true;
+        }
+    }
+}
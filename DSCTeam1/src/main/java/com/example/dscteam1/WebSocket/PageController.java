@@ -1,56 +1,145 @@
 package com.example.dscteam1.WebSocket;
 
+import com.example.dscteam1.Persistence.DocumentStore;
+import com.example.dscteam1.Persistence.SaveJobs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Controller
 public class PageController {
 
+    private static final Logger log = LoggerFactory.getLogger(PageController.class);
+
+    private final RoomManager rooms;
+
+    private final DocumentStore documents;
+
+    // 클러스터 모드가 아니면 null
+    private final ClusterRouter cluster;
+
+    public PageController(RoomManager rooms, DocumentStore documents, Optional<ClusterRouter> cluster) {
+        this.rooms = rooms;
+        this.documents = documents;
+        this.cluster = cluster.orElse(null);
+    }
+
     @GetMapping("/")
     public String redirectToEditor() {
         return "redirect:/WebSocketTest.html"; // static/WebSocketTest.html 로 이동
     }
 
 
+    // doc 파라미터가 없으면 기본 방(default)의 문서를 저장
+    // 저장은 백그라운드에서 하고 바로 "OK <작업 번호>" 를 돌려준다 (진행 상황: GET /save/status?id=)
     @PostMapping("/save")
     @ResponseBody
-    public String saveSharedText(@RequestParam("fileName") String fileName) {
+    public String saveSharedText(@RequestParam("fileName") String fileName,
+                                 @RequestParam(value = "doc", defaultValue = RoomManager.DEFAULT_DOC) String docId) {
+        if (!RoomManager.isValidDocId(docId)) {
+            return "ERROR: 잘못된 문서 ID입니다: " + docId;
+        }
         try {
-            MySocketHandler.saveToFile(fileName);
-            return "OK";
+            // 클러스터 모드에서는 방을 맡은 노드에서만 저장한다
+            if (cluster != null) {
+                cluster.ensureHosted(docId);
+            }
+            SaveJobs.Job job = rooms.saveToFile(docId, fileName);
+            return "OK " + job.getId();
         } catch (IOException e) {
-            e.printStackTrace();
+            log.warn("저장 요청 실패: {} → {}", docId, fileName, e);
             return "ERROR: " + e.getMessage();
         }
     }
 
+    // GET /save/status?id=<작업 번호>
+    // 저장 작업 상태 (state: QUEUED | WRITING | DONE | FAILED, 쓴 문자 수 / 전체 문자 수)
+    @GetMapping("/save/status")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> saveStatus(@RequestParam("id") long jobId) {
+        SaveJobs.Job job = rooms.getSaveJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job.toMap());
+    }
+
     @PostMapping("/load")
     @ResponseBody
-    public String loadSharedText(@RequestParam("fileName") String fileName) {
+    public String loadSharedText(@RequestParam("fileName") String fileName,
+                                 @RequestParam(value = "doc", defaultValue = RoomManager.DEFAULT_DOC) String docId) {
+        if (!RoomManager.isValidDocId(docId)) {
+            return "ERROR: 잘못된 문서 ID입니다: " + docId;
+        }
         try {
-            MySocketHandler.loadFromFile(fileName);
+            if (cluster != null) {
+                cluster.ensureHosted(docId);
+            }
+            rooms.loadFromFile(docId, fileName);
             return "OK";
         } catch (IOException e) {
-            e.printStackTrace();
+            log.warn("불러오기 요청 실패: {} → {}", fileName, docId, e);
             return "ERROR: " + e.getMessage();
         }
     }
 
     // GET /listFiles
-    // saved_files 디렉토리 내의 모든 파일명을 JSON 배열로 반환
-    // 예: ["memo1.txt", "collab.txt", ...]
+    // saved_files 디렉토리 내의 모든 파일명을 JSON 배열로 반환 (이름순)
+    // 예: ["collab.txt", "memo1.txt", ...]
 
     @GetMapping("/listFiles")
     @ResponseBody
     public List<String> listFiles() {
         try {
-            return MySocketHandler.listSavedFiles();
-        } catch (IOException e) {
-            e.printStackTrace();
+            return rooms.listSavedFiles();
+        } catch (RuntimeException e) {
+            log.warn("파일 목록 조회 실패", e);
             // 에러 시 빈 리스트 반환
             return List.of();
         }
     }
+
+    // GET /files?page=0&size=100
+    // 파일 목록 한 페이지 (이름순): 크기, 수정 시각, 문자 / 줄 수(모르면 -1), 저장 버전
+    // 예: {"files":[{"fileName":"memo1.txt","sizeBytes":120,...}],"page":0,"size":100,"total":1,"pages":1}
+    @GetMapping("/files")
+    @ResponseBody
+    public Map<String, Object> listFilePage(@RequestParam(value = "page", defaultValue = "0") int page,
+                                            @RequestParam(value = "size", defaultValue = "100") int size) {
+        return documents.listPage(page, size);
+    }
+
+    // GET /files/versions?fileName=memo1.txt&limit=20
+    // 편집기로 저장한 기록 (최근 것부터): 버전, 저장한 문서 ID, 크기, 문자 / 줄 수, 시각
+    @GetMapping("/files/versions")
+    @ResponseBody
+    public List<Map<String, Object>> listFileVersions(@RequestParam("fileName") String fileName,
+                                                      @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return documents.listVersions(fileName, limit);
+    }
+
+    // GET /rooms/stats
+    // 방별 처리 통계 (적용 순서 번호, 처리량, 배치 크기, p50/p99 적용 지연)
+    @GetMapping("/rooms/stats")
+    @ResponseBody
+    public List<Map<String, Object>> roomStats() {
+        return rooms.getRoomStats();
+    }
+
+    // GET /cluster/status
+    // 이 노드 ID, 연결된 노드, 문서별 주인 노드와 이 노드가 맡은 방 (클러스터 모드가 아니면 404)
+    @GetMapping("/cluster/status")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> clusterStatus() {
+        if (cluster == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(cluster.toMap());
+    }
 }
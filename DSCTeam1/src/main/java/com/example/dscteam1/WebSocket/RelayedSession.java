@@ -0,0 +1,154 @@
+package com.example.dscteam1.WebSocket;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 다른 노드에 붙은 웹소켓 세션을 방을 가진 노드에서 대신하는 세션 (클러스터 모드)
+// 보내는 프레임은 ClusterRouter 가 그 노드로 넘기고, 그 노드가 진짜 세션에 보낸다.
+// 송신 큐(OutboundQueue)는 방 메일박스 스레드에서 바로 비우므로(노드별 전송 큐가 대신 쌓는다)
+// 이 세션으로 보낸 프레임과 노드 단위로 나눠 보내는 브로드캐스트(fanout)의 순서가 섞이지 않는다.
+class RelayedSession implements WebSocketSession {
+
+    private final ClusterRouter router;
+    private final String node;
+    private final String docId;
+    private final String sessionId;
+    private final URI uri;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private volatile boolean open = true;
+
+    RelayedSession(ClusterRouter router, String node, String docId, String sessionId, URI uri) {
+        this.router = router;
+        this.node = node;
+        this.docId = docId;
+        this.sessionId = sessionId;
+        this.uri = uri;
+    }
+
+    ClusterRouter getRouter() {
+        return router;
+    }
+
+    String getNode() {
+        return node;
+    }
+
+    String getDocId() {
+        return docId;
+    }
+
+    // 그 노드에서의 세션 ID
+    String getSessionId() {
+        return sessionId;
+    }
+
+    // 방에 들어간 뒤 첫 메시지보다 먼저 보낸다: 그 노드는 이때부터 이 세션에 브로드캐스트를 나눠 준다
+    void attach() {
+        if (open) {
+            router.relayAttached(this);
+        }
+    }
+
+    // 방을 다른 노드로 넘기거나 멤버가 나갈 때 (더는 보내지 않는다)
+    void detach() {
+        open = false;
+    }
+
+    @Override
+    public String getId() {
+        return node + ":" + sessionId;
+    }
+
+    @Override
+    public URI getUri() {
+        return uri;
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return HttpHeaders.EMPTY;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return null;
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return List.of();
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        if (open) {
+            router.relayOut(this, message);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open && router.isLive(node);
+    }
+
+    @Override
+    public void close() {
+        close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        if (open) {
+            open = false;
+            router.relayClose(this, status);
+        }
+    }
+}
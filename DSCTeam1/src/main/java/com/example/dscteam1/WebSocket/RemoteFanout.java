@@ -0,0 +1,52 @@
+package com.example.dscteam1.WebSocket;
+
+import com.example.dscteam1.Document.TextOperation;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// 다른 노드에 붙은 멤버(RelayedSession)들에게 갈 브로드캐스트를 노드마다 한 번만 보낸다 (클러스터 모드)
+// 받은 노드가 자기 세션들에 나눠 준다. 방 메일박스 스레드에서 브로드캐스트 하나마다 만들어 쓴다.
+final class RemoteFanout {
+
+    private final ClusterRouter router;
+    private final String docId;
+    private final Set<String> nodes = new LinkedHashSet<>();
+
+    private RemoteFanout(ClusterRouter router, String docId) {
+        this.router = router;
+        this.docId = docId;
+    }
+
+    // 처음 만난 다른 노드 멤버에서 만든다 (fanout 이 null 이면 새로)
+    static RemoteFanout add(RemoteFanout fanout, RelayedSession session) {
+        if (fanout == null) {
+            fanout = new RemoteFanout(session.getRouter(), session.getDocId());
+        }
+        fanout.nodes.add(session.getNode());
+        return fanout;
+    }
+
+    void send(WebSocketMessage<?> frame, OutboundQueue except) {
+        for (String node : nodes) {
+            router.relayFanout(docId, node, frame, exceptOn(node, except));
+        }
+    }
+
+    void sendOperations(List<TextOperation> ops, long rev, OutboundQueue except) {
+        for (String node : nodes) {
+            router.relayOperations(docId, node, ops, rev, exceptOn(node, except));
+        }
+    }
+
+    // 뺄 세션이 그 노드의 세션이면 그 노드에서의 세션 ID
+    private static String exceptOn(String node, OutboundQueue except) {
+        if (except != null && except.getSession() instanceof RelayedSession relayed
+                && relayed.getNode().equals(node)) {
+            return relayed.getSessionId();
+        }
+        return null;
+    }
+}
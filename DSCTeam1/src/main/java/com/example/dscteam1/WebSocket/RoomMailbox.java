@@ -0,0 +1,100 @@
+package com.example.dscteam1.WebSocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// 방 하나의 단일 작성자(single-writer) 메일박스
+// 여러 Tomcat 스레드가 동시에 작업을 넣을 수 있지만(lock-free MPSC 큐), 실행은 항상 워커 하나가
+// 넣은 순서대로 하므로 방 상태(텍스트, 라인 락)는 별도 락 없이 변경된다.
+// 방마다 메일박스가 따로 있고 워커 풀을 공유하므로 여러 방이 여러 CPU 에서 동시에 처리된다.
+class RoomMailbox {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomMailbox.class);
+
+    // 한 번 실행될 때 처리하는 최대 작업 수 (다른 방에게 워커를 양보하기 위한 상한)
+    private static final int BATCH_LIMIT = 256;
+
+    private final ConcurrentLinkedQueue<Task> queue = new ConcurrentLinkedQueue<>();
+
+    // 워커에 실행 예약되어 있는지 여부 (동시에 두 워커가 drain 하지 않도록)
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // 큐에 쌓인 작업 수 (ConcurrentLinkedQueue.size() 는 O(n) 이라 따로 센다)
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final Executor executor;
+    private final RoomStats stats;
+
+    RoomMailbox(Executor executor, RoomStats stats) {
+        this.executor = executor;
+        this.stats = stats;
+    }
+
+    void submit(Runnable action) {
+        queue.offer(new Task(action, System.nanoTime()));
+        depth.incrementAndGet();
+        trySchedule();
+    }
+
+    // 메일박스 스레드에서 값을 계산해 돌려받는다 (스냅샷 등 읽기용)
+    <T> CompletableFuture<T> call(Supplier<T> supplier) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        submit(() -> {
+            try {
+                result.complete(supplier.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    int getDepth() {
+        return depth.get();
+    }
+
+    private void trySchedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 종료 중: 남은 작업은 버린다
+                scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        int applied = 0;
+        Task task;
+        while (applied < BATCH_LIMIT && (task = queue.poll()) != null) {
+            depth.decrementAndGet();
+            try {
+                task.action.run();
+            } catch (Exception e) {
+                log.error("메일박스 작업 실패", e);
+            }
+            stats.recordApply(System.nanoTime() - task.enqueuedAt);
+            applied++;
+        }
+        if (applied > 0) {
+            stats.recordBatch(applied);
+        }
+        scheduled.set(false);
+        // 내려놓는 사이에 들어온 작업이 있으면 다시 예약
+        if (!queue.isEmpty()) {
+            trySchedule();
+        }
+    }
+
+    private record Task(Runnable action, long enqueuedAt) {
+    }
+}
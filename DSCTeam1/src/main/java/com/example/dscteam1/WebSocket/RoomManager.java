@@ -0,0 +1,475 @@
+package com.example.dscteam1.WebSocket;
+
+import com.example.dscteam1.Document.RopeDocument;
+import com.example.dscteam1.Document.TextDocument;
+import com.example.dscteam1.Persistence.DocumentStore;
+import com.example.dscteam1.Persistence.EditLog;
+import com.example.dscteam1.Persistence.EditLogWriter;
+import com.example.dscteam1.Persistence.SaveJobs;
+import com.example.dscteam1.Persistence.TextFiles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+// 문서 ID → 방(DocumentRoom) 매핑 관리
+// 멤버가 없는 방은 일정 시간이 지나면 디스크(saved_files/.rooms)로 내보내고 메모리에서 제거한다.
+// 편집 기록을 켜면 방마다 saved_files/.rooms/<문서ID>/ 에 확정된 연산을 계속 기록하므로,
+// 서버가 비정상 종료되어도 다시 열 때 마지막 그룹 커밋까지의 편집이 복구된다.
+public class RoomManager {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomManager.class);
+
+    // 문서 ID 를 지정하지 않은 접속이 들어가는 방
+    public static final String DEFAULT_DOC = "default";
+
+    // 프로젝트 루트/실행 위치 기준으로 “saved_files” 폴더 경로 지정
+    static final String SAVE_DIR = "saved_files";
+
+    // 유휴 방을 내보내는 폴더 (saved_files 목록에는 나타나지 않음)
+    private static final Path ROOM_DIR = Paths.get(SAVE_DIR, ".rooms");
+
+    // 문서 ID 는 파일명으로도 쓰이므로 안전한 문자만 허용
+    private static final Pattern DOC_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]{0,63}");
+
+    // 유휴 방 체크 주기 (5초)
+    private static final long SWEEP_INTERVAL = 5000;
+
+    // 락 만료 타이머 간격: 락은 만료 시각이 지나고 최대 이만큼 늦게 풀린다
+    private static final long LOCK_TICK = 250;
+
+    // 멤버가 모두 나간 뒤 방을 내보내기까지 대기 시간 (1분)
+    private static final long ROOM_IDLE_TIMEOUT = 60000;
+
+    private final Map<String, DocumentRoom> rooms = new ConcurrentHashMap<>();
+
+    // 유휴 정리로 맵에서 빼고 내보내는 중인 방 → 끝나면 완료 (실패한 방은 완료 전에 맵에 되돌린다)
+    // 그 사이 같은 문서에 들어오면 디스크에서 되살리기 전에 기다린다 (닫히는 중인 기록을 읽지 않도록)
+    private final Map<String, CompletableFuture<Void>> closing = new ConcurrentHashMap<>();
+
+    // 디스크에서 되살리는 중인 방 → 맵에 넣으면 완료
+    // 같은 문서를 동시에 열면 먼저 시작한 쪽을 기다린다 (같은 편집 기록을 두 번 복구하면 쓰던 세그먼트를 덮어쓴다)
+    private final Map<String, CompletableFuture<DocumentRoom>> loading = new ConcurrentHashMap<>();
+
+    // 락 만료 / 유휴 방 체크 스케줄러
+    private final ScheduledExecutorService sweeper;
+
+    // 방 메일박스를 실행하는 워커 풀 (방 하나는 한 번에 워커 하나만 사용)
+    private final ExecutorService writers = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), namedThreads("room-writer-"));
+
+    // 세션별 송신 큐를 비우는 워커 풀
+    // 느린 클라이언트의 blocking send 가 다른 세션을 막지 않도록 필요한 만큼 스레드를 늘린다
+    // (가상 스레드 모드에서는 송신마다 가상 스레드라 기다리는 동안 플랫폼 스레드를 붙잡지 않는다)
+    private final ExecutorService senders;
+
+    private final OutboundQueue.Settings outboundSettings;
+
+    // 편집 기록 그룹 커밋 (null 이면 기록하지 않고 방을 내보낼 때만 텍스트 파일로 쓴다)
+    private final EditLogWriter editLogs;
+
+    // /save 백그라운드 저장 작업
+    private final SaveJobs saveJobs;
+
+    // saved_files 목록 / 메타데이터 / 불러온 문서 캐시
+    private final DocumentStore documents;
+
+    private final EditorMetrics metrics;
+
+    public RoomManager(OutboundQueue.Settings outboundSettings, EditLogWriter.Settings editLogSettings,
+                       EditorMetrics metrics, WorkerThreads threads, DocumentStore documents) {
+        this.outboundSettings = outboundSettings;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(threads.named("room-sweeper-"));
+        this.senders = threads.cachedPool("session-sender-");
+        this.editLogs = editLogSettings != null ? new EditLogWriter(editLogSettings, threads::named) : null;
+        this.metrics = metrics;
+        this.documents = documents;
+        this.saveJobs = new SaveJobs(job -> {
+            metrics.saveFinished(job);
+            documents.saved(job);
+        }, threads.named("save-writer-"));
+        metrics.registerOutboundGauges(this);
+        metrics.registerCompression(outboundSettings.compression());
+        metrics.registerDocumentStore(documents);
+        // 애플리케이션 시작 시 saved_files 폴더가 없으면 만든다
+        File dir = ROOM_DIR.toFile();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        sweeper.scheduleAtFixedRate(this::expireLocks, LOCK_TICK, LOCK_TICK, TimeUnit.MILLISECONDS);
+        sweeper.scheduleAtFixedRate(this::sweep, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+        // 밖에서 넣거나 지운 파일을 목록에 반영 (시작할 때 한 번은 항상)
+        long rescanInterval = documents.getSettings().rescanIntervalMillis();
+        if (rescanInterval > 0) {
+            sweeper.scheduleWithFixedDelay(documents::rescan, 0, rescanInterval, TimeUnit.MILLISECONDS);
+        } else {
+            sweeper.execute(documents::rescan);
+        }
+    }
+
+    EditorMetrics getMetrics() {
+        return metrics;
+    }
+
+    public static boolean isValidDocId(String docId) {
+        return docId != null && DOC_ID_PATTERN.matcher(docId).matches();
+    }
+
+    public OutboundQueue newOutboundQueue(WebSocketSession session) {
+        return new OutboundQueue(session, outboundSettings, senders);
+    }
+
+    // 다른 노드에 붙은 세션(RelayedSession)용 송신 큐 (클러스터 모드)
+    // 방 메일박스 스레드에서 바로 비워 노드별 전송 큐에 넘긴다 (쌓이는 것은 노드 사이 연결 쪽)
+    OutboundQueue newRelayedQueue(WebSocketSession session) {
+        return new OutboundQueue(session, outboundSettings, Runnable::run);
+    }
+
+    // 방에 멤버를 등록한다. 같은 아이디가 이미 접속해 있으면 null
+    // 방은 맵 밖에서 열고, 멤버 등록만 computeIfPresent 안에서 하므로 유휴 방 정리와 경쟁하지 않는다.
+    // (등록하기 직전에 유휴 정리로 빠진 방이면 다시 연다)
+    public DocumentRoom join(String docId, String userId, OutboundQueue out) {
+        while (true) {
+            DocumentRoom room = getOrLoad(docId);
+            boolean[] added = new boolean[1];
+            DocumentRoom current = rooms.computeIfPresent(docId, (id, r) -> {
+                if (r == room) {
+                    added[0] = r.addMember(userId, out);
+                }
+                return r;
+            });
+            if (current == room) {
+                return added[0] ? room : null;
+            }
+        }
+    }
+
+    public boolean leave(DocumentRoom room, String userId, WebSocketSession session) {
+        return room.removeMember(userId, session);
+    }
+
+    // 저장/불러오기 요청용: 메모리에 없으면 디스크에서 되살린다
+    public DocumentRoom getOrLoad(String docId) {
+        DocumentRoom room = rooms.get(docId);
+        return room != null ? room : loadRoom(docId);
+    }
+
+    // 방을 다른 노드에 넘길 때 (클러스터 모드): 멤버가 있어도 메모리에서 빼고 디스크로 내보낸다
+    // 편집 기록을 닫으며 스냅샷을 찍으므로 새 주인 노드는 saved_files/.rooms 에서 마지막 리비전부터 이어 간다
+    // 내보낸 방은 멤버를 비우고 그 뒤에 들어온 작업을 버리므로, 부르는 쪽은 멤버를 먼저 다른 방으로 옮길 준비를 한다.
+    public void release(String docId) throws IOException {
+        DocumentRoom room = rooms.remove(docId);
+        if (room != null) {
+            evictRoom(room);
+            metrics.unregisterRoom(docId);
+        }
+    }
+
+    // 메모리에 있거나 여는 중이거나 내보내는 중인 방인지 (클러스터 모드에서 맡기를 그만둘 때)
+    boolean isLoaded(String docId) {
+        return rooms.containsKey(docId) || loading.containsKey(docId) || closing.containsKey(docId);
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    // 모든 방 멤버의 송신 큐 길이 (계측 게이지)
+    IntStream outboundDepths() {
+        return rooms.values().stream().flatMapToInt(DocumentRoom::outboundDepths);
+    }
+
+    // 만료 시각이 지난 락이 있는 방만 메일박스에 만료 작업을 넣는다 (나머지 방은 건드리지 않음)
+    private void expireLocks() {
+        long now = System.currentTimeMillis();
+        for (DocumentRoom room : rooms.values()) {
+            if (room.hasExpiredLocks(now)) {
+                room.submit(() -> room.expireLocks(System.currentTimeMillis()));
+            }
+        }
+    }
+
+    // 주기적으로 유휴 방 내보내기
+    // compute 안에서는 (아직 유휴면) 맵에서 빼기만 하고, 스냅샷 쓰기는 방 메일박스에서 한다
+    // (같은 칸의 join 이나 이 스레드의 락 만료 타이머가 파일 쓰기를 기다리지 않도록)
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        for (DocumentRoom room : rooms.values()) {
+            if (!room.isIdle(now, ROOM_IDLE_TIMEOUT)) continue;
+            CompletableFuture<Void> closed = new CompletableFuture<>();
+            rooms.computeIfPresent(room.getDocId(), (id, r) -> {
+                if (r != room || !r.isIdle(now, ROOM_IDLE_TIMEOUT)) return r;
+                closing.put(id, closed);
+                return null;
+            });
+            if (closing.get(room.getDocId()) == closed) {
+                closeIdleRoom(room, closed);
+            }
+        }
+    }
+
+    // 내보내기에 실패하면 방을 맵에 되돌려 계속 쓴다 (계측도 그대로)
+    // 기다리던 loadRoom 이 디스크에서 다시 열지 않도록 되돌린 뒤에 완료한다
+    private void closeIdleRoom(DocumentRoom room, CompletableFuture<Void> closed) {
+        String docId = room.getDocId();
+        evictAsync(room).whenComplete((ignored, error) -> {
+            if (error == null) {
+                metrics.unregisterRoom(docId);
+            } else {
+                log.warn("유휴 방 {} 내보내기 실패 (메모리에 되돌림)", docId, error);
+                rooms.putIfAbsent(docId, room);
+            }
+            closed.complete(null);
+            closing.remove(docId, closed);
+        });
+    }
+
+    // 맵 밖에서 방을 되살려 넣는다 (디스크 읽기와 기록 재생 동안 맵의 칸을 잡지 않도록)
+    // 같은 문서를 이미 여는 중이면 그 결과를 기다린다.
+    private DocumentRoom loadRoom(String docId) {
+        CompletableFuture<DocumentRoom> loaded = new CompletableFuture<>();
+        CompletableFuture<DocumentRoom> running = loading.putIfAbsent(docId, loaded);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            DocumentRoom room = restoreRoom(docId);
+            loaded.complete(room);
+            return room;
+        } catch (RuntimeException e) {
+            loaded.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(docId, loaded);
+        }
+    }
+
+    private DocumentRoom restoreRoom(String docId) {
+        CompletableFuture<Void> closed = closing.get(docId);
+        if (closed != null) {
+            closed.join();
+        }
+        // 앞서 열던 쪽이 막 넣었거나, 내보내기에 실패해 되돌아온 방
+        DocumentRoom existing = rooms.get(docId);
+        if (existing != null) return existing;
+
+        DocumentRoom room = openRoom(docId);
+        existing = rooms.putIfAbsent(docId, room);
+        if (existing != null) {
+            // 여는 동안 다른 쪽이 먼저 넣었다: 연 방은 아직 아무도 쓰지 않았으므로 스냅샷 없이 닫는다
+            room.discard();
+            return existing;
+        }
+        metrics.registerRoom(room);
+        return room;
+    }
+
+    // 내보낸 파일을 읽지 못하면 빈 방으로 열지 않고 실패시킨다 (빈 방을 내보내거나 첫 스냅샷으로 옮기면 문서가 지워진다)
+    private DocumentRoom openRoom(String docId) {
+        Path file = ROOM_DIR.resolve(docId + ".txt");
+        String text = "";
+        if (Files.exists(file)) {
+            try {
+                text = Files.readString(file, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("내보낸 방 읽기 실패: " + docId, e);
+            }
+        }
+        if (editLogs == null) {
+            return new DocumentRoom(docId, new RopeDocument(text), 0, null, writers, metrics);
+        }
+        try {
+            return recoverRoom(docId, file, text);
+        } catch (IOException e) {
+            throw new UncheckedIOException("편집 기록 복구 실패: " + docId, e);
+        }
+    }
+
+    // 스냅샷 + 기록 재생으로 방을 되살린다
+    // 편집 기록이 없던 때 내보낸 텍스트 파일(<문서ID>.txt)은 첫 스냅샷으로 옮긴 뒤 지운다.
+    private DocumentRoom recoverRoom(String docId, Path legacyFile, String legacyText) throws IOException {
+        Path dir = ROOM_DIR.resolve(docId);
+        boolean migrate = !Files.isDirectory(dir) && Files.exists(legacyFile);
+        EditLog editLog = new EditLog(dir, editLogs);
+        EditLog.Recovered recovered = editLog.recover();
+        if (migrate) {
+            editLog.close(0, new RopeDocument(legacyText));
+            Files.delete(legacyFile);
+            editLog = new EditLog(dir, editLogs);
+            recovered = editLog.recover();
+        }
+        return new DocumentRoom(docId, recovered.text(), recovered.revision(), editLog, writers, metrics);
+    }
+
+    private void evictRoom(DocumentRoom room) throws IOException {
+        await(room, evictAsync(room));
+    }
+
+    // 방 메일박스에서 편집 기록을 닫으며 스냅샷을 찍는다 (기록이 없으면 텍스트 파일로 쓴다)
+    private CompletableFuture<Void> evictAsync(DocumentRoom room) {
+        return room.call(() -> {
+            try {
+                if (room.getEditLog() != null) {
+                    room.closeEditLog();
+                } else {
+                    Path file = ROOM_DIR.resolve(room.getDocId() + ".txt");
+                    TextFiles.writeAtomically(file, room.snapshotDocument(), null);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            room.markClosed();
+            return null;
+        });
+    }
+
+    private static <T> T await(DocumentRoom room, CompletableFuture<T> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("방 작업 대기 중 인터럽트: " + room.getDocId(), e);
+        } catch (ExecutionException e) {
+            throw new IOException("방 작업 실패: " + room.getDocId(), e.getCause());
+        }
+    }
+
+    // 방별 처리 통계 (GET /rooms/stats)
+    public List<Map<String, Object>> getRoomStats() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (DocumentRoom room : rooms.values()) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("doc", room.getDocId());
+            map.put("members", room.getMemberCount());
+            map.put("pendingTasks", room.getPendingTasks());
+            map.putAll(room.getStats().toMap());
+            map.put("outbound", room.getOutboundStats());
+            if (room.getEditLog() != null) {
+                map.put("editLog", room.getEditLog().toMap());
+            }
+            result.add(map);
+        }
+        return result;
+    }
+
+    // 종료 시 메모리에 남은 방을 모두 디스크로 내보낸다 (Spring 이 @Bean 종료 시 호출)
+    public void shutdown() {
+        sweeper.shutdownNow();
+        // 유휴 정리로 내보내는 중인 방 (실패한 방은 맵에 되돌아온다)
+        for (CompletableFuture<Void> closed : closing.values()) {
+            closed.join();
+        }
+        for (DocumentRoom room : rooms.values()) {
+            try {
+                evictRoom(room);
+            } catch (IOException e) {
+                log.warn("종료 중 방 {} 내보내기 실패", room.getDocId(), e);
+            }
+        }
+        saveJobs.shutdown();
+        writers.shutdown();
+        senders.shutdown();
+        if (editLogs != null) {
+            editLogs.shutdown();
+        }
+    }
+
+    static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // ---------------------------------------------------------------------
+    // saved_files 저장/불러오기
+    // ---------------------------------------------------------------------
+
+    // 방 docId 의 내용을 "saved_files/<fileName>" 으로 저장하는 작업을 등록하고 바로 돌려준다
+    // 메일박스에서는 O(1) 사본만 뜨고, 파일 쓰기(임시 파일 + 원자적 이름 변경)는 저장 스레드가 한다.
+    // 진행 상황은 getSaveJob(작업 번호)로 본다.
+    // @param fileName: 예) "memo1.txt" 또는 "collab.txt" (디렉토리 없이 파일명만)
+    public SaveJobs.Job saveToFile(String docId, String fileName) throws IOException {
+        // 1) 파일명을 검증 (예: .. 경로 삽입 방지) - 간단히 “/” 문자가 있으면 예외 처리
+        checkFileName(fileName);
+
+        // 2) Paths.get(SAVE_DIR, fileName) 으로 경로 구성
+        Path filePath = Paths.get(SAVE_DIR, fileName);
+        DocumentRoom room = getOrLoad(docId);
+        CompletableFuture<TextDocument> snapshot = room.call(room::snapshotDocument);
+        return saveJobs.submit(docId, fileName, filePath, snapshot);
+    }
+
+    // 없는(오래되어 지워진) 작업이면 null
+    public SaveJobs.Job getSaveJob(long jobId) {
+        return saveJobs.get(jobId);
+    }
+
+    // "saved_files/<fileName>" 을 읽어서 방 docId 의 텍스트를 덮어쓰고
+    // 방 멤버 전체에게 init 메시지를 보내 클라이언트가 전체 텍스트를 갱신하게 한다
+    // 최근에 불러온 파일이면 디스크를 다시 훑지 않고 캐시의 사본을 쓴다
+    public void loadFromFile(String docId, String fileName) throws IOException {
+        checkFileName(fileName);
+
+        long started = System.nanoTime();
+        boolean loaded = false;
+        try {
+            TextDocument fileContent = documents.open(fileName);
+            DocumentRoom room = getOrLoad(docId);
+            await(room, room.call(() -> {
+                try {
+                    room.replaceText(fileContent);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            }));
+            loaded = true;
+        } finally {
+            metrics.loadFinished(System.nanoTime() - started, loaded);
+        }
+    }
+
+    // saved_files 디렉토리 안의 파일 목록을 String 리스트로 반환하는 메서드
+    // 디렉토리를 훑지 않고 문서 저장소의 목록(캐시)을 읽는다 (숨김 파일, 저장 중인 임시 파일 제외)
+    // @return 예: ["collab.txt", "memo1.txt", …] (이름순)
+    public List<String> listSavedFiles() {
+        return documents.listNames();
+    }
+
+    private static void checkFileName(String fileName) throws IOException {
+        // "." 으로 시작하는 이름은 숨김/임시 파일용으로 남겨 둔다
+        if (fileName.isEmpty() || fileName.startsWith(".") || fileName.contains("/") || fileName.contains("\\")) {
+            throw new IOException("잘못된 파일명입니다: " + fileName);
+        }
+    }
+}
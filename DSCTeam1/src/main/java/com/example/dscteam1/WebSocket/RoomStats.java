@@ -0,0 +1,81 @@
+package com.example.dscteam1.WebSocket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 방 단위 처리 통계: 적용 순서 번호, 처리량, 배치 크기, 적용 지연(큐 대기 + 실행) 분포
+// 쓰기는 메일박스 워커 하나만 하고, 읽기는 /rooms/stats 요청 스레드에서 한다.
+public class RoomStats {
+
+    // 지연 히스토그램 버킷: i 번째 버킷은 [2^(i-1), 2^i) 마이크로초
+    private static final int BUCKETS = 32;
+
+    private final long createdAt = System.currentTimeMillis();
+
+    // 지금까지 적용한 작업 수 = 마지막으로 적용된 작업의 순서 번호
+    private final AtomicLong appliedOps = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong maxBatch = new AtomicLong();
+    private final AtomicLong maxLatencyMicros = new AtomicLong();
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(BUCKETS);
+
+    void recordApply(long latencyNanos) {
+        long micros = Math.max(0, latencyNanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        latencyBuckets.incrementAndGet(bucket);
+        appliedOps.incrementAndGet();
+        if (micros > maxLatencyMicros.get()) {
+            maxLatencyMicros.set(micros);
+        }
+    }
+
+    void recordBatch(int size) {
+        batches.incrementAndGet();
+        if (size > maxBatch.get()) {
+            maxBatch.set(size);
+        }
+    }
+
+    public long getAppliedOps() {
+        return appliedOps.get();
+    }
+
+    // p 분위(0~1) 지연의 상한값 (마이크로초, 버킷 경계 기준)
+    public long latencyPercentileMicros(double p) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = latencyBuckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i == 0 ? 1 : 1L << i;
+            }
+        }
+        return maxLatencyMicros.get();
+    }
+
+    public Map<String, Object> toMap() {
+        long applied = appliedOps.get();
+        long batchCount = batches.get();
+        double seconds = Math.max(1, System.currentTimeMillis() - createdAt) / 1000.0;
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("appliedOps", applied);
+        map.put("opsPerSecond", Math.round(applied / seconds));
+        map.put("batches", batchCount);
+        map.put("avgBatch", batchCount == 0 ? 0 : (double) applied / batchCount);
+        map.put("maxBatch", maxBatch.get());
+        map.put("p50LatencyMicros", latencyPercentileMicros(0.50));
+        map.put("p99LatencyMicros", latencyPercentileMicros(0.99));
+        map.put("maxLatencyMicros", maxLatencyMicros.get());
+        return map;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.dscteam1.WebSocket;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+// 여러 세션에 그대로 보내는 텍스트 프레임 (사용자 목록, 락 스냅샷, 파일 불러오기의 init 등)
+// 압축해서 받는 멤버에게 보낼 압축본을 처음 필요할 때 한 번만 만들어 함께 쓴다
+// (송신 워커에 압축하지 않은 프레임을 넘기면 멤버마다 따로 압축한다). 방 메일박스 스레드에서만 쓴다.
+final class SharedFrame {
+
+    private final TextMessage text;
+    private byte[] deflated;
+
+    SharedFrame(TextMessage text) {
+        this.text = text;
+    }
+
+    WebSocketMessage<?> frameFor(OutboundQueue out) {
+        FrameCompression compression = out.getCompression();
+        if (compression == null || !compression.worthCompressing(text.getPayloadLength())) {
+            return text;
+        }
+        if (deflated == null) {
+            deflated = compression.deflate(FrameCompression.DEFLATED_TEXT, text.asBytes());
+        }
+        return binaryFrame(deflated);
+    }
+
+    TextMessage getText() {
+        return text;
+    }
+
+    // 여러 세션에 보내는 바이너리 프레임은 바이트 배열만 공유하고 세션마다 새 BinaryMessage 로 감싼다
+    // (보낼 때 ByteBuffer 의 위치가 끝까지 움직이므로 메시지 하나를 함께 쓰면 두 번째 세션부터 빈 프레임이 나간다)
+    static BinaryMessage binaryFrame(byte[] bytes) {
+        return new BinaryMessage(bytes);
+    }
+}
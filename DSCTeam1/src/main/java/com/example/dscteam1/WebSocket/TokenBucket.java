@@ -0,0 +1,40 @@
+package com.example.dscteam1.WebSocket;
+
+// 토큰 버킷: 초당 perSecond 개씩 채워지고 burst 개까지 쌓인다 (메시지 하나에 토큰 하나)
+// 세션 버킷은 그 세션의 수신 스레드만, 방 버킷은 여러 세션의 수신 스레드가 함께 쓰므로 synchronized
+final class TokenBucket {
+
+    private final double perNano;
+    private final double burst;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double perSecond, int burst) {
+        this.perNano = perSecond / 1e9;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    synchronized boolean tryAcquire(long now) {
+        refill(now);
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    // 다음 토큰이 생길 때까지 남은 시간 (ms)
+    synchronized long millisUntilNext(long now) {
+        refill(now);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / perNano / 1e6);
+    }
+
+    // 방 버킷은 스레드마다 락을 잡기 전에 now 를 읽으므로 이미 채운 시각보다 이를 수 있다 (그때는 그대로 둔다)
+    private void refill(long now) {
+        if (now <= refilledAt) return;
+        tokens = Math.min(burst, tokens + (now - refilledAt) * perNano);
+        refilledAt = now;
+    }
+}
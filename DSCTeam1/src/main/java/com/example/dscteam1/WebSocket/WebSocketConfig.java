@@ -1,18 +1,224 @@
 package com.example.dscteam1.WebSocket;
 
+import com.example.dscteam1.Cluster.TcpTransport;
+import com.example.dscteam1.Persistence.DocumentStore;
+import com.example.dscteam1.Persistence.EditLogWriter;
+import com.example.dscteam1.Persistence.SavedDocumentRepository;
+import com.example.dscteam1.Persistence.SavedDocumentVersionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
-import com.example.dscteam1.WebSocket.MySocketHandler;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
 
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    // Actuator 가 만든 레지스트리 (Prometheus 레지스트리가 있으면 /actuator/prometheus 로도 노출)
+    private final MeterRegistry meterRegistry;
+
+    // saved_files 메타데이터 / 버전 기록 (내장 DB, spring.datasource.*)
+    private final SavedDocumentRepository savedDocuments;
+    private final SavedDocumentVersionRepository savedDocumentVersions;
+    private final PlatformTransactionManager transactionManager;
+
+    public WebSocketConfig(MeterRegistry meterRegistry, SavedDocumentRepository savedDocuments,
+                           SavedDocumentVersionRepository savedDocumentVersions,
+                           PlatformTransactionManager transactionManager) {
+        this.meterRegistry = meterRegistry;
+        this.savedDocuments = savedDocuments;
+        this.savedDocumentVersions = savedDocumentVersions;
+        this.transactionManager = transactionManager;
+    }
+
+    // 세션별 송신 큐 한도와 넘쳤을 때의 정책 (resync | disconnect)
+    @Value("${editor.outbound.max-messages:1000}")
+    private int outboundMaxMessages;
+
+    @Value("${editor.outbound.max-bytes:8388608}")
+    private long outboundMaxBytes;
+
+    @Value("${editor.outbound.overflow-policy:resync}")
+    private String outboundOverflowPolicy;
+
+    // 편집 기록 (쓰기 전 기록): 그룹 커밋 간격, 세그먼트 크기, 스냅샷 주기(연산 수)
+    @Value("${editor.edit-log.enabled:true}")
+    private boolean editLogEnabled;
+
+    @Value("${editor.edit-log.flush-interval-ms:5}")
+    private long editLogFlushInterval;
+
+    @Value("${editor.edit-log.segment-bytes:67108864}")
+    private long editLogSegmentBytes;
+
+    @Value("${editor.edit-log.snapshot-every:100000}")
+    private int editLogSnapshotEvery;
+
+    @Value("${editor.edit-log.snapshot-compression-level:1}")
+    private int editLogSnapshotCompressionLevel;
+
+    // 세션 송신, 저장 / 편집 기록, 타이머를 가상 스레드로 (Java 21 이상, Tomcat 요청 스레드와 같은 설정)
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // 받는 쪽 한도: 메시지 크기(문자 / 바이트), 편집 하나로 넣는 문자 수, 세션 / 방의 초당 메시지 수와 버스트 (0: 제한 없음)
+    @Value("${editor.limits.max-message-size:1048576}")
+    private int maxMessageSize;
+
+    @Value("${editor.limits.max-insert-chars:262144}")
+    private int maxInsertChars;
+
+    @Value("${editor.limits.session-rate:50}")
+    private double sessionRate;
+
+    @Value("${editor.limits.session-burst:100}")
+    private int sessionBurst;
+
+    @Value("${editor.limits.room-rate:2000}")
+    private double roomRate;
+
+    @Value("${editor.limits.room-burst:4000}")
+    private int roomBurst;
+
+    // 송신 프레임 압축: threshold (min-bytes 이상인 프레임만 직접 압축) | permessage-deflate | off, deflate 레벨
+    @Value("${editor.compression.mode:threshold}")
+    private String compressionMode;
+
+    @Value("${editor.compression.min-bytes:1024}")
+    private int compressionMinBytes;
+
+    @Value("${editor.compression.level:1}")
+    private int compressionLevel;
+
+    // 받은 메시지 몇 개 중 하나를 로그로 남길지 (0: 남기지 않음)
+    @Value("${editor.log.message-sample-every:1000}")
+    private int messageLogSampleEvery;
+
+    // saved_files 문서 저장소: 목록 캐시 유지 시간, 불러온 문서 캐시 한도(파일 크기 합), 디렉토리를 다시 훑는 간격
+    @Value("${editor.store.list-cache-ms:5000}")
+    private long storeListCacheMillis;
+
+    @Value("${editor.store.content-cache-bytes:268435456}")
+    private long storeContentCacheBytes;
+
+    @Value("${editor.store.rescan-interval-ms:60000}")
+    private long storeRescanInterval;
+
+    // 클러스터 모드: 이 노드 ID, 노드 사이 TCP 포트, 다른 노드들 (<노드 ID>=<호스트>:<포트>,...)
+    @Value("${editor.cluster.node-id:node1}")
+    private String clusterNodeId;
+
+    @Value("${editor.cluster.port:7001}")
+    private int clusterPort;
+
+    @Value("${editor.cluster.peers:}")
+    private String clusterPeers;
+
+    // saved_files 목록 / 메타데이터 / 불러온 문서 캐시 (RoomManager 와 PageController 가 함께 쓴다)
+    @Bean
+    public DocumentStore documentStore() {
+        DocumentStore.Settings settings = new DocumentStore.Settings(
+                storeListCacheMillis, storeContentCacheBytes, storeRescanInterval);
+        return new DocumentStore(Paths.get(RoomManager.SAVE_DIR), settings, savedDocuments, savedDocumentVersions,
+                transactionManager);
+    }
+
+    @Bean
+    public FrameCompression frameCompression() {
+        FrameCompression.Mode mode = FrameCompression.Mode.valueOf(
+                compressionMode.trim().toUpperCase().replace('-', '_'));
+        return new FrameCompression(mode, compressionMinBytes, compressionLevel);
+    }
+
+    // 문서 ID 별 방 관리 (PageController 의 저장/불러오기와 공유)
+    @Bean
+    public RoomManager roomManager() {
+        OutboundQueue.Settings outbound = new OutboundQueue.Settings(
+                outboundMaxMessages,
+                outboundMaxBytes,
+                OutboundQueue.OverflowPolicy.valueOf(outboundOverflowPolicy.trim().toUpperCase()),
+                frameCompression());
+        EditLogWriter.Settings editLog = editLogEnabled
+                ? new EditLogWriter.Settings(editLogFlushInterval, editLogSegmentBytes, editLogSnapshotEvery,
+                        editLogSnapshotCompressionLevel)
+                : null;
+        return new RoomManager(outbound, editLog, new EditorMetrics(meterRegistry),
+                WorkerThreads.create(virtualThreads), documentStore());
+    }
+
+    @Bean
+    public MySocketHandler socketHandler() {
+        InboundGuard.Limits limits = new InboundGuard.Limits(
+                maxMessageSize, maxInsertChars, sessionRate, sessionBurst, roomRate, roomBurst);
+        return new MySocketHandler(roomManager(), messageLogSampleEvery, limits);
+    }
+
+    // editor.cluster.enabled=true 일 때만: 방마다 주인 노드를 정하고 다른 노드 세션의 이벤트를 주고받는다
+    @Bean
+    @ConditionalOnProperty(name = "editor.cluster.enabled", havingValue = "true")
+    public ClusterRouter clusterRouter() throws IOException {
+        TcpTransport transport = new TcpTransport(clusterNodeId, clusterPort, TcpTransport.parsePeers(clusterPeers));
+        ClusterRouter router = new ClusterRouter(transport, roomManager(), socketHandler());
+        router.start();
+        return router;
+    }
+
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(new MySocketHandler(), "/ws") // ws 엔드포인트
+        registry.addHandler(socketHandler(), "/ws") // ws 엔드포인트 (?doc=<문서ID>&user=<이름>)
+                .setHandshakeHandler(handshakeHandler(frameCompression().getMode()))
                 .setAllowedOrigins("*"); // CORS 허용
     }
+
+    // permessage-deflate 모드가 아니면 클라이언트가 청해도 협상하지 않는다
+    // Tomcat 은 협상할 확장 목록이 비어 있으면 기본 확장(permessage-deflate)을 쓰므로 목록을 거르는 것으로는 끌 수 없고,
+    // 업그레이드 요청에서 Sec-WebSocket-Extensions 헤더를 감춘다.
+    private static DefaultHandshakeHandler handshakeHandler(FrameCompression.Mode mode) {
+        if (mode == FrameCompression.Mode.PERMESSAGE_DEFLATE) {
+            return new DefaultHandshakeHandler();
+        }
+        return new DefaultHandshakeHandler(new StandardWebSocketUpgradeStrategy() {
+            @Override
+            protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+                                                  ServerEndpointConfig endpointConfig,
+                                                  Map<String, String> pathParams) throws Exception {
+                super.upgradeHttpToWebSocket(new WithoutExtensions(request), response, endpointConfig, pathParams);
+            }
+        });
+    }
+
+    private static final class WithoutExtensions extends HttpServletRequestWrapper {
+        private static final String EXTENSIONS = "Sec-WebSocket-Extensions";
+
+        WithoutExtensions(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return EXTENSIONS.equalsIgnoreCase(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return EXTENSIONS.equalsIgnoreCase(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package com.example.dscteam1.WebSocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// 백그라운드 작업 스레드를 만드는 방식 (플랫폼 스레드 / 가상 스레드)
+// 가상 스레드 모드는 spring.threads.virtual.enabled=true 로 켠다 (같은 설정으로 Tomcat 요청 스레드도 가상 스레드가 된다).
+// 프로젝트는 Java 17 로 빌드하므로 Thread.ofVirtual() 과 Executors.newThreadPerTaskExecutor 는 리플렉션으로 찾고,
+// Java 21 미만에서 실행하면 경고를 남기고 플랫폼 스레드로 돈다.
+// 가상 스레드가 되는 것: 세션 송신(블로킹 sendMessage), 저장 / 편집 기록 쓰기, 락 만료 / 유휴 방 타이머
+// 방 메일박스 워커는 CPU 만 쓰므로 모드와 상관없이 코어 수만큼의 플랫폼 스레드다.
+public final class WorkerThreads {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerThreads.class);
+
+    public static final WorkerThreads PLATFORM = new WorkerThreads(false);
+
+    private final boolean virtual;
+
+    private WorkerThreads(boolean virtual) {
+        this.virtual = virtual;
+    }
+
+    public static WorkerThreads create(boolean virtualRequested) {
+        if (!virtualRequested) {
+            return PLATFORM;
+        }
+        try {
+            virtualThreads("virtual-check-");
+        } catch (IllegalStateException e) {
+            log.warn("가상 스레드를 쓸 수 없어(Java {}) 플랫폼 스레드로 실행합니다. Java 21 이상이 필요합니다.",
+                    Runtime.version().feature());
+            return PLATFORM;
+        }
+        log.info("백그라운드 작업을 가상 스레드로 실행합니다.");
+        return new WorkerThreads(true);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    // 이름이 prefix + 번호인 스레드
+    public ThreadFactory named(String prefix) {
+        return virtual ? virtualThreads(prefix) : RoomManager.namedThreads(prefix);
+    }
+
+    // 작업마다 스레드가 필요할 수 있는 풀 (블로킹 작업)
+    // 플랫폼: 쉬는 스레드를 다시 쓰는 캐시 풀, 가상: 작업마다 새 가상 스레드
+    public ExecutorService cachedPool(String prefix) {
+        if (!virtual) {
+            return Executors.newCachedThreadPool(named(prefix));
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, named(prefix));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("가상 스레드 실행기를 만들 수 없습니다", e);
+        }
+    }
+
+    // Thread.ofVirtual().name(prefix, 1).factory()
+    private static ThreadFactory virtualThreads(String prefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("가상 스레드를 만들 수 없습니다", e);
+        }
+    }
+}
@@ -4,10 +4,21 @@ let statusElement = document.getElementById("status");
 let isLocalChange = false;
 let lastContent = "";
 let currentUserId = null;
+let currentDocId = null; // 접속 중인 문서(방) ID
 let userIdDisplay   = document.getElementById("userIdDisplay");
 let userListDisplay = document.getElementById("userListDisplay");
-let lineOwnership = {}; // 라인별 소유권 정보
-let currentEditingLine = null; // 현재 편집 중인 라인
+let lineLocks = []; // 라인 구간 락 목록 [{line, endLine, owner}] (서로 겹치지 않음)
+let lockSeq = -1; // 마지막으로 적용한 락 변경 순서 번호 (-1: 아직 스냅샷을 받지 않음)
+let lockSnapshotRequested = false; // 누락 감지 후 스냅샷을 기다리는 중
+
+// 편집 연산 동기화 (서버 리비전 기준 OT)
+let serverRev = 0;        // 마지막으로 반영한 서버 리비전
+let outstandingOps = null; // 서버에 보냈지만 아직 ack 를 받지 못한 연산들 (한 프레임으로 보낸 것, 한 번에 한 묶음)
+let outstandingId = 0;     // outstandingOps 를 보낸 프레임의 id (ack 의 id 와 맞춰 본다)
+let bufferedOps = [];      // outstandingOps 의 ack 를 기다리는 동안 쌓인 로컬 연산 (ack 가 오면 batch 하나로 보낸다)
+let nextOpId = 1;
+let initBuffer = null;    // 나눠 받는 중인 초기 텍스트 {rev, length, parts, received} (initStart ~ 마지막 initChunk)
+let currentEditingLine = null; // 현재 편집 중인 라인 (내 락 구간의 시작 라인)
 let lineElements = []; // 라인별 DOM 요소 참조
 
 function logMessage(message) {
@@ -82,6 +93,35 @@ function getCurrentLineNumber() {
     return lineNumber;
 }
 
+/**
+ * line 을 포함하는 락의 소유자를 반환합니다. (없으면 undefined)
+ */
+function lineOwnerAt(line) {
+    const lock = lineLocks.find(l => l.line <= line && line <= l.endLine);
+    return lock ? lock.owner : undefined;
+}
+
+/**
+ * 현재 선택 영역(없으면 커서)의 [시작 라인, 끝 라인] 을 반환합니다.
+ */
+function getSelectionLineRange() {
+    const sel = window.getSelection();
+    const startLine = getCurrentLineNumber();
+    if (!sel.rangeCount || sel.isCollapsed) return [startLine, startLine];
+
+    const range = sel.getRangeAt(0);
+    const pre = range.cloneRange();
+    pre.selectNodeContents(editorElement);
+    pre.setEnd(range.endContainer, range.endOffset);
+    const endOffset = pre.toString().length;
+    const text = editorElement.textContent;
+    let endLine = 0;
+    for (let i = 0; i < endOffset && i < text.length; i++) {
+        if (text.charAt(i) === '\n') endLine++;
+    }
+    return [startLine, Math.max(startLine, endLine)];
+}
+
 /**
  * 라인별 편집 권한을 시각적으로 표시합니다.
  */
@@ -94,7 +134,7 @@ function updateLineVisualFeedback() {
 
     // 현재 라인의 편집 권한 확인
     const currentLine = getCurrentLineNumber();
-    const owner = lineOwnership[currentLine];
+    const owner = lineOwnerAt(currentLine);
 
     if (owner && owner !== currentUserId) {
         editorElement.classList.add('line-locked');
@@ -103,7 +143,7 @@ function updateLineVisualFeedback() {
         editorElement.style.userSelect = 'none';
     } else {
         editorElement.style.userSelect = 'text';
-        if (currentEditingLine === currentLine) {
+        if (owner === currentUserId) {
         editorElement.classList.add('line-editing');
         showLineStatusMessage(`라인 ${currentLine + 1}을 편집 중입니다.`);
     } else {
@@ -140,7 +180,7 @@ function hideLineStatusMessage() {
 /**
  * 라인 편집 권한을 요청합니다.
  */
-function requestLineLock(lineNumber) {
+function requestLineLock(lineNumber, endLine = lineNumber) {
     if (socket && socket.readyState === WebSocket.OPEN) {
         // 이미 다른 라인을 편집 중이면 먼저 해제
         if (currentEditingLine !== null && currentEditingLine !== lineNumber) {
@@ -149,7 +189,8 @@ function requestLineLock(lineNumber) {
 
         const request = {
             type: "requestLineLock",
-            line: lineNumber
+            line: lineNumber,
+            endLine: endLine
         };
         socket.send(JSON.stringify(request));
         
@@ -158,6 +199,67 @@ function requestLineLock(lineNumber) {
     }
 }
 
+/**
+ * lockAcquired / lockReleased / locksExpired / locksShifted 변경분을 적용합니다.
+ * 순서 번호가 건너뛰면 적용하지 않고 서버에 전체 스냅샷을 요청합니다.
+ */
+function applyLockChange(data) {
+    // 스냅샷을 받기 전이거나 스냅샷에 이미 반영된 변경은 무시
+    if (lockSeq < 0 || data.seq <= lockSeq) return;
+
+    if (data.seq !== lockSeq + 1) {
+        if (!lockSnapshotRequested && socket && socket.readyState === WebSocket.OPEN) {
+            lockSnapshotRequested = true;
+            socket.send(JSON.stringify({ type: "requestLockSnapshot" }));
+            logMessage(`⚠️ 락 변경 누락 (기대 ${lockSeq + 1}, 받음 ${data.seq}) → 스냅샷 요청`);
+        }
+        return;
+    }
+
+    switch (data.type) {
+        case "lockAcquired":
+            // 사용자당 락은 하나
+            lineLocks = lineLocks.filter(l => l.owner !== data.owner);
+            lineLocks.push({ line: data.line, endLine: data.endLine, owner: data.owner });
+            break;
+        case "lockReleased":
+            lineLocks = lineLocks.filter(l => l.owner !== data.owner);
+            break;
+        case "locksExpired":
+            // 같은 시점에 만료된 락들을 한 번에 보낸다
+            lineLocks = lineLocks.filter(l => !data.owners.includes(l.owner));
+            break;
+        case "locksShifted":
+            // 줄 수가 바뀐 편집을 따라 락 구간 이동 (서버 LineLockManager.shift 와 같은 규칙)
+            shiftLineLocks(data.fromLine, data.toLine, data.lines);
+            break;
+    }
+
+    // 타임아웃 등으로 서버에서 내 락이 풀렸거나 옮겨진 경우
+    const mine = lineLocks.find(l => l.owner === currentUserId);
+    currentEditingLine = mine ? mine.line : null;
+
+    lockSeq = data.seq;
+    updateLineVisualFeedback();
+}
+
+/**
+ * 라인 fromLine ~ toLine 이 lines 줄짜리 새 텍스트로 바뀐 편집을 락 구간에 반영합니다.
+ */
+function shiftLineLocks(fromLine, toLine, lines) {
+    const delta = lines - (toLine - fromLine);
+    for (const lock of lineLocks) {
+        const start = lock.line <= fromLine ? lock.line
+            : lock.line <= toLine ? fromLine + lines
+            : lock.line + delta;
+        const end = lock.endLine < fromLine ? lock.endLine
+            : lock.endLine < toLine ? fromLine
+            : lock.endLine + delta;
+        lock.line = start;
+        lock.endLine = Math.max(start, end);
+    }
+}
+
 /**
  * 라인 편집 권한을 해제합니다.
  */
@@ -168,10 +270,261 @@ function releaseLineLock() {
         };
         socket.send(JSON.stringify(request));
         currentEditingLine = null;
+        // 서버의 lockReleased 를 기다리지 않고 바로 내 락을 지운다 (소유자 기준이라 중복 적용돼도 같음)
+        lineLocks = lineLocks.filter(l => l.owner !== currentUserId);
         hideLineStatusMessage();
     }
 }
 
+/**
+ * other 가 먼저 적용된 문서에 op 를 적용할 수 있도록 바꿉니다.
+ * 서버 TextOperation.transform 과 규칙이 같아야 합니다. (otherFirst: 같은 위치/같은 범위일 때 other 우선)
+ */
+function transformOp(op, other, otherFirst) {
+    if (other.start === other.end && other.text === "") return op;
+    const delta = other.text.length - (other.end - other.start);
+    const make = (start, end, text) => ({ start, end, text, id: op.id });
+
+    // 같은 위치 삽입끼리
+    if (op.start === op.end && other.start === other.end && op.start === other.start) {
+        return otherFirst ? make(op.start + other.text.length, op.end + other.text.length, op.text) : op;
+    }
+    // other 가 완전히 앞쪽 / 완전히 뒤쪽
+    if (other.end <= op.start) return make(op.start + delta, op.end + delta, op.text);
+    if (other.start >= op.end) return op;
+
+    const containsOther = op.start <= other.start && other.end <= op.end;
+    const containedByOther = other.start <= op.start && op.end <= other.end;
+    if (containsOther && (!containedByOther || !otherFirst)) return make(op.start, op.end + delta, op.text);
+    if (containedByOther) return make(other.start, other.start, "");
+    if (op.start < other.start) return make(op.start, other.start, op.text);
+    return make(other.end + delta, op.end + delta, op.text);
+}
+
+// 편집 연산 바이너리 프레임 (서버 BinaryOps 와 형식이 같아야 한다, 그 밖의 메시지는 JSON)
+// 정수는 부호 없는 varint, 위치는 문자열 인덱스(UTF-16), 텍스트는 프레임 끝까지의 UTF-8
+//   보낼 때: [종류][rev + 1][id][start][end (delete, edit)][text (add, edit)]
+//   받을 때: [종류][rev][start][end][text] 또는 [ACK][rev][id]
+//   일괄: [BATCH][rev + 1][id][개수][연산...] / [BATCH][rev][개수][연산...], 연산마다 [종류][start][end][텍스트 바이트 수][text]
+const useBinaryOps = typeof TextEncoder !== "undefined" && typeof TextDecoder !== "undefined";
+const OP_ADD = 1, OP_DELETE = 2, OP_EDIT = 3, OP_ACK = 4, OP_BATCH = 5;
+const utf8Encoder = useBinaryOps ? new TextEncoder() : null;
+const utf8Decoder = useBinaryOps ? new TextDecoder() : null;
+
+// 큰 프레임 압축 (서버 FrameCompression 과 형식이 같아야 한다, 접속 시 ?compress=deflate)
+//   [DEFLATED_TEXT][raw deflate]: 풀면 JSON 텍스트,  [DEFLATED_BINARY][raw deflate]: 풀면 위의 바이너리 프레임
+const useCompression = useBinaryOps && typeof DecompressionStream !== "undefined";
+const FRAME_DEFLATED_TEXT = 6, FRAME_DEFLATED_BINARY = 7;
+
+function isDeflatedFrame(raw) {
+    if (!(raw instanceof ArrayBuffer) || raw.byteLength === 0) return false;
+    const kind = new Uint8Array(raw, 0, 1)[0];
+    return kind === FRAME_DEFLATED_TEXT || kind === FRAME_DEFLATED_BINARY;
+}
+
+async function inflateFrame(buffer) {
+    const bytes = new Uint8Array(buffer);
+    const stream = new Blob([bytes.subarray(1)]).stream().pipeThrough(new DecompressionStream("deflate-raw"));
+    const inflated = await new Response(stream).arrayBuffer();
+    return bytes[0] === FRAME_DEFLATED_TEXT ? utf8Decoder.decode(inflated) : inflated;
+}
+
+function writeVarint(bytes, value) {
+    // 2^31 이상도 다룰 수 있도록 비트 연산 대신 나눗셈
+    while (value >= 0x80) {
+        bytes.push((value % 0x80) | 0x80);
+        value = Math.floor(value / 0x80);
+    }
+    bytes.push(value);
+}
+
+function readVarint(reader) {
+    let value = 0;
+    let scale = 1;
+    for (;;) {
+        const b = reader.bytes[reader.pos++];
+        if (b === undefined) throw new Error("잘린 바이너리 프레임");
+        value += (b & 0x7F) * scale;
+        if (b < 0x80) return value;
+        scale *= 0x80;
+    }
+}
+
+function opKind(op) {
+    return op.start === op.end ? OP_ADD : op.text === "" ? OP_DELETE : OP_EDIT;
+}
+
+function encodeOp(op, rev, id) {
+    const kind = opKind(op);
+    const header = [kind];
+    writeVarint(header, rev + 1);
+    writeVarint(header, id);
+    writeVarint(header, op.start);
+    if (kind !== OP_ADD) writeVarint(header, op.end);
+    const text = kind === OP_DELETE ? new Uint8Array(0) : utf8Encoder.encode(op.text);
+    const frame = new Uint8Array(header.length + text.length);
+    frame.set(header, 0);
+    frame.set(text, header.length);
+    return frame;
+}
+
+function encodeBatch(ops, rev, id) {
+    const header = [OP_BATCH];
+    writeVarint(header, rev + 1);
+    writeVarint(header, id);
+    writeVarint(header, ops.length);
+    const parts = [new Uint8Array(header)];
+    for (const op of ops) {
+        const kind = opKind(op);
+        const fields = [kind];
+        writeVarint(fields, op.start);
+        if (kind !== OP_ADD) writeVarint(fields, op.end);
+        const text = kind === OP_DELETE ? null : utf8Encoder.encode(op.text);
+        if (text) writeVarint(fields, text.length);
+        parts.push(new Uint8Array(fields));
+        if (text) parts.push(text);
+    }
+    const frame = new Uint8Array(parts.reduce((sum, part) => sum + part.length, 0));
+    let pos = 0;
+    for (const part of parts) {
+        frame.set(part, pos);
+        pos += part.length;
+    }
+    return frame;
+}
+
+// 받은 바이너리 프레임을 JSON 메시지와 같은 모양의 객체로 바꾼다
+function decodeFrame(buffer) {
+    const reader = { bytes: new Uint8Array(buffer), pos: 1 };
+    const kind = reader.bytes[0];
+    const rev = readVarint(reader);
+    if (kind === OP_ACK) return { type: "ack", rev: rev, id: readVarint(reader) };
+    if (kind === OP_BATCH) {
+        const ops = [];
+        for (let count = readVarint(reader); count > 0; count--) {
+            ops.push(decodeOp(reader, reader.bytes[reader.pos++], true));
+        }
+        return { type: "batch", ops: ops, rev: rev };
+    }
+    const msg = decodeOp(reader, kind, false);
+    msg.rev = rev;
+    return msg;
+}
+
+// 연산 하나 (lengthPrefixed: 텍스트 앞에 바이트 수가 있는지, 없으면 프레임 끝까지)
+function decodeOp(reader, kind, lengthPrefixed) {
+    const start = readVarint(reader);
+    const end = kind === OP_ADD ? start : readVarint(reader);
+    let text = "";
+    if (kind !== OP_DELETE) {
+        const textEnd = lengthPrefixed ? readVarint(reader) + reader.pos : reader.bytes.length;
+        text = utf8Decoder.decode(reader.bytes.subarray(reader.pos, textEnd));
+        reader.pos = textEnd;
+    }
+    if (kind === OP_ADD) return { type: "add", position: start, text: text };
+    if (kind === OP_DELETE) return { type: "delete", start: start, end: end };
+    return { type: "edit", start: start, end: end, text: text };
+}
+
+function opFromMessage(data) {
+    switch (data.type) {
+        case "add":    return { start: data.position, end: data.position, text: data.text };
+        case "delete": return { start: data.start, end: data.end, text: "" };
+        default:       return { start: data.start, end: data.end, text: data.text };
+    }
+}
+
+function messageFromOp(op) {
+    if (op.start === op.end) return { type: "add", position: op.start, text: op.text };
+    if (op.text === "") return { type: "delete", start: op.start, end: op.end };
+    return { type: "edit", start: op.start, end: op.end, text: op.text };
+}
+
+/**
+ * 쌓인 로컬 연산을 서버 리비전과 함께 한 프레임으로 보냅니다 (둘 이상이면 batch).
+ * 서버는 batch 를 한 번의 권한 확인으로 모두 적용하거나 모두 거부하고, 다른 사용자에게도 한 번에 보냅니다.
+ */
+function flushBufferedOps() {
+    if (outstandingOps || bufferedOps.length === 0) return;
+    outstandingOps = bufferedOps;
+    bufferedOps = [];
+    outstandingId = nextOpId++;
+    if (useBinaryOps) {
+        socket.send(outstandingOps.length === 1
+            ? encodeOp(outstandingOps[0], serverRev, outstandingId)
+            : encodeBatch(outstandingOps, serverRev, outstandingId));
+        return;
+    }
+    const msg = outstandingOps.length === 1
+        ? messageFromOp(outstandingOps[0])
+        : { type: "batch", ops: outstandingOps.map(messageFromOp) };
+    msg.rev = serverRev;
+    msg.id = outstandingId;
+    socket.send(JSON.stringify(msg));
+}
+
+// 초기 텍스트 설정 (확정되지 않은 로컬 연산은 버리고 서버 상태로 맞춘다)
+function applyInit(text, rev) {
+    cancelSendDiff();
+    isLocalChange = true;
+    editorElement.textContent = text;
+    lastContent = text;
+    isLocalChange = false;
+    serverRev = rev;
+    outstandingOps = null;
+    bufferedOps = [];
+    logMessage("📩 서버에서 초기 텍스트를 받았습니다.");
+    updateLineVisualFeedback();
+}
+
+/**
+ * 다른 사용자가 확정한 연산을 받았을 때:
+ * 아직 확정되지 않은 내 연산들에 대해 변환한 뒤 화면에 적용합니다.
+ */
+function handleRemoteOp(data) {
+    // 모으는 중인 로컬 입력을 먼저 연산으로 만들어 둔다
+    cancelSendDiff();
+    sendDiff();
+
+    // batch 는 연산마다 리비전이 하나씩 올라가고 rev 는 마지막 연산의 리비전
+    const messages = data.type === "batch" ? data.ops : [data];
+    if (data.rev !== serverRev + messages.length) {
+        // 리비전이 건너뛰었으면 전체 동기화
+        requestSyncFromServer();
+        return;
+    }
+    serverRev = data.rev;
+
+    for (const message of messages) {
+        let op = opFromMessage(message);
+        const transformPending = pending => {
+            const transformed = transformOp(pending, op, true);
+            op = transformOp(op, pending, false);
+            return transformed;
+        };
+        if (outstandingOps) outstandingOps = outstandingOps.map(transformPending);
+        bufferedOps = bufferedOps.map(transformPending);
+
+        if (op.start !== op.end || op.text !== "") {
+            applyPatch(messageFromOp(op));
+        }
+    }
+}
+
+/**
+ * 내 연산이 확정되었을 때: 쌓여 있던 다음 연산을 보냅니다.
+ */
+function handleAck(data) {
+    if (!outstandingOps || data.id !== outstandingId) {
+        // init 으로 버린 연산의 ack: init 이후에 적용되었다면 화면에 없으므로 다시 동기화
+        if (data.rev > serverRev) requestSyncFromServer();
+        return;
+    }
+    serverRev = data.rev;
+    outstandingOps = null;
+    flushBufferedOps();
+}
+
 function applyPatch(data) {
     isLocalChange = true;
     // 1) 수정 전 커서 위치 저장
@@ -255,17 +608,29 @@ function connect() {
     }
     currentUserId = userId.trim();
 
+    // 문서 ID 입력 받기 (주소창 ?doc= 값이 있으면 기본값으로 사용)
+    const defaultDocId = new URLSearchParams(window.location.search).get("doc") || "default";
+    const docId = prompt("문서 ID를 입력하세요:", defaultDocId);
+    if (docId === null) {
+        logMessage("⚠️ 문서 ID를 입력하지 않으면 연결할 수 없습니다.");
+        return;
+    }
+    currentDocId = docId.trim() || "default";
+
     // 화면에 표시
-    userIdDisplay.innerText = `사용자: ${currentUserId}`;
+    userIdDisplay.innerText = `사용자: ${currentUserId} (문서: ${currentDocId})`;
 
     updateStatus("connecting", "연결 중...");
     editorElement.contentEditable = "false";
 
-    // WS URL에 user 파라미터 추가
+    // WS URL에 doc, user 파라미터 추가
     const protocol = window.location.protocol === 'https:' ? 'wss:' : 'ws:';
-    const wsUrl = `${protocol}//${window.location.host}/ws?user=${encodeURIComponent(userId)}`;
+    const wsUrl = `${protocol}//${window.location.host}/ws?doc=${encodeURIComponent(currentDocId)}&user=${encodeURIComponent(userId)}`
+        + (useBinaryOps ? "&proto=bin" : "")
+        + (useCompression ? "&compress=deflate" : "");
 
     socket = new WebSocket(wsUrl);
+    socket.binaryType = "arraybuffer";
 
     socket.onopen = () => {
         logMessage("✅ 서버에 연결됨");
@@ -288,46 +653,82 @@ function connect() {
         requestSyncFromServer();
     };
 
-    socket.onmessage = (e) => {
+    const handleServerMessage = (raw) => {
         try {
-            const data = JSON.parse(e.data);
+            // 편집 연산과 ack 는 바이너리 프레임으로 올 수 있다
+            const data = raw instanceof ArrayBuffer ? decodeFrame(raw) : JSON.parse(raw);
 
             // 메시지 타입에 따라 분기 처리
             switch (data.type) {
                 case "init":
-                    // 초기 텍스트 설정
-                    isLocalChange = true;
-                    editorElement.textContent = data.text;
-                    lastContent = data.text;
-                    isLocalChange = false;
-                    logMessage("📩 서버에서 초기 텍스트를 받았습니다.");
-                    updateLineVisualFeedback();
+                    applyInit(data.text, data.rev);
+                    break;
+
+                case "initStart":
+                    // 큰 문서: 이어지는 initChunk 들을 모아 length 가 되면 init 처럼 적용
+                    cancelSendDiff();
+                    initBuffer = { rev: data.rev, length: data.length, parts: [], received: 0 };
+                    logMessage(`📩 초기 텍스트 수신 시작 (${data.length}자)`);
+                    break;
+
+                case "initChunk":
+                    if (!initBuffer || data.offset !== initBuffer.received) {
+                        // 중간 조각을 놓쳤으면 처음부터 다시 받는다
+                        initBuffer = null;
+                        requestSyncFromServer();
+                        break;
+                    }
+                    initBuffer.parts.push(data.text);
+                    initBuffer.received += data.text.length;
+                    if (initBuffer.received >= initBuffer.length) {
+                        const done = initBuffer;
+                        initBuffer = null;
+                        applyInit(done.parts.join(""), done.rev);
+                    }
                     break;
 
                 case "add":
                 case "delete":
                 case "edit":
-                    // 패치 적용
-                    applyPatch(data);
+                case "batch":
+                    // 패치 적용 (내 미확정 연산에 대해 변환 후)
+                    handleRemoteOp(data);
                     logMessage(`📩 패치 적용: ${data.type}`);
                     break;
 
+                case "ack":
+                    // 내 연산 확정
+                    handleAck(data);
+                    break;
+
                 case "userList":
                     // 유저 리스트 갱신
                     updateUserList(data.users);
                     break;
 
                 case "lineOwnership":
-                    // 라인 소유권 정보 업데이트
-                    lineOwnership = data.ownership;
+                    // 라인 소유권 전체 스냅샷 (접속/동기화/누락 복구 시)
+                    lineLocks = data.locks;
+                    lockSeq = data.seq;
+                    lockSnapshotRequested = false;
                     updateLineVisualFeedback();
                     logMessage("📩 라인 소유권 정보 업데이트");
                     break;
 
+                case "lockAcquired":
+                case "lockReleased":
+                case "locksExpired":
+                case "locksShifted":
+                    // 라인 소유권 변경분
+                    applyLockChange(data);
+                    break;
+
                 case "lineLockGranted":
                     // 라인 편집 권한 승인
                     currentEditingLine = data.line;
-                    logMessage(`✅ 라인 ${data.line + 1} 편집 권한 획득`);
+                    logMessage(data.endLine > data.line
+                        ? `✅ 라인 ${data.line + 1}~${data.endLine + 1} 편집 권한 획득`
+                        : `✅ 라인 ${data.line + 1} 편집 권한 획득`);
                     updateLineVisualFeedback();
                     break;
 
@@ -338,20 +739,55 @@ function connect() {
                     break;
 
                 case "editDenied":
-                    // 편집 거부
+                    // 편집 거부 (서버가 init 으로 다시 맞춰 준다)
+                    outstandingOps = null;
+                    bufferedOps = [];
                     logMessage(`❌ 편집 거부: ${data.reason} (라인 ${data.line + 1})`);
                     break;
 
+                case "editRejected":
+                    // 너무 큰 삽입 (서버가 init 으로 다시 맞춰 준다)
+                    outstandingOps = null;
+                    bufferedOps = [];
+                    logMessage(`❌ 편집 거부: ${data.reason}`);
+                    break;
+
+                case "rateLimited":
+                    // 너무 빨리 보내 서버가 메시지를 버렸다: 버려진 편집은 ack 가 오지 않으므로
+                    // 미확정 연산을 버리고 retryAfterMs 뒤에 init 으로 다시 맞춘다
+                    outstandingOps = null;
+                    bufferedOps = [];
+                    logMessage(`⚠️ 전송 제한 (${data.scope}), ${data.retryAfterMs}ms 뒤 다시 동기화합니다.`);
+                    setTimeout(requestSyncFromServer, data.retryAfterMs);
+                    break;
+
                 default:
                     // 그 외 일반 메시지
-                    logMessage("📩 " + e.data);
+                    logMessage("📩 " + raw);
             }
         } catch (error) {
             // JSON 파싱 실패 시, 일반 텍스트 로그
-            logMessage("📩 " + e.data);
+            logMessage("📩 " + raw);
         }
     };
 
+    // 압축 프레임은 비동기로 풀리므로, 풀고 있는 프레임이 있으면 뒤의 메시지도 그 뒤에 이어 받은 순서대로 처리한다
+    let inflating = null;
+    socket.onmessage = (e) => {
+        if (inflating === null && !isDeflatedFrame(e.data)) {
+            handleServerMessage(e.data);
+            return;
+        }
+        const next = (inflating || Promise.resolve())
+            .then(() => isDeflatedFrame(e.data) ? inflateFrame(e.data) : e.data)
+            .then(handleServerMessage)
+            .catch(error => logMessage("❌ 압축 프레임을 풀지 못했습니다: " + error));
+        inflating = next;
+        next.then(() => {
+            if (inflating === next) inflating = null;
+        });
+    };
+
     socket.onclose = (e) => {
         // 중복 접속 거부 시 코드 1008
         if (e.code === 1008) {
@@ -364,7 +800,9 @@ function connect() {
         editorElement.contentEditable = "false";
         socket = null;
         currentEditingLine = null;
-        lineOwnership = {};
+        lineLocks = [];
+        lockSeq = -1;
+        lockSnapshotRequested = false;
         hideLineStatusMessage();
 
         // 연결이 끊어지면 저장/불러오기 버튼 다시 비활성화
@@ -417,7 +855,31 @@ function requestSyncFromServer() {
 }
 
 // 텍스트 변경 감지 및 서버로 전송
-let debounceTimer;
+// 입력을 잠깐 모았다가 diff 하나로 보낸다. 쉬다가 친 첫 입력은 COALESCE_MIN_MS 뒤에 바로 보내고,
+// 계속 입력하는 동안에는 창을 COALESCE_MAX_MS 까지 늘린다 (창 안의 입력은 타이머를 다시 걸지 않는다).
+const COALESCE_MIN_MS = 16;
+const COALESCE_MAX_MS = 50;
+let debounceTimer = null;
+let coalesceWindow = COALESCE_MIN_MS;
+let lastDiffAt = 0;
+
+function scheduleSendDiff() {
+    if (debounceTimer !== null) return;
+    const now = Date.now();
+    coalesceWindow = now - lastDiffAt < COALESCE_MAX_MS * 2
+        ? Math.min(COALESCE_MAX_MS, coalesceWindow * 2)
+        : COALESCE_MIN_MS;
+    debounceTimer = setTimeout(() => {
+        debounceTimer = null;
+        lastDiffAt = Date.now();
+        sendDiff();
+    }, coalesceWindow);
+}
+
+function cancelSendDiff() {
+    cancelSendDiff();
+    debounceTimer = null;
+}
 
 // 문자열 diff 계산 함수
 function getDiff(oldStr, newStr) {
@@ -442,6 +904,9 @@ function getDiff(oldStr, newStr) {
 }
 
 function sendDiff() {
+    // 초기 텍스트를 나눠 받는 중에는 보낼 기준이 없다
+    if (initBuffer) return;
+
     const current = editorElement.textContent;
     // 변경 없으면 아무 것도 안 함
     if (current === lastContent) return;
@@ -461,7 +926,7 @@ function sendDiff() {
 
     // 현재 라인의 편집 권한 확인
     const currentLine = getCurrentLineNumber();
-    const owner = lineOwnership[currentLine];
+    const owner = lineOwnerAt(currentLine);
     
     if (owner && owner !== currentUserId) {
         // 편집 권한이 없으면 변경사항 무시하고 원래 내용으로 복원
@@ -470,8 +935,10 @@ function sendDiff() {
         return;
     }
 
-    socket.send(JSON.stringify(diffMsg));
+    // 서버로 가는 프레임은 한 번에 하나만 두고, ack 를 기다리는 동안의 입력은 버퍼에 쌓는다
     lastContent = current;
+    bufferedOps.push(opFromMessage(diffMsg));
+    flushBufferedOps();
 }
 
 editorElement.addEventListener('input', (e) => {
@@ -482,9 +949,8 @@ editorElement.addEventListener('input', (e) => {
     const t = /** @type {InputEvent} */(e).inputType;
     if (t === 'formatBlock' || t === 'historyUndo' || t === 'historyRedo') return;
 
-    // 3) 디바운스 걸고 최종 Diff 전송
-    clearTimeout(debounceTimer);
-    debounceTimer = setTimeout(sendDiff, 200);
+    // 3) 짧게 모았다가 Diff 전송
+    scheduleSendDiff();
 });
 
 // 커서 이동 감지 및 라인 편집 권한 관리
@@ -495,11 +961,13 @@ editorElement.addEventListener('focus', handleLineChange); // 포커스 이벤
 function handleLineChange() {
     if (!socket || socket.readyState !== WebSocket.OPEN) return;
 
-    const newLine = getCurrentLineNumber();
-    const owner = lineOwnership[newLine];
+    // 선택 영역이 여러 줄이면 그 구간 전체를 요청
+    const [newLine, endLine] = getSelectionLineRange();
+    const owner = lineOwnerAt(newLine);
+    const mine = lineLocks.find(l => l.owner === currentUserId);
 
-    // 새로운 라인으로 이동했을 때
-    if (newLine !== currentEditingLine) {
+    // 내 락 구간을 벗어났을 때
+    if (!mine || newLine < mine.line || endLine > mine.endLine) {
         // 이전 라인 권한 해제
         if (currentEditingLine !== null) {
             releaseLineLock();
@@ -511,8 +979,8 @@ function handleLineChange() {
             return;
         }
 
-        // 새 라인 편집 권한 요청
-        requestLineLock(newLine);
+        // 새 라인(구간) 편집 권한 요청
+        requestLineLock(newLine, endLine);
     }
 
     // 시각적 피드백 업데이트
@@ -569,7 +1037,7 @@ editorElement.addEventListener('compositionend', () => {
 // 키보드 이벤트 처리 개선
 editorElement.addEventListener('keydown', (e) => {
     const currentLine = getCurrentLineNumber();
-    const owner = lineOwnership[currentLine];
+    const owner = lineOwnerAt(currentLine);
 
     // 편집 불가능한 라인에서의 입력 방지
     if (owner && owner !== currentUserId) {
@@ -612,7 +1080,7 @@ editorElement.addEventListener('keydown', (e) => {
 // 마우스 이벤트 처리 추가
 editorElement.addEventListener('mousedown', (e) => {
     const currentLine = getCurrentLineNumber();
-    const owner = lineOwnership[currentLine];
+    const owner = lineOwnerAt(currentLine);
 
     // 편집 불가능한 라인에서의 선택 방지
     if (owner && owner !== currentUserId) {
@@ -683,7 +1151,7 @@ function confirmLoad() {
     return;
   }
 
-  fetch(`/load?fileName=${encodeURIComponent(selectedFile)}`, {
+  fetch(`/load?fileName=${encodeURIComponent(selectedFile)}&doc=${encodeURIComponent(currentDocId)}`, {
     method: 'POST'
   })
     .then(response => response.text())
@@ -725,13 +1193,16 @@ function saveToServer() {
     return;
   }
 
-  fetch(`/save?fileName=${encodeURIComponent(fileName)}`, {
+  fetch(`/save?fileName=${encodeURIComponent(fileName)}&doc=${encodeURIComponent(currentDocId)}`, {
     method: "POST"
   })
     .then(response => response.text())
     .then(text => {
       if (text.startsWith("OK")) {
-        alert(`서버에 저장되었습니다: "${fileName}"`);
+        // 저장은 서버에서 백그라운드로 진행되므로 작업 번호로 끝날 때까지 확인한다
+        const jobId = text.substring(2).trim();
+        logMessage(`💾 저장 시작: "${fileName}" (작업 ${jobId})`);
+        waitForSave(jobId, fileName);
       } else {
         alert("저장 실패: " + text);
       }
@@ -741,3 +1212,27 @@ function saveToServer() {
       console.error(err);
     });
 }
+
+/**
+ * 저장 작업이 끝날 때까지 /save/status 를 주기적으로 확인하고 결과를 알린다.
+ */
+function waitForSave(jobId, fileName) {
+  fetch(`/save/status?id=${encodeURIComponent(jobId)}`)
+    .then(response => {
+      if (!response.ok) throw new Error(`HTTP ${response.status}`);
+      return response.json();
+    })
+    .then(job => {
+      if (job.state === "DONE") {
+        alert(`서버에 저장되었습니다: "${fileName}"`);
+      } else if (job.state === "FAILED") {
+        alert("저장 실패: " + (job.error || "알 수 없는 오류"));
+      } else {
+        setTimeout(() => waitForSave(jobId, fileName), 200);
+      }
+    })
+    .catch(err => {
+      alert("저장 상태를 확인하지 못했습니다.");
+      console.error(err);
+    });
+}
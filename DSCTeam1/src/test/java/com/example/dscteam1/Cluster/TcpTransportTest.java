@@ -0,0 +1,79 @@
+package com.example.dscteam1.Cluster;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TcpTransportTest {
+
+    // 두 노드가 서로 연결되면 메시지가 보낸 순서대로 도착하고, 한쪽이 닫히면 다른 쪽이 노드가 떠난 것을 안다
+    @Test
+    void deliversInOrderAndReportsNodeDown() throws Exception {
+        int port1 = freePort();
+        int port2 = freePort();
+        Map<String, InetSocketAddress> peers = TcpTransport.parsePeers(
+                "n1=localhost:" + port1 + ", n2=localhost:" + port2);
+        TcpTransport n1 = new TcpTransport("n1", port1, peers);
+        TcpTransport n2 = new TcpTransport("n2", port2, peers);
+        Events events1 = new Events();
+        Events events2 = new Events();
+        try {
+            n1.start(events1);
+            n2.start(events2);
+            assertEquals("up n2", events1.next());
+            assertEquals("up n1", events2.next());
+            assertTrue(n1.isLive("n2"));
+
+            for (int i = 0; i < 100; i++) {
+                assertTrue(n1.send("n2", new JSONObject().put("seq", i).put("text", "한글 " + i)));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals("n1 " + i + " 한글 " + i, events2.next());
+            }
+        } finally {
+            n2.close();
+        }
+        assertEquals("down n2", events1.next());
+        assertFalse(n1.send("n2", new JSONObject()));
+        n1.close();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static final class Events implements ClusterTransport.Listener {
+        private final LinkedBlockingQueue<String> queue = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onMessage(String fromNode, JSONObject message) {
+            queue.add(fromNode + " " + message.getInt("seq") + " " + message.getString("text"));
+        }
+
+        @Override
+        public void onNodeUp(String nodeId) {
+            queue.add("up " + nodeId);
+        }
+
+        @Override
+        public void onNodeDown(String nodeId) {
+            queue.add("down " + nodeId);
+        }
+
+        String next() throws InterruptedException {
+            String event = queue.poll(10, TimeUnit.SECONDS);
+            assertNotNull(event, "10초 안에 이벤트가 없습니다");
+            return event;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.dscteam1.Document;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 로프 문서를 StringBuilder 와 단순 줄바꿈 스캔 결과에 대해 무작위로 비교하는 속성 테스트
+class RopeDocumentTest {
+
+    @Test
+    void randomEditsMatchStringBuilder() {
+        Random random = new Random(1);
+        for (int round = 0; round < 50; round++) {
+            RopeDocument rope = new RopeDocument();
+            StringBuilderDocument reference = new StringBuilderDocument();
+            for (int i = 0; i < 2000; i++) {
+                applyRandomEdit(random, rope, reference);
+            }
+            assertEquals(reference.toString(), rope.toString());
+            assertEquals(reference.lineCount(), rope.lineCount());
+            // AVL 높이 상한: 1.44 * log2(리프 수 + 2)
+            int leaves = rope.length() / RopeDocument.MAX_LEAF + 2;
+            assertTrue(rope.height() <= 1.45 * (Math.log(leaves) / Math.log(2)) + 2,
+                    "height " + rope.height() + " for " + rope.length() + " chars");
+        }
+    }
+
+    @Test
+    void lineLookupsMatchNaiveScan() {
+        Random random = new Random(2);
+        for (int round = 0; round < 30; round++) {
+            RopeDocument rope = new RopeDocument(randomText(random, random.nextInt(5000)));
+            StringBuilderDocument reference = new StringBuilderDocument(rope.toString());
+            for (int i = 0; i < 200; i++) {
+                applyRandomEdit(random, rope, reference);
+            }
+            String text = reference.toString();
+
+            int line = 0;
+            for (int offset = 0; offset <= text.length(); offset++) {
+                assertEquals(line, rope.lineAt(offset), "lineAt(" + offset + ")");
+                if (offset < text.length() && text.charAt(offset) == '\n') {
+                    line++;
+                    assertEquals(offset + 1, rope.lineStart(line), "lineStart(" + line + ")");
+                }
+            }
+            assertEquals(0, rope.lineStart(0));
+            assertEquals(line + 1, rope.lineCount());
+            assertThrows(IndexOutOfBoundsException.class, () -> rope.lineStart(rope.lineCount()));
+        }
+    }
+
+    @Test
+    void largeDocumentKeepsTailUntouched() {
+        String text = randomText(new Random(3), 1_000_000);
+        RopeDocument rope = new RopeDocument(text);
+        rope.insert(10, "hello\n");
+        rope.delete(500_000, 500_010);
+        String expected = new StringBuilder(text).insert(10, "hello\n").delete(500_000, 500_010).toString();
+        assertEquals(expected, rope.toString());
+        assertEquals(expected.charAt(999_000), rope.charAt(999_000));
+        assertEquals(expected.substring(12345, 23456), rope.substring(12345, 23456));
+    }
+
+    // 사본은 이후 원본 편집의 영향을 받지 않고, writeTo 는 toString 과 같은 내용을 쓴다
+    @Test
+    void snapshotIsIsolatedFromLaterEdits() throws IOException {
+        Random random = new Random(4);
+        RopeDocument rope = new RopeDocument(randomText(random, 200_000));
+        StringBuilderDocument reference = new StringBuilderDocument(rope.toString());
+        TextDocument snapshot = rope.snapshot();
+        String before = rope.toString();
+
+        for (int i = 0; i < 500; i++) {
+            applyRandomEdit(random, rope, reference);
+        }
+        assertEquals(reference.toString(), rope.toString());
+        assertEquals(before, snapshot.toString());
+
+        StringWriter out = new StringWriter();
+        snapshot.writeTo(out);
+        assertEquals(before, out.toString());
+    }
+
+    // 매핑한 파일의 리프 경계가 여러 바이트 문자(한글, 4바이트 이모지) 중간에 떨어져도 그대로 읽힌다
+    @Test
+    void openMappedFileMatchesReadString(@TempDir Path dir) throws IOException {
+        Random random = new Random(5);
+        StringBuilder sb = new StringBuilder();
+        String[] pieces = {"a", "\n", "한", "글", "\uD83D\uDE00", "é"};
+        while (sb.length() < 50_000) {
+            sb.append(pieces[random.nextInt(pieces.length)]);
+        }
+        Path file = dir.resolve("mapped.txt");
+        Files.writeString(file, sb, StandardCharsets.UTF_8);
+
+        RopeDocument rope = RopeDocument.open(file);
+        StringBuilderDocument reference = new StringBuilderDocument(Files.readString(file, StandardCharsets.UTF_8));
+        assertEquals(reference.toString(), rope.toString());
+        assertEquals(reference.lineCount(), rope.lineCount());
+
+        for (int i = 0; i < 500; i++) {
+            applyRandomEdit(random, rope, reference);
+        }
+        assertEquals(reference.toString(), rope.toString());
+    }
+
+    private static void applyRandomEdit(Random random, TextDocument a, TextDocument b) {
+        int length = b.length();
+        int kind = length == 0 ? 0 : random.nextInt(3);
+        if (kind == 0) {
+            int position = random.nextInt(length + 1);
+            String text = randomText(random, random.nextInt(20) == 0 ? 3000 : random.nextInt(20));
+            a.insert(position, text);
+            b.insert(position, text);
+        } else {
+            int start = random.nextInt(length + 1);
+            int maxSpan = random.nextInt(20) == 0 ? 5000 : 30;
+            int end = start + random.nextInt(Math.min(length - start, maxSpan) + 1);
+            if (kind == 1) {
+                a.delete(start, end);
+                b.delete(start, end);
+            } else {
+                String text = randomText(random, random.nextInt(10));
+                a.replace(start, end, text);
+                b.replace(start, end, text);
+            }
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(random.nextInt(8) == 0 ? '\n' : (char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+}
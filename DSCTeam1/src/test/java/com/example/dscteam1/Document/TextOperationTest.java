@@ -0,0 +1,67 @@
+package com.example.dscteam1.Document;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextOperationTest {
+
+    // 같은 문서에서 만든 두 연산은 어느 순서로 적용해도(상대 쪽을 변환해서) 결과가 같아야 한다
+    @Test
+    void concurrentOperationsConvergeInEitherOrder() {
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            String doc = randomText(random, random.nextInt(12));
+            TextOperation a = randomOperation(random, doc.length());
+            TextOperation b = randomOperation(random, doc.length());
+
+            String aThenB = apply(apply(doc, a), b.transform(a, false));
+            String bThenA = apply(apply(doc, b), a.transform(b, true));
+            assertEquals(aThenB, bThenA, () -> doc + " / a=" + a + " / b=" + b);
+        }
+    }
+
+    @Test
+    void insertsAtSamePositionAreOrderedByPriority() {
+        TextOperation first = TextOperation.insert(1, "X");
+        TextOperation second = TextOperation.insert(1, "Y");
+        assertEquals(TextOperation.insert(2, "Y"), second.transform(first, true));
+        assertEquals(TextOperation.insert(1, "X"), first.transform(second, false));
+        assertEquals("aXYb", apply(apply("ab", first), second.transform(first, true)));
+    }
+
+    // 지워진 범위 안에서의 입력은 범위와 함께 지워지고, 걸쳐 있는 편집은 남은 부분만 바꾼다
+    @Test
+    void overlappingRangesKeepTheirOwnText() {
+        TextOperation delete = TextOperation.delete(1, 4);
+        TextOperation insert = TextOperation.insert(2, "X");
+        assertEquals("ae", apply(apply("abcde", delete), insert.transform(delete, true)));
+        assertEquals("ae", apply(apply("abcde", insert), delete.transform(insert, false)));
+
+        TextOperation left = new TextOperation(0, 3, "L");
+        TextOperation right = new TextOperation(2, 5, "R");
+        assertEquals("LR", apply(apply("abcde", left), right.transform(left, true)));
+        assertEquals("LR", apply(apply("abcde", right), left.transform(right, false)));
+    }
+
+    static TextOperation randomOperation(Random random, int length) {
+        int start = random.nextInt(length + 1);
+        int end = start + random.nextInt(Math.min(length - start, 4) + 1);
+        String text = random.nextInt(3) == 0 ? "" : randomText(random, 1 + random.nextInt(3));
+        return new TextOperation(start, end, text);
+    }
+
+    static String randomText(Random random, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(random.nextInt(6) == 0 ? '\n' : (char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    static String apply(String doc, TextOperation op) {
+        return new StringBuilder(doc).replace(op.start(), op.end(), op.text()).toString();
+    }
+}
@@ -2,8 +2,11 @@ package com.example.dscteam1;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
 
+// 문서 색인은 메모리 DB 로 (작업 트리의 saved_files/.index 에 파일을 만들지 않도록)
 @SpringBootTest
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:documents;DB_CLOSE_DELAY=-1")
 class DscTeam1ApplicationTests {
 
     @Test
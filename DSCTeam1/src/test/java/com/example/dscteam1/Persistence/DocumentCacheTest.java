@@ -0,0 +1,42 @@
+package com.example.dscteam1.Persistence;
+
+import com.example.dscteam1.Document.RopeDocument;
+import com.example.dscteam1.Document.TextDocument;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentCacheTest {
+
+    // 크기 합이 한도를 넘으면 가장 오래 쓰지 않은 문서부터 빠지고, 파일이 바뀌었으면 없는 것으로 본다
+    @Test
+    void evictsLeastRecentlyUsedBySize() {
+        DocumentCache cache = new DocumentCache(100);
+        cache.put("a", new RopeDocument("a"), 40, 1);
+        cache.put("b", new RopeDocument("b"), 40, 1);
+        assertNotNull(cache.get("a", 40, 1));
+        cache.put("c", new RopeDocument("c"), 40, 1);
+
+        assertNull(cache.get("b", 40, 1));
+        assertEquals("a", cache.get("a", 40, 1).toString());
+        assertEquals("c", cache.get("c", 40, 1).toString());
+        assertEquals(80, cache.getTotalBytes());
+
+        assertNull(cache.get("a", 40, 2));
+        assertEquals(1, cache.size());
+
+        cache.put("huge", new RopeDocument("x"), 101, 1);
+        assertNull(cache.get("huge", 101, 1));
+        assertEquals(40, cache.getTotalBytes());
+    }
+
+    // 꺼낸 사본을 편집해도 캐시의 문서는 그대로다
+    @Test
+    void returnsIndependentCopies() {
+        DocumentCache cache = new DocumentCache(100);
+        cache.put("a", new RopeDocument("hello"), 5, 1);
+        TextDocument copy = cache.get("a", 5, 1);
+        copy.insert(5, " world");
+        assertEquals("hello", cache.get("a", 5, 1).toString());
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.dscteam1.Persistence;
+
+import com.example.dscteam1.Document.RopeDocument;
+import com.example.dscteam1.Document.TextDocument;
+import com.example.dscteam1.Document.TextOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EditLogTest {
+
+    // 자동 그룹 커밋이 끼어들지 않도록 간격을 길게 두고 flush 를 직접 부른다
+    private final EditLogWriter writer = new EditLogWriter(new EditLogWriter.Settings(3_600_000, 4096, 1000, 0));
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    // 내려간 기록만으로 (스냅샷 없이) 비정상 종료 직전 상태를 되살린다
+    @Test
+    void replaysFlushedOpsAfterCrash() throws IOException {
+        EditLog log = new EditLog(dir, writer);
+        EditLog.Recovered empty = log.recover();
+        assertEquals(0, empty.revision());
+
+        TextDocument expected = new RopeDocument("");
+        long revision = appendRandomOps(log, expected, 0, 500, new Random(1));
+        log.flush();
+
+        // 내리지 않은 기록은 잃는다
+        log.append(revision + 1, TextOperation.insert(0, "lost"));
+
+        EditLog.Recovered recovered = new EditLog(dir, writer).recover();
+        assertEquals(revision, recovered.revision());
+        assertEquals(expected.toString(), recovered.text().toString());
+    }
+
+    // 쓰다 끊긴 마지막 레코드는 잘라내고, 그 뒤로 이어서 기록할 수 있다
+    @Test
+    void truncatesTornTail() throws IOException {
+        EditLog log = new EditLog(dir, writer);
+        log.recover();
+        TextDocument expected = new RopeDocument("");
+        long revision = appendRandomOps(log, expected, 0, 50, new Random(2));
+        log.flush();
+
+        Path segment = segments().reduce((a, b) -> b).orElseThrow();
+        long validSize = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        EditLog reopened = new EditLog(dir, writer);
+        EditLog.Recovered recovered = reopened.recover();
+        assertEquals(revision, recovered.revision());
+        assertEquals(expected.toString(), recovered.text().toString());
+        assertEquals(validSize, Files.size(segment));
+
+        revision = appendRandomOps(reopened, expected, revision, 50, new Random(3));
+        reopened.flush();
+        EditLog.Recovered again = new EditLog(dir, writer).recover();
+        assertEquals(revision, again.revision());
+        assertEquals(expected.toString(), again.text().toString());
+    }
+
+    // 스냅샷을 찍으면 그 안에 포함된 세그먼트가 지워지고, 복구는 스냅샷 + 남은 기록으로 한다
+    @Test
+    void snapshotCompactsCoveredSegments() throws IOException {
+        EditLog log = new EditLog(dir, writer);
+        log.recover();
+        TextDocument expected = new RopeDocument("");
+        Random random = new Random(4);
+        long revision = 0;
+        // 세그먼트 한도(4 KB)를 넘도록 여러 번 나눠 내린다
+        for (int i = 0; i < 20; i++) {
+            revision = appendRandomOps(log, expected, revision, 50, random);
+            log.flush();
+        }
+        assertTrue(segments().count() > 3);
+
+        log.close(revision, expected);
+        assertEquals(1, segments().count());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.filter(f -> f.getFileName().toString().startsWith("snapshot-")).count());
+        }
+
+        EditLog reopened = new EditLog(dir, writer);
+        EditLog.Recovered recovered = reopened.recover();
+        assertEquals(revision, recovered.revision());
+        assertEquals(expected.toString(), recovered.text().toString());
+
+        reopened.append(revision + 1, TextOperation.insert(0, "x"));
+        reopened.replace(revision + 2, new RopeDocument("replaced"));
+        EditLog.Recovered replaced = new EditLog(dir, writer).recover();
+        assertEquals(revision + 2, replaced.revision());
+        assertEquals("replaced", replaced.text().toString());
+    }
+
+    // 압축한 스냅샷(.txt.deflate)으로도 복구하고, 다음 스냅샷이 압축하지 않은 것이어도 이전 것을 지운다
+    @Test
+    void recoversFromCompressedSnapshot() throws IOException {
+        EditLogWriter compressing = new EditLogWriter(new EditLogWriter.Settings(3_600_000, 4096, 1000, 6));
+        try {
+            EditLog log = new EditLog(dir, compressing);
+            log.recover();
+            TextDocument expected = new RopeDocument("");
+            long revision = appendRandomOps(log, expected, 0, 2000, new Random(5));
+            log.close(revision, expected);
+            Path snapshot = dir.resolve(String.format("snapshot-%020d.txt.deflate", revision));
+            assertTrue(Files.exists(snapshot));
+            assertTrue(Files.size(snapshot) < expected.toString().getBytes(StandardCharsets.UTF_8).length);
+
+            EditLog reopened = new EditLog(dir, writer);
+            EditLog.Recovered recovered = reopened.recover();
+            assertEquals(revision, recovered.revision());
+            assertEquals(expected.toString(), recovered.text().toString());
+
+            reopened.replace(revision + 1, new RopeDocument("plain"));
+            assertFalse(Files.exists(snapshot));
+            assertEquals("plain", new EditLog(dir, writer).recover().text().toString());
+        } finally {
+            compressing.shutdown();
+        }
+    }
+
+    // 임의의 삽입/삭제/교체를 count 개 기록하고 expected 에도 적용한다 (마지막 리비전 반환)
+    private static long appendRandomOps(EditLog log, TextDocument expected, long revision, int count, Random random) {
+        for (int i = 0; i < count; i++) {
+            int length = expected.length();
+            int start = random.nextInt(length + 1);
+            int end = start + random.nextInt(Math.min(5, length - start) + 1);
+            String text = random.nextInt(3) == 0 ? "" : "한글 text\n".substring(0, 1 + random.nextInt(8));
+            TextOperation op = new TextOperation(start, end, text);
+            op.applyTo(expected);
+            log.append(++revision, op);
+        }
+        return revision;
+    }
+
+    private Stream<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".wal")).sorted().toList().stream();
+        }
+    }
+}
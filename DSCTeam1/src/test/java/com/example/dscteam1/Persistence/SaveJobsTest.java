@@ -0,0 +1,40 @@
+package com.example.dscteam1.Persistence;
+
+import com.example.dscteam1.Document.RopeDocument;
+import com.example.dscteam1.Document.TextDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaveJobsTest {
+
+    @TempDir
+    Path dir;
+
+    // 완료 콜백이 예외를 던져도 다 쓴 저장은 DONE 이고 콜백은 한 번만 불린다
+    @Test
+    void callbackFailureKeepsJobDone() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        SaveJobs jobs = new SaveJobs(job -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("callback");
+        }, Thread::new);
+        Path target = dir.resolve("memo.txt");
+
+        SaveJobs.Job job = jobs.submit("doc", "memo.txt", target,
+                CompletableFuture.completedFuture((TextDocument) new RopeDocument("hello")));
+        jobs.shutdown();
+
+        assertEquals(SaveJobs.State.DONE, job.getState());
+        assertEquals(1, calls.get());
+        assertEquals("hello", Files.readString(target, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.dscteam1.WebSocket;
+
+import com.example.dscteam1.Document.TextOperation;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryOpsTest {
+
+    // 서버가 보내는 연산 프레임을 다시 읽으면 같은 연산과 리비전이 나온다 (여러 바이트 문자, 큰 값 포함)
+    @Test
+    void operationFrameRoundTrips() {
+        TextOperation[] ops = {
+                TextOperation.insert(0, "a"),
+                TextOperation.insert(300, "한글 😀\n"),
+                TextOperation.delete(127, 128),
+                new TextOperation(16_384, Integer.MAX_VALUE, "x"),
+        };
+        long[] revisions = {0, 127, 128, Long.MAX_VALUE};
+        for (TextOperation op : ops) {
+            for (long revision : revisions) {
+                ByteBuffer frame = ByteBuffer.wrap(BinaryOps.encodeOperation(op, revision));
+                byte kind = frame.get();
+                assertEquals(revision, BinaryOps.readVarLong(frame));
+                assertEquals(op, BinaryOps.readOperation(kind, frame));
+                assertFalse(frame.hasRemaining());
+            }
+        }
+    }
+
+    @Test
+    void batchFrameRoundTrips() {
+        List<TextOperation> ops = List.of(
+                TextOperation.insert(3, "한😀"),
+                TextOperation.delete(0, 2),
+                new TextOperation(200, 300, "x\ny"),
+                TextOperation.insert(0, ""));
+        ByteBuffer frame = ByteBuffer.wrap(BinaryOps.encodeBatch(ops, 1_000));
+        assertEquals(BinaryOps.BATCH, frame.get());
+        assertEquals(1_000, BinaryOps.readVarLong(frame));
+        assertEquals(ops, BinaryOps.readBatch(frame));
+        assertFalse(frame.hasRemaining());
+    }
+
+    // static/script.js 의 encodeOp({start: 200, end: 200, text: "한a😀"}, 127, 3) 결과
+    @Test
+    void decodesClientFrame() {
+        ByteBuffer frame = ByteBuffer.wrap(new byte[]{
+                0x01, (byte) 0x80, 0x01, 0x03, (byte) 0xC8, 0x01,
+                (byte) 0xED, (byte) 0x95, (byte) 0x9C, 0x61, (byte) 0xF0, (byte) 0x9F, (byte) 0x98, (byte) 0x80});
+        byte kind = frame.get();
+        assertEquals(127, BinaryOps.readVarLong(frame) - 1);
+        assertEquals(3, BinaryOps.readVarLong(frame));
+        assertEquals(TextOperation.insert(200, "한a😀"), BinaryOps.readOperation(kind, frame));
+    }
+
+    // static/script.js 의 encodeBatch([add(3, "한😀"), delete(0, 2), edit(200, 300, "x\ny")], 999, 4) 결과
+    @Test
+    void decodesClientBatchFrame() {
+        ByteBuffer frame = ByteBuffer.wrap(HexFormat.of().parseHex("05e8070403010307ed959cf09f988002000203c801ac0203780a79"));
+        assertEquals(BinaryOps.BATCH, frame.get());
+        assertEquals(999, BinaryOps.readVarLong(frame) - 1);
+        assertEquals(4, BinaryOps.readVarLong(frame));
+        assertEquals(List.of(
+                TextOperation.insert(3, "한😀"),
+                TextOperation.delete(0, 2),
+                new TextOperation(200, 300, "x\ny")), BinaryOps.readBatch(frame));
+    }
+
+    @Test
+    void rejectsTruncatedOrInvalidFrames() {
+        assertThrows(BufferUnderflowException.class,
+                () -> BinaryOps.readOperation(BinaryOps.DELETE, ByteBuffer.wrap(new byte[]{0x05})));
+        // end < start
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryOps.readOperation(BinaryOps.DELETE, ByteBuffer.wrap(new byte[]{0x05, 0x01})));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryOps.readOperation((byte) 9, ByteBuffer.wrap(new byte[]{0x00})));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.dscteam1.WebSocket;
+
+import com.example.dscteam1.Document.RopeDocument;
+import com.example.dscteam1.Document.TextOperation;
+import com.example.dscteam1.Persistence.EditLog;
+import com.example.dscteam1.Persistence.EditLogWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentRoomTest {
+
+    private final EditLogWriter writer = new EditLogWriter(new EditLogWriter.Settings(3_600_000, 4096, 1000, 0));
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    // 편집 기록에 넣지 못한 연산은 텍스트와 리비전에도 반영하지 않는다
+    @Test
+    void failedAppendLeavesTextUntouched() throws IOException {
+        EditLog log = new EditLog(dir, writer);
+        EditLog.Recovered recovered = log.recover();
+        DocumentRoom room = new DocumentRoom("doc", recovered.text(), recovered.revision(), log, Runnable::run,
+                EditorMetrics.NOOP);
+        room.applyOperation("u", TextOperation.insert(0, "hello"));
+        log.close(room.getRevision(), new RopeDocument("hello"));
+
+        assertThrows(IllegalStateException.class, () -> room.applyOperation("u", TextOperation.insert(5, "!")));
+        assertEquals("hello", room.getText().toString());
+        assertEquals(1, room.getRevision());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.dscteam1.WebSocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineLockManagerTest {
+
+    private static final long TIMEOUT = 1000;
+
+    // 만료 시각이 지난 락만, 지난 직후 한 번에 풀린다
+    @Test
+    void expiresExactlyAtDeadline() {
+        LineLockManager locks = new LineLockManager(TIMEOUT);
+        locks.acquire("a", 1, 1, 0);
+        locks.acquire("b", 2, 2, 0);
+        locks.acquire("c", 3, 3, 500);
+
+        assertEquals(TIMEOUT, locks.getNextDeadline());
+        assertEquals(List.of(), owners(locks.expire(TIMEOUT - 1)));
+        assertEquals(List.of("a", "b"), owners(locks.expire(TIMEOUT)).stream().sorted().toList());
+        assertNull(locks.ownerOf(1));
+        assertNull(locks.leaseOf("b"));
+        assertEquals("c", locks.ownerOf(3));
+        assertEquals(500 + TIMEOUT, locks.getNextDeadline());
+    }
+
+    // 편집으로 연장된 리스는 원래 만료 시각에 풀리지 않고 새 만료 시각에 풀린다
+    @Test
+    void renewedLeaseOutlivesOriginalDeadline() {
+        LineLockManager locks = new LineLockManager(TIMEOUT);
+        locks.acquire("a", 7, 7, 0);
+        locks.renew("a", 800);
+
+        assertEquals(List.of(), owners(locks.expire(TIMEOUT)));
+        assertEquals("a", locks.ownerOf(7));
+        assertEquals(800 + TIMEOUT, locks.getNextDeadline());
+        assertEquals(List.of("a"), owners(locks.expire(800 + TIMEOUT)));
+        assertEquals(0, locks.size());
+    }
+
+    // 풀렸다가 다시 잡힌 라인은 이전 리스의 만료 시각에 풀리지 않는다
+    @Test
+    void releasedLeaseDoesNotExpireNewOwner() {
+        LineLockManager locks = new LineLockManager(TIMEOUT);
+        locks.acquire("a", 4, 4, 0);
+        assertEquals(4, locks.release("a").getStart());
+        locks.acquire("b", 4, 4, 600);
+
+        assertEquals(List.of(), owners(locks.expire(TIMEOUT)));
+        assertEquals("b", locks.ownerOf(4));
+        assertTrue(locks.isExpired(4, 600 + TIMEOUT));
+        assertEquals(List.of("b"), owners(locks.expire(600 + TIMEOUT)));
+    }
+
+    // 구간 안의 다른 사람 락만 충돌로 본다 (자기 락, 구간 밖 락은 무시)
+    @Test
+    void findsConflictsInsideRange() {
+        LineLockManager locks = new LineLockManager(TIMEOUT);
+        locks.acquire("a", 2, 4, 0);
+        locks.acquire("b", 10, 12, 0);
+
+        assertEquals("a", locks.ownerOf(3));
+        assertNull(locks.ownerOf(5));
+        assertNull(locks.firstConflict("c", 5, 9));
+        assertEquals("a", locks.firstConflict("c", 0, 2).getOwner());
+        assertEquals("a", locks.firstConflict("c", 4, 20).getOwner());
+        assertEquals("b", locks.firstConflict("a", 0, 20).getOwner());
+        assertEquals("b", locks.firstConflict("c", 12, 12).getOwner());
+        assertNull(locks.firstConflict("c", 13, 100));
+    }
+
+    // 위쪽에 줄이 추가/삭제되면 아래쪽 락이 텍스트를 따라 이동한다
+    @Test
+    void shiftsLocksBelowEdit() {
+        LineLockManager locks = new LineLockManager(TIMEOUT);
+        locks.acquire("a", 5, 5, 0);
+        locks.acquire("b", 8, 9, 0);
+
+        // 라인 1 에서 줄바꿈 두 개 붙여넣기
+        assertTrue(locks.shift(1, 1, 2));
+        assertEquals("a", locks.ownerOf(7));
+        assertEquals(10, locks.leaseOf("b").getStart());
+        assertEquals(11, locks.leaseOf("b").getEnd());
+        assertNull(locks.ownerOf(5));
+
+        // 라인 0~3 을 한 줄로 합치기
+        assertTrue(locks.shift(0, 3, 0));
+        assertEquals(4, locks.leaseOf("a").getStart());
+        assertEquals(7, locks.leaseOf("b").getStart());
+
+        // 한 줄 안의 편집은 아무것도 바꾸지 않는다
+        assertFalse(locks.shift(2, 2, 0));
+    }
+
+    // 자기 락 라인에서 줄바꿈을 넣으면 락이 새 줄까지 늘어나고, 락 구간을 지우면 한 줄로 줄어든다
+    @Test
+    void growsAndShrinksEditedLock() {
+        LineLockManager locks = new LineLockManager(TIMEOUT);
+        locks.acquire("a", 3, 3, 0);
+        locks.acquire("b", 6, 6, 0);
+
+        assertTrue(locks.shift(3, 3, 2));
+        assertEquals(3, locks.leaseOf("a").getStart());
+        assertEquals(5, locks.leaseOf("a").getEnd());
+        assertEquals(8, locks.leaseOf("b").getStart());
+
+        assertTrue(locks.shift(3, 5, 0));
+        assertEquals(3, locks.leaseOf("a").getStart());
+        assertEquals(3, locks.leaseOf("a").getEnd());
+        assertEquals(6, locks.leaseOf("b").getStart());
+    }
+
+    private static List<String> owners(List<LineLockManager.Lease> leases) {
+        return leases.stream().map(LineLockManager.Lease::getOwner).toList();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.dscteam1.WebSocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MySocketHandlerTest {
+
+    // 수신 스레드에서 보낸 제한 알림이 송신 큐를 넘치게 해도 재동기화(init)는 방 메일박스에서만 한다
+    @Test
+    void overflowFromReceiveThreadResyncsOnMailbox() {
+        List<Runnable> mailboxTasks = new ArrayList<>();
+        DocumentRoom room = new DocumentRoom("doc", "hello", mailboxTasks::add);
+
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.getAttributes()).thenReturn(new HashMap<>());
+        OutboundQueue.Settings settings =
+                new OutboundQueue.Settings(2, Long.MAX_VALUE, OutboundQueue.OverflowPolicy.RESYNC, FrameCompression.NONE);
+        // 송신 워커가 돌지 않으므로 보낸 메시지는 큐에 그대로 쌓인다
+        OutboundQueue out = new OutboundQueue(session, settings, task -> { });
+        assertTrue(room.addMember("u", out));
+        out.send("a");
+        out.send("b");
+
+        InboundGuard guard = InboundGuard.of(session, InboundGuard.Limits.NONE);
+        MySocketHandler.notifyRateLimited(guard, out, "session", 100, System.nanoTime());
+
+        assertEquals(0, out.getDepth());
+        assertEquals(1, mailboxTasks.size());
+
+        mailboxTasks.remove(0).run();
+        // init + 줄 잠금 상태
+        assertEquals(2, out.getDepth());
+        assertEquals(1L, out.toMap().get("resyncs"));
+    }
+}
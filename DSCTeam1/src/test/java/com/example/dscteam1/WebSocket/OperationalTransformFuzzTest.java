@@ -0,0 +1,165 @@
+package com.example.dscteam1.WebSocket;
+
+import com.example.dscteam1.Document.TextOperation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 여러 클라이언트가 동시에 편집하고 메시지가 임의 순서로 오가도 모두 같은 텍스트로 수렴하는지 확인
+// 서버는 실제 DocumentRoom(transformToHead / applyOperation), 클라이언트는 static/script.js 의
+// 송신 대기 연산(outstanding) + 버퍼 방식을 그대로 흉내 낸다. ack 를 받으면 버퍼에 쌓인 연산을 일괄(batch)로 보낸다.
+class OperationalTransformFuzzTest {
+
+    // 서버 → 클라이언트 메시지: ack(ops == null) 또는 다른 사람이 확정한 연산들 (rev: 마지막 연산의 리비전)
+    private record Incoming(List<TextOperation> ops, long rev) {
+    }
+
+    // 클라이언트 → 서버 메시지 (연산 하나 또는 일괄)
+    private record Outgoing(List<TextOperation> ops, long baseRevision) {
+    }
+
+    private static final class Client {
+        final StringBuilder doc;
+        long revision;
+        List<TextOperation> outstanding;
+        final List<TextOperation> buffer = new ArrayList<>();
+        final Deque<Incoming> inbox = new ArrayDeque<>();
+        final Deque<Outgoing> outbox = new ArrayDeque<>();
+
+        Client(String text, long revision) {
+            this.doc = new StringBuilder(text);
+            this.revision = revision;
+        }
+
+        void edit(TextOperation op) {
+            doc.replace(op.start(), op.end(), op.text());
+            buffer.add(op);
+            if (outstanding == null) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (buffer.isEmpty()) return;
+            outstanding = new ArrayList<>(buffer);
+            buffer.clear();
+            // 보낸 메시지는 이후 outstanding 의 변환과 상관없이 보낸 그대로다
+            outbox.add(new Outgoing(List.copyOf(outstanding), revision));
+        }
+
+        void receive(Incoming message) {
+            if (message.ops() == null) {
+                assertTrue(message.rev() >= revision);
+                revision = message.rev();
+                outstanding = null;
+                flush();
+                return;
+            }
+            assertEquals(revision + message.ops().size(), message.rev(), "서버 메시지는 리비전 순서대로 와야 한다");
+            revision = message.rev();
+            // 서버 연산은 아직 확정되지 않은 내 연산들보다 먼저 적용된 것으로 본다
+            for (TextOperation op : message.ops()) {
+                TextOperation server = op;
+                if (outstanding != null) {
+                    for (int i = 0; i < outstanding.size(); i++) {
+                        TextOperation pending = outstanding.get(i);
+                        outstanding.set(i, pending.transform(server, true));
+                        server = server.transform(pending, false);
+                    }
+                }
+                for (int i = 0; i < buffer.size(); i++) {
+                    TextOperation pending = buffer.get(i);
+                    buffer.set(i, pending.transform(server, true));
+                    server = server.transform(pending, false);
+                }
+                doc.replace(server.start(), server.end(), server.text());
+            }
+        }
+
+        boolean idle() {
+            return inbox.isEmpty() && outbox.isEmpty() && outstanding == null;
+        }
+    }
+
+    @Test
+    void concurrentTypistsConverge() {
+        for (long seed = 0; seed < 200; seed++) {
+            runSession(new Random(seed), 2 + (int) (seed % 5), 400);
+        }
+    }
+
+    private void runSession(Random random, int clientCount, int steps) {
+        String initial = "hello\nworld\n";
+        DocumentRoom room = new DocumentRoom("fuzz", initial, Runnable::run);
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < clientCount; i++) {
+            clients.add(new Client(initial, room.getRevision()));
+        }
+
+        for (int step = 0; step < steps; step++) {
+            Client client = clients.get(random.nextInt(clientCount));
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    TextOperation op = randomOperation(random, client.doc.length());
+                    if (!op.isNoop()) client.edit(op);
+                }
+                case 1 -> deliverToServer(room, clients, client);
+                default -> {
+                    if (!client.inbox.isEmpty()) client.receive(client.inbox.poll());
+                }
+            }
+        }
+
+        // 남은 메시지를 모두 주고받는다
+        while (!clients.stream().allMatch(Client::idle)) {
+            for (Client client : clients) {
+                deliverToServer(room, clients, client);
+                while (!client.inbox.isEmpty()) {
+                    client.receive(client.inbox.poll());
+                }
+            }
+        }
+
+        String expected = room.snapshotText();
+        for (Client client : clients) {
+            assertEquals(expected, client.doc.toString());
+            assertEquals(room.getRevision(), client.revision);
+        }
+    }
+
+    private void deliverToServer(DocumentRoom room, List<Client> clients, Client sender) {
+        Outgoing message = sender.outbox.poll();
+        if (message == null) return;
+
+        List<TextOperation> ops = room.transformToHead(message.ops(), message.baseRevision());
+        assertNotNull(ops, "로그 안의 리비전은 항상 변환할 수 있어야 한다");
+        List<TextOperation> applied = new ArrayList<>();
+        for (TextOperation op : ops) {
+            if (!op.isNoop()) {
+                room.applyOperation("fuzz", op);
+                applied.add(op);
+            }
+        }
+        long revision = room.getRevision();
+        for (Client client : clients) {
+            if (client == sender) {
+                client.inbox.add(new Incoming(null, revision));
+            } else if (!applied.isEmpty()) {
+                client.inbox.add(new Incoming(applied, revision));
+            }
+        }
+    }
+
+    private static TextOperation randomOperation(Random random, int length) {
+        int start = random.nextInt(length + 1);
+        int end = start + random.nextInt(Math.min(length - start, 3) + 1);
+        String text = random.nextInt(3) == 0 ? "" : random.nextInt(5) == 0 ? "\n" : "" + (char) ('a' + random.nextInt(26));
+        return new TextOperation(start, end, text);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.dscteam1.WebSocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomMailboxTest {
+
+    // 여러 스레드가 동시에 넣어도 한 번에 하나씩, 생산자별 순서를 지키며 실행되는지 확인
+    @Test
+    void appliesTasksOneAtATimeInSubmissionOrder() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        RoomStats stats = new RoomStats();
+        RoomMailbox mailbox = new RoomMailbox(workers, stats);
+
+        int producers = 8;
+        int perProducer = 5000;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        int[] lastSeen = new int[producers];
+        List<String> outOfOrder = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 1; i <= perProducer; i++) {
+                    int seq = i;
+                    mailbox.submit(() -> {
+                        if (running.incrementAndGet() != 1) overlaps.incrementAndGet();
+                        // 단일 작성자이므로 일반 배열/리스트를 락 없이 써도 된다
+                        if (lastSeen[producer] != seq - 1) outOfOrder.add(producer + ":" + seq);
+                        lastSeen[producer] = seq;
+                        running.decrementAndGet();
+                    });
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        mailbox.call(() -> null).get(10, TimeUnit.SECONDS);
+        workers.shutdown();
+
+        assertEquals(0, overlaps.get());
+        assertTrue(outOfOrder.isEmpty(), outOfOrder.toString());
+        // 마지막 call 작업 자체의 기록은 future 완료 뒤에 일어날 수 있다
+        assertTrue(stats.getAppliedOps() >= (long) producers * perProducer);
+        assertEquals(0, mailbox.getDepth());
+        assertTrue(stats.latencyPercentileMicros(0.99) > 0);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.dscteam1.WebSocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    // burst 만큼은 한꺼번에 받고, 그다음부터는 초당 perSecond 개씩만 받는다 (쉬어도 burst 이상 쌓이지 않는다)
+    @Test
+    void allowsBurstThenRefillsAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long now = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(now));
+        }
+        assertFalse(bucket.tryAcquire(now));
+        assertEquals(100, bucket.millisUntilNext(now));
+
+        long later = now + TimeUnit.MILLISECONDS.toNanos(100);
+        assertEquals(0, bucket.millisUntilNext(later));
+        assertTrue(bucket.tryAcquire(later));
+        assertFalse(bucket.tryAcquire(later));
+
+        long muchLater = later + TimeUnit.SECONDS.toNanos(60);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(muchLater));
+        }
+        assertFalse(bucket.tryAcquire(muchLater));
+    }
+
+    // 다른 스레드가 먼저 채운 뒤 더 이른 시각으로 불러도 토큰이 줄거나 채운 시각이 되돌아가지 않는다
+    @Test
+    void ignoresEarlierTimestamps() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long now = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(now));
+        }
+        long later = now + TimeUnit.MILLISECONDS.toNanos(100);
+        assertEquals(0, bucket.millisUntilNext(later));
+        assertEquals(0, bucket.millisUntilNext(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(later));
+    }
+}